@@ -0,0 +1,86 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.io.input.AbstractCsvRecordReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
+import de.tum.bgu.msm.io.input.CsvRecordReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the synthetic population files of the test scenario on the {@link CsvRecord} path that the input readers
+ * use. {@link #read()} goes through {@link AbstractCsvRecordReader} and parses the first column of every record as a
+ * number, {@link #readRecords()} only splits the lines with a {@link CsvRecordReader}. No model objects are built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param({"microData/pp_2011.csv", "microData/hh_2011.csv", "microData/jj_2011.csv", "microData/dd_2011.csv"})
+    private String file;
+
+    private Path path;
+
+    @Setup
+    public void setup() {
+        path = Fixtures.resolve(file);
+    }
+
+    @Benchmark
+    public long read() {
+        final IdSummingReader reader = new IdSummingReader(path);
+        reader.read();
+        return reader.sum;
+    }
+
+    @Benchmark
+    public long readRecords() throws IOException {
+        long fields = 0;
+        try (InputStream in = Files.newInputStream(path);
+             CsvRecordReader reader = new CsvRecordReader(in, ',')) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                fields += record.getFieldCount();
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Sums the ids in the first column, like the population readers parse them from the records
+     */
+    private static final class IdSummingReader extends AbstractCsvRecordReader {
+
+        private final Path path;
+        private long sum = 0;
+
+        private IdSummingReader(Path path) {
+            super(new DataSet());
+            this.path = path;
+        }
+
+        @Override
+        protected void processHeader(String[] header) {
+            sum += header.length;
+        }
+
+        @Override
+        protected void processRecord(CsvRecord record) {
+            sum += record.getInt(0);
+        }
+
+        @Override
+        public void read() {
+            read(path, ",");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.modules.tripDistribution.DestinationUtilityCalculator;
+import de.tum.bgu.msm.modules.tripDistribution.DestinationUtilityCalculatorFactoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Destination utilities for a full row of the zone system, as computed for every origin in trip distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DestinationUtilityBenchmark {
+
+    @Param({"HBW", "HBO", "NHBO"})
+    private Purpose purpose;
+
+    @Param({"70", "4000"})
+    private int zones;
+
+    private DestinationUtilityCalculator calculator;
+    private double[] attractions;
+    private double[] distances;
+    private double[] utilities;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        calculator = new DestinationUtilityCalculatorFactoryImpl().createDestinationUtilityCalculator(purpose, 1., 1.);
+        final int[] ids = Fixtures.zoneIds(zones);
+        attractions = new double[ids.length];
+        distances = new double[ids.length];
+        utilities = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            // some zones do not attract any trips, which short-cuts the calculation
+            attractions[i] = random.nextDouble() < 0.1 ? 0 : random.nextDouble() * 5000;
+            distances[i] = random.nextDouble() * 60;
+        }
+    }
+
+    @Benchmark
+    public double[] calculateUtilityRow() {
+        for (int i = 0; i < attractions.length; i++) {
+            utilities[i] = calculator.calculateUtility(attractions[i], distances[i]);
+        }
+        return utilities;
+    }
+}
@@ -0,0 +1,81 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.resources.Resources;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Access to the small Munich test scenario in test/muc, which is used as the basis for the synthetic benchmark data.
+ */
+final class Fixtures {
+
+    static final String FIXTURE_DIRECTORY_PROPERTY = "mito.fixtures";
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return the fixture directory given by the system property {@value #FIXTURE_DIRECTORY_PROPERTY}, or test/muc
+     * of the parent project if the property is not set
+     */
+    static Path directory() {
+        final String property = System.getProperty(FIXTURE_DIRECTORY_PROPERTY);
+        if (property != null) {
+            return Paths.get(property);
+        }
+        for (String candidate : new String[]{"../test/muc", "test/muc"}) {
+            final Path path = Paths.get(candidate);
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+        }
+        throw new IllegalStateException("Could not find the test scenario. Set -D" + FIXTURE_DIRECTORY_PROPERTY);
+    }
+
+    static Path resolve(String relativePath) {
+        return directory().resolve(relativePath);
+    }
+
+    static void initializeResources() {
+        Resources.initializeResources(resolve("test.properties").toString());
+    }
+
+    /**
+     * @return the zone ids of the test scenario's zone system
+     */
+    static int[] readZoneIds() {
+        try (BufferedReader reader = Files.newBufferedReader(resolve("input/zoneSystem.csv"), StandardCharsets.ISO_8859_1)) {
+            return reader.lines()
+                    .skip(1)
+                    .filter(line -> !line.isEmpty())
+                    .mapToInt(line -> Integer.parseInt(line.substring(0, line.indexOf(','))))
+                    .toArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the zone ids of the test scenario, padded with synthetic ids above the largest real id if more
+     * zones are requested
+     */
+    static int[] zoneIds(int numberOfZones) {
+        final int[] fixtureIds = readZoneIds();
+        if (numberOfZones <= fixtureIds.length) {
+            return Arrays.copyOf(fixtureIds, numberOfZones);
+        }
+        final int[] ids = Arrays.copyOf(fixtureIds, numberOfZones);
+        int nextId = Arrays.stream(fixtureIds).max().orElse(0) + 1;
+        for (int i = fixtureIds.length; i < numberOfZones; i++) {
+            ids[i] = nextId++;
+        }
+        return ids;
+    }
+}
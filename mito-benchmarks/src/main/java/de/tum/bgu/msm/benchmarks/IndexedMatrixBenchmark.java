@@ -0,0 +1,67 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Skim lookups by zone id, as done for every trip in destination choice, mode choice and time of day choice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexedMatrixBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"70", "2000"})
+    private int zones;
+
+    private IndexedDoubleMatrix2D matrix;
+    private int[] origins;
+    private int[] destinations;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final int[] ids = Fixtures.zoneIds(zones);
+        matrix = new IndexedDoubleMatrix2D(ids);
+        for (int origin : ids) {
+            for (int destination : ids) {
+                matrix.setIndexed(origin, destination, random.nextDouble() * 120);
+            }
+        }
+        origins = new int[LOOKUPS];
+        destinations = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            origins[i] = ids[random.nextInt(ids.length)];
+            destinations[i] = ids[random.nextInt(ids.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public double getIndexedRandomPairs() {
+        double sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += matrix.getIndexed(origins[i], destinations[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public double getIndexedSameOrigin() {
+        final int origin = origins[0];
+        double sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += matrix.getIndexed(origin, destinations[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,126 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.modules.modeChoice.ModeChoiceCalculator;
+import de.tum.bgu.msm.modules.modeChoice.calculators.ModeChoiceCalculatorImpl;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Mode;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode choice probabilities for synthetic persons travelling between the zones of the test scenario.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModeChoiceBenchmark {
+
+    private static final int TRIPS = 1024;
+    private static final String[] SKIM_MODES = {"car", "bus", "tramMetro", "train"};
+    private static final Purpose[] PURPOSES = {Purpose.HBW, Purpose.HBE, Purpose.HBS, Purpose.HBO, Purpose.NHBW, Purpose.NHBO};
+
+    private final ModeChoiceCalculator calculator = new ModeChoiceCalculatorImpl();
+
+    private TravelTimes travelTimes;
+    private Purpose[] purposes;
+    private MitoHousehold[] households;
+    private MitoPerson[] persons;
+    private MitoZone[] origins;
+    private MitoZone[] destinations;
+    private double[] distances;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final int[] ids = Fixtures.readZoneIds();
+        final AreaTypes.SGType[] areaTypes = AreaTypes.SGType.values();
+        final MitoZone[] zones = new MitoZone[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            zones[i] = new MitoZone(ids[i], areaTypes[random.nextInt(areaTypes.length)]);
+            zones[i].setDistanceToNearestRailStop(random.nextFloat() * 5);
+        }
+        travelTimes = new SkimTravelTimes(ids, random);
+
+        purposes = new Purpose[TRIPS];
+        households = new MitoHousehold[TRIPS];
+        persons = new MitoPerson[TRIPS];
+        origins = new MitoZone[TRIPS];
+        destinations = new MitoZone[TRIPS];
+        distances = new double[TRIPS];
+        final MitoOccupationStatus[] statuses = MitoOccupationStatus.values();
+        for (int i = 0; i < TRIPS; i++) {
+            purposes[i] = PURPOSES[random.nextInt(PURPOSES.length)];
+            households[i] = new MitoHousehold(i, 1000 + random.nextInt(8000), random.nextInt(3));
+            persons[i] = new MitoPerson(i, statuses[random.nextInt(statuses.length)], null, 18 + random.nextInt(60),
+                    random.nextBoolean() ? MitoGender.MALE : MitoGender.FEMALE, random.nextBoolean());
+            households[i].addPerson(persons[i]);
+            origins[i] = zones[random.nextInt(zones.length)];
+            destinations[i] = zones[random.nextInt(zones.length)];
+            distances[i] = 0.5 + random.nextDouble() * 40;
+        }
+    }
+
+    @Benchmark
+    public EnumMap<de.tum.bgu.msm.data.Mode, Double> calculateProbabilities() {
+        final int i = next;
+        next = (next + 1) % TRIPS;
+        return calculator.calculateProbabilities(purposes[i], households[i], persons[i], origins[i], destinations[i],
+                travelTimes, distances[i], distances[i], 8 * 3600);
+    }
+
+    /**
+     * Peak hour travel times backed by one random skim per mode.
+     */
+    private static final class SkimTravelTimes implements TravelTimes {
+
+        private final Map<String, IndexedDoubleMatrix2D> skims = new HashMap<>();
+
+        private SkimTravelTimes(int[] zoneIds, Random random) {
+            for (String mode : SKIM_MODES) {
+                final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zoneIds);
+                for (int origin : zoneIds) {
+                    for (int destination : zoneIds) {
+                        skim.setIndexed(origin, destination, 5 + random.nextDouble() * 90);
+                    }
+                }
+                skims.put(mode, skim);
+            }
+        }
+
+        @Override
+        public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+            return skims.get(mode).getIndexed(origin.getZoneId(), destination.getZoneId());
+        }
+
+        @Override
+        public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+            return skims.get(mode);
+        }
+
+        @Override
+        public TravelTimes duplicate() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package de.tum.bgu.msm.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line options, but writes results in the JSON
+ * format to jmh-result.json unless -rf/-rff are given, so that runs can be compared across commits.
+ */
+public class RunBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+        if (!commandLineOptions.getJvmArgsAppend().hasValue()) {
+            // forked benchmark JVMs do not inherit system properties of this JVM
+            options.jvmArgsAppend("-D" + Fixtures.FIXTURE_DIRECTORY_PROPERTY + "=" + Fixtures.directory().toAbsolutePath());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package de.tum.bgu.msm.benchmarks;
+
+import de.tum.bgu.msm.util.AliasSampler;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted random selection by linear scan, for the size of a mode set and of a minute-of-day distribution,
+ * compared to the alias sampler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectBenchmark {
+
+    @Param({"7", "1441"})
+    private int size;
+
+    private double[] probabilities;
+    private double sum;
+    private AliasSampler sampler;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        final Random weights = new Random(42);
+        probabilities = new double[size];
+        for (int i = 0; i < size; i++) {
+            probabilities[i] = weights.nextDouble();
+        }
+        sum = MitoUtil.getSum(probabilities);
+        sampler = new AliasSampler(probabilities);
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public int select() {
+        return MitoUtil.select(probabilities, random);
+    }
+
+    @Benchmark
+    public int selectWithKnownSum() {
+        return MitoUtil.select(probabilities, random, sum);
+    }
+
+    @Benchmark
+    public int aliasSampler() {
+        return sampler.sample(random);
+    }
+}
@@ -0,0 +1,77 @@
+package de.tum.bgu.msm.benchmarks;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.input.readers.TimeOfDayDistributionsReader;
+import de.tum.bgu.msm.util.AliasSampler;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arrival time and duration draws from the minute-of-day distributions of the test scenario, by linear
+ * scan over the distribution and with the alias samplers used by time of day choice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeOfDaySamplingBenchmark {
+
+    @Param({"HBW", "HBS", "NHBO"})
+    private Purpose purpose;
+
+    private DoubleMatrix1D arrivalDistribution;
+    private DoubleMatrix1D durationDistribution;
+    private double[] arrivalProbabilities;
+    private AliasSampler arrivalSampler;
+    private AliasSampler durationSampler;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        Fixtures.initializeResources();
+        final DataSet dataSet = new DataSet();
+        new TimeOfDayDistributionsReader(dataSet).read();
+        arrivalDistribution = dataSet.getArrivalMinuteCumProbByPurpose().get(purpose);
+        durationDistribution = dataSet.getDurationMinuteCumProbByPurpose().get(purpose);
+        arrivalProbabilities = arrivalDistribution.toArray();
+        arrivalSampler = dataSet.getArrivalMinuteSamplerByPurpose().get(purpose);
+        durationSampler = dataSet.getDurationMinuteSamplerByPurpose().get(purpose);
+        random = new Random(42);
+    }
+
+    /**
+     * Copies the distribution on every draw, as time of day choice did before using the alias samplers.
+     */
+    @Benchmark
+    public int arrivalTime() {
+        return MitoUtil.select(arrivalDistribution.toArray(), random);
+    }
+
+    @Benchmark
+    public int arrivalTimeWithoutCopy() {
+        return MitoUtil.select(arrivalProbabilities, random);
+    }
+
+    @Benchmark
+    public int arrivalTimeAndDuration() {
+        final int arrival = MitoUtil.select(arrivalDistribution.toArray(), random);
+        return arrival + MitoUtil.select(durationDistribution.toArray(), random);
+    }
+
+    @Benchmark
+    public int arrivalTimeAliasSampler() {
+        return arrivalSampler.sample(random);
+    }
+
+    @Benchmark
+    public int arrivalTimeAndDurationAliasSampler() {
+        return arrivalSampler.sample(random) + durationSampler.sample(random);
+    }
+}
@@ -19,8 +19,10 @@ import de.tum.bgu.msm.modules.tripGeneration.TripGeneration;
 import de.tum.bgu.msm.modules.tripGeneration.TripsByPurposeGeneratorFactorySampleEnumeration;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.profiling.ModuleProfiler;
 import org.apache.log4j.Logger;
 
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -96,6 +98,7 @@ public final class TravelDemandGenerator {
             tripScaling = new TripScaling(dataSet, purposes);
             matsimPopulationGenerator = new MatsimPopulationGenerator(dataSet, purposes);
             if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
+                MatsimPopulationGenerator.checkPopulationInMemory("Adding external flows");
                 longDistanceTraffic = new LongDistanceTraffic(dataSet, Double.parseDouble(Resources.instance.getString(Properties.TRIP_SCALING_FACTOR)), purposes);
             }
         }
@@ -192,58 +195,68 @@ public final class TravelDemandGenerator {
 
     public void generateTravelDemand(String scenarioName) {
 
-        logger.info("Running Module: Microscopic Trip Generation");
-        tripGeneration.run();
-        if (dataSet.getTrips().isEmpty()) {
-            logger.warn("No trips created. End of program.");
-            return;
-        }
+        final ModuleProfiler profiler = new ModuleProfiler(dataSet, Resources.instance.getBoolean(Properties.PROFILE_MODULES, false));
+        try {
+            logger.info("Running Module: Microscopic Trip Generation");
+            profiler.profile("TripGeneration", tripGeneration::run);
+            if (dataSet.getTrips().isEmpty()) {
+                logger.warn("No trips created. End of program.");
+                return;
+            }
 
 
-        logger.info("Running Module: Person to Trip Assignment");
-        personTripAssignment.run();
+            logger.info("Running Module: Person to Trip Assignment");
+            profiler.profile("PersonTripAssignment", personTripAssignment::run);
 
-        //new Telework(dataSet, Purpose.getAllPurposes(), 0.5).run();
+            //new Telework(dataSet, Purpose.getAllPurposes(), 0.5).run();
 
-        logger.info("Running Module: Travel Time Budget Calculation");
-        travelTimeBudget.run();
+            logger.info("Running Module: Travel Time Budget Calculation");
+            profiler.profile("TravelTimeBudget", travelTimeBudget::run);
 
-        logger.info("Running Module: Microscopic Trip Distribution");
-        distribution.run();
+            logger.info("Running Module: Microscopic Trip Distribution");
+            profiler.profile("TripDistribution", distribution::run);
 
-        logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
-        for (Purpose purpose : Purpose.getAllPurposes()){
-            ((ModeChoice) modeChoice).registerModeChoiceCalculator(purpose, new CalibratingModeChoiceCalculatorImpl(new ModeChoiceCalculatorImpl(), dataSet.getModeChoiceCalibrationData()));
-            logger.info("Registering mode choice calculators based on 2008 MiD survey");
-        }
-        modeChoice.run();
+            logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
+            for (Purpose purpose : Purpose.getAllPurposes()){
+                ((ModeChoice) modeChoice).registerModeChoiceCalculator(purpose, new CalibratingModeChoiceCalculatorImpl(new ModeChoiceCalculatorImpl(), dataSet.getModeChoiceCalibrationData()));
+                logger.info("Registering mode choice calculators based on 2008 MiD survey");
+            }
+            profiler.profile("ModeChoice", modeChoice::run);
 
-        logger.info("Running time of day choice");
-        timeOfDayChoice.run();
+            logger.info("Running time of day choice");
+            profiler.profile("TimeOfDayChoice", timeOfDayChoice::run);
 
-        logger.info("Running trip scaling");
-        tripScaling.run();
+            logger.info("Running trip scaling");
+            profiler.profile("TripScaling", tripScaling::run);
 
-        matsimPopulationGenerator.run();
+            profiler.profile("MatsimPopulationGenerator", matsimPopulationGenerator::run);
 
-        if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
-            longDistanceTraffic.run();
-        }
+            if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
+                profiler.profile("LongDistanceTraffic", longDistanceTraffic::run);
+            }
 
-        TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName);
-        SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName);
+            profiler.profile("TripGenerationWriter", () -> TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName));
+            profiler.profile("FinalSummary", () -> SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName));
 
-        if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
-            SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
-            SummarizeData.writeOutTrips(dataSet, scenarioName);
-        }
-        if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
-            //DistancePlots.writeDistanceDistributions(dataSet, scenarioName);
-            //ModeChoicePlots.writeModeChoice(dataSet, scenarioName);
-            SummarizeData.writeCharts(dataSet, scenarioName);
-        }
-        if (Resources.instance.getBoolean(Properties.WRITE_MATSIM_POPULATION, true)) {
-            //SummarizeData.writeMatsimPlans(dataSet, scenarioName);
+            if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
+                profiler.profile("MicroDataWriter", () -> {
+                    SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
+                    SummarizeData.writeOutTrips(dataSet, scenarioName);
+                });
+            }
+            if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
+                //DistancePlots.writeDistanceDistributions(dataSet, scenarioName);
+                //ModeChoicePlots.writeModeChoice(dataSet, scenarioName);
+                // do not let the charts of previous years pile up
+                dataSet.awaitChartRendering();
+                profiler.profile("ChartsPreparation", () -> dataSet.setChartRendering(SummaryCharts.prepare(dataSet,
+                        scenarioName, EnumSet.of(SummaryCharts.Chart.TRAVEL_TIMES_AND_DISTANCES_BY_ZONE)).renderInBackground()));
+            }
+            if (Resources.instance.getBoolean(Properties.WRITE_MATSIM_POPULATION, true)) {
+                //SummarizeData.writeMatsimPlans(dataSet, scenarioName);
+            }
+        } finally {
+            RunReportWriter.writeRunReport(dataSet, scenarioName, profiler);
         }
     }
 }
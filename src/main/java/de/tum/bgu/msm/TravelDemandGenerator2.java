@@ -19,8 +19,10 @@ import de.tum.bgu.msm.modules.tripGeneration.TripGeneration;
 import de.tum.bgu.msm.modules.tripGeneration.TripsByPurposeGeneratorFactoryPersonBasedHurdle;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.profiling.ModuleProfiler;
 import org.apache.log4j.Logger;
 
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -139,6 +141,7 @@ public final class TravelDemandGenerator2 {
             tripScaling = new TripScaling(dataSet, purposes);
             matsimPopulationGenerator = new MatsimPopulationGenerator(dataSet, purposes);
             if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
+                MatsimPopulationGenerator.checkPopulationInMemory("Adding external flows");
                 longDistanceTraffic = new LongDistanceTraffic(dataSet, Double.parseDouble(Resources.instance.getString(Properties.TRIP_SCALING_FACTOR)), purposes);
             }
         }
@@ -241,62 +244,69 @@ public final class TravelDemandGenerator2 {
 
     public void generateTravelDemand(String scenarioName) {
 
+        final ModuleProfiler profiler = new ModuleProfiler(dataSet, Resources.instance.getBoolean(Properties.PROFILE_MODULES, false));
+        try {
+            logger.info("Running Module: Microscopic Trip Generation");
+
+            profiler.profile("TripGenerationMandatory", tripGenerationMandatory::run);
+
+            //new Telework(dataSet, Purpose.getMandatoryPurposes(), 0.5).run();
+
+            //logger.info("Running Module: Person to Trip Assignment");
+            //personTripAssignmentMandatory.run();
+            logger.info("Running Module: Travel Time Budget Calculation");
+            profiler.profile("TravelTimeBudgetMandatory", travelTimeBudgetMandatory::run);
+            //((TravelTimeBudgetModule) travelTimeBudget).adjustDiscretionaryPurposeBudgets(Purpose.getMandatoryPurposes());
+            logger.info("Running Module: Microscopic Trip Distribution");
+            profiler.profile("TripDistributionMandatory", distributionMandatory::run);
+            logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
+            profiler.profile("ModeChoiceMandatory", modeChoiceMandatory::run);
+            logger.info("Running time of day choice");
+            profiler.profile("TimeOfDayChoiceMandatory", timeOfDayChoiceMandatory::run);
+
+            profiler.profile("TripGenerationDiscretionary", tripGenerationDiscretionary::run);
+            //logger.info("Running Module: Person to Trip Assignment");
+            //personTripAssignmentDiscretionary.run();
+            logger.info("Running Module: Travel Time Budget Calculation");
+            profiler.profile("TravelTimeBudgetDiscretionary", travelTimeBudgetDiscretionary::run);
+            ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
+            logger.info("Running Module: Microscopic Trip Distribution");
+            profiler.profile("TripDistributionDiscretionary", distributionDiscretionary::run);
+            logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
+            profiler.profile("ModeChoiceDiscretionary", modeChoiceDiscretionary::run);
+            logger.info("Running time of day choice");
+            profiler.profile("TimeOfDayChoiceDiscretionary", timeOfDayChoiceDiscretionary::run);
+
+
+            logger.info("Running trip scaling");
+            profiler.profile("TripScaling", tripScaling::run);
+
+            profiler.profile("MatsimPopulationGenerator", matsimPopulationGenerator::run);
 
-        logger.info("Running Module: Microscopic Trip Generation");
-
-        tripGenerationMandatory.run();
-
-        //new Telework(dataSet, Purpose.getMandatoryPurposes(), 0.5).run();
-
-        //logger.info("Running Module: Person to Trip Assignment");
-        //personTripAssignmentMandatory.run();
-        logger.info("Running Module: Travel Time Budget Calculation");
-        travelTimeBudgetMandatory.run();
-        //((TravelTimeBudgetModule) travelTimeBudget).adjustDiscretionaryPurposeBudgets(Purpose.getMandatoryPurposes());
-        logger.info("Running Module: Microscopic Trip Distribution");
-        distributionMandatory.run();
-        logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
-        modeChoiceMandatory.run();
-        logger.info("Running time of day choice");
-        timeOfDayChoiceMandatory.run();
-
-        tripGenerationDiscretionary.run();
-        //logger.info("Running Module: Person to Trip Assignment");
-        //personTripAssignmentDiscretionary.run();
-        logger.info("Running Module: Travel Time Budget Calculation");
-        travelTimeBudgetDiscretionary.run();
-        ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
-        logger.info("Running Module: Microscopic Trip Distribution");
-        distributionDiscretionary.run();
-        logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
-        modeChoiceDiscretionary.run();
-        logger.info("Running time of day choice");
-        timeOfDayChoiceDiscretionary.run();
-
-
-        logger.info("Running trip scaling");
-        tripScaling.run();
-
-        matsimPopulationGenerator.run();
-
-        if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
-            longDistanceTraffic.run();
-        }
+            if (Resources.instance.getBoolean(Properties.ADD_EXTERNAL_FLOWS, false)) {
+                profiler.profile("LongDistanceTraffic", longDistanceTraffic::run);
+            }
 
-        TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName);
-        SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName);
+            profiler.profile("TripGenerationWriter", () -> TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName));
+            profiler.profile("FinalSummary", () -> SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName));
 
-        if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
-            SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
-            SummarizeData.writeOutTrips(dataSet, scenarioName);
-        }
-        if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
-            DistancePlots.writeDistanceDistributions(dataSet, scenarioName);
-            ModeChoicePlots.writeModeChoice(dataSet, scenarioName);
-            SummarizeData.writeCharts(dataSet, scenarioName);
-        }
-        if (Resources.instance.getBoolean(Properties.WRITE_MATSIM_POPULATION, true)) {
-            //SummarizeData.writeMatsimPlans(dataSet, scenarioName);
+            if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
+                profiler.profile("MicroDataWriter", () -> {
+                    SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
+                    SummarizeData.writeOutTrips(dataSet, scenarioName);
+                });
+            }
+            if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
+                // do not let the charts of previous years pile up
+                dataSet.awaitChartRendering();
+                profiler.profile("ChartsPreparation", () -> dataSet.setChartRendering(SummaryCharts.prepare(dataSet,
+                        scenarioName, EnumSet.allOf(SummaryCharts.Chart.class)).renderInBackground()));
+            }
+            if (Resources.instance.getBoolean(Properties.WRITE_MATSIM_POPULATION, true)) {
+                //SummarizeData.writeMatsimPlans(dataSet, scenarioName);
+            }
+        } finally {
+            RunReportWriter.writeRunReport(dataSet, scenarioName, profiler);
         }
     }
 }
@@ -2,8 +2,10 @@ package de.tum.bgu.msm;
 
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.output.RunReportWriter;
 import de.tum.bgu.msm.io.output.SummarizeData;
 import de.tum.bgu.msm.io.output.SummarizeDataToVisualize;
+import de.tum.bgu.msm.io.output.SummaryCharts;
 import de.tum.bgu.msm.io.output.TripGenerationWriter;
 import de.tum.bgu.msm.modules.Module;
 import de.tum.bgu.msm.modules.modeChoice.ModeChoice;
@@ -21,9 +23,10 @@ import de.tum.bgu.msm.modules.tripGeneration.TripGeneration;
 import de.tum.bgu.msm.modules.tripGeneration.TripsByPurposeGeneratorFactoryPersonBasedHurdle;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.profiling.ModuleProfiler;
 import org.apache.log4j.Logger;
-import org.matsim.core.population.PopulationUtils;
 
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -243,47 +246,57 @@ public final class TravelDemandGeneratorGermany {
 
     public void generateTravelDemand(String scenarioName) {
 
-        logger.info("Running Module: Microscopic Trip Generation");
-
-        tripGenerationMandatory.run();
-        logger.info("Running Module: Travel Time Budget Calculation");
-        travelTimeBudgetMandatory.run();
-        logger.info("Running Module: Microscopic Trip Distribution");
-        distributionMandatory.run();
-        logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
-        modeChoiceMandatory.run();
-        logger.info("Running time of day choice");
-        timeOfDayChoiceMandatory.run();
-
-        tripGenerationDiscretionary.run();
-        logger.info("Running Module: Travel Time Budget Calculation");
-        travelTimeBudgetDiscretionary.run();
-        ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
-        logger.info("Running Module: Microscopic Trip Distribution");
-        distributionDiscretionary.run();
-        logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
-        modeChoiceDiscretionary.run();
-        logger.info("Running time of day choice");
-        timeOfDayChoiceDiscretionary.run();
-
-
-        logger.info("Running trip scaling");
-        tripScaling.run();
-
-        matsimPopulationGenerator.run();
-
-        TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName);
-        SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName);
-
-        if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
-            SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
-            SummarizeData.writeOutTrips(dataSet, scenarioName);
+        final ModuleProfiler profiler = new ModuleProfiler(dataSet, Resources.instance.getBoolean(Properties.PROFILE_MODULES, false));
+        try {
+            logger.info("Running Module: Microscopic Trip Generation");
+
+            profiler.profile("TripGenerationMandatory", tripGenerationMandatory::run);
+            logger.info("Running Module: Travel Time Budget Calculation");
+            profiler.profile("TravelTimeBudgetMandatory", travelTimeBudgetMandatory::run);
+            logger.info("Running Module: Microscopic Trip Distribution");
+            profiler.profile("TripDistributionMandatory", distributionMandatory::run);
+            logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
+            profiler.profile("ModeChoiceMandatory", modeChoiceMandatory::run);
+            logger.info("Running time of day choice");
+            profiler.profile("TimeOfDayChoiceMandatory", timeOfDayChoiceMandatory::run);
+
+            profiler.profile("TripGenerationDiscretionary", tripGenerationDiscretionary::run);
+            logger.info("Running Module: Travel Time Budget Calculation");
+            profiler.profile("TravelTimeBudgetDiscretionary", travelTimeBudgetDiscretionary::run);
+            ((TravelTimeBudgetModule) travelTimeBudgetDiscretionary).adjustDiscretionaryPurposeBudgets();
+            logger.info("Running Module: Microscopic Trip Distribution");
+            profiler.profile("TripDistributionDiscretionary", distributionDiscretionary::run);
+            logger.info("Running Module: Trip to Mode Assignment (Mode Choice)");
+            profiler.profile("ModeChoiceDiscretionary", modeChoiceDiscretionary::run);
+            logger.info("Running time of day choice");
+            profiler.profile("TimeOfDayChoiceDiscretionary", timeOfDayChoiceDiscretionary::run);
+
+
+            logger.info("Running trip scaling");
+            profiler.profile("TripScaling", tripScaling::run);
+
+            profiler.profile("MatsimPopulationGenerator", matsimPopulationGenerator::run);
+
+            profiler.profile("TripGenerationWriter", () -> TripGenerationWriter.writeTripsByPurposeAndZone(dataSet, scenarioName));
+            profiler.profile("FinalSummary", () -> SummarizeDataToVisualize.writeFinalSummary(dataSet, scenarioName));
+
+            if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA, true)) {
+                profiler.profile("MicroDataWriter", () -> {
+                    SummarizeData.writeOutSyntheticPopulationWithTrips(dataSet);
+                    SummarizeData.writeOutTrips(dataSet, scenarioName);
+                });
+            }
+            if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
+                // do not let the charts of previous years pile up
+                dataSet.awaitChartRendering();
+                profiler.profile("ChartsPreparation", () -> dataSet.setChartRendering(SummaryCharts.prepare(dataSet,
+                        scenarioName, EnumSet.of(SummaryCharts.Chart.TRAVEL_TIMES_AND_DISTANCES_BY_ZONE)).renderInBackground()));
+            }
+
+            String populationFile = Resources.instance.getBaseDirectory().toString() + "/" + "scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/plans_sd.xml.gz";
+            profiler.profile("MatsimPlansWriter", () -> SummarizeData.writeMatsimPlansToFile(dataSet, populationFile));
+        } finally {
+            RunReportWriter.writeRunReport(dataSet, scenarioName, profiler);
         }
-        if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
-            SummarizeData.writeCharts(dataSet, scenarioName);
-        }
-
-        String populationFile = Resources.instance.getBaseDirectory().toString() + "/" + "scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/plans_sd.xml.gz";
-        PopulationUtils.writePopulation(dataSet.getPopulation(), populationFile);
     }
 }
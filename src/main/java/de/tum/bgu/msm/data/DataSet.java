@@ -6,9 +6,13 @@ import com.google.common.collect.Table;
 import de.tum.bgu.msm.data.travelDistances.TravelDistances;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.modules.modeChoice.ModeChoiceCalibrationData;
+import de.tum.bgu.msm.util.AliasSampler;
+import de.tum.bgu.msm.util.collections.LinkedIntObjectMap;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
 import org.matsim.api.core.v01.population.Population;
 
 import java.util.*;
+import java.util.concurrent.Future;
 
 public class DataSet {
 
@@ -19,14 +23,22 @@ public class DataSet {
 
     private double peakHour = Double.NaN;
 
-    private final Map<Integer, MitoZone> zones= new LinkedHashMap<>();
-    private final Map<Integer, MitoHousehold> households = new LinkedHashMap<>();
-    private final Map<Integer, MitoPerson> persons = new LinkedHashMap<>();
-    private final Map<Integer, MitoSchool> schools = new LinkedHashMap<>();
-    private final Map<Integer, MitoJob> jobs = new LinkedHashMap<>();
+    private final LinkedIntObjectMap<MitoZone> zones = new LinkedIntObjectMap<>();
+    private final LinkedIntObjectMap<MitoHousehold> households = new LinkedIntObjectMap<>();
+    private final LinkedIntObjectMap<MitoPerson> persons = new LinkedIntObjectMap<>();
+    private final LinkedIntObjectMap<MitoSchool> schools = new LinkedIntObjectMap<>();
+    private final LinkedIntObjectMap<MitoJob> jobs = new LinkedIntObjectMap<>();
 
-    private final Map<Integer, MitoTrip> trips = new LinkedHashMap<>();
-    private final Map<Integer, MitoTrip> tripSubsample = new LinkedHashMap<>();
+    private final LinkedIntObjectMap<MitoTrip> trips = new LinkedIntObjectMap<>();
+    private final LinkedIntObjectMap<MitoTrip> tripSubsample = new LinkedIntObjectMap<>();
+
+    private final Map<Integer, MitoZone> zonesView = Collections.unmodifiableMap(zones);
+    private final Map<Integer, MitoHousehold> householdsView = Collections.unmodifiableMap(households);
+    private final Map<Integer, MitoPerson> personsView = Collections.unmodifiableMap(persons);
+    private final Map<Integer, MitoSchool> schoolsView = Collections.unmodifiableMap(schools);
+    private final Map<Integer, MitoJob> jobsView = Collections.unmodifiableMap(jobs);
+    private final Map<Integer, MitoTrip> tripsView = Collections.unmodifiableMap(trips);
+    private final Map<Integer, MitoTrip> tripSubsampleView = Collections.unmodifiableMap(tripSubsample);
 
 
     private final Table<Purpose, Mode, Double> modeSharesByPurpose
@@ -39,7 +51,13 @@ public class DataSet {
     private EnumMap<Purpose, DoubleMatrix1D> durationMinuteCumProbByPurpose;
     private EnumMap<Purpose, DoubleMatrix1D> departureMinuteCumProbByPurpose;
 
+    private EnumMap<Purpose, AliasSampler> arrivalMinuteSamplerByPurpose;
+    private EnumMap<Purpose, AliasSampler> durationMinuteSamplerByPurpose;
+    private EnumMap<Purpose, AliasSampler> departureMinuteSamplerByPurpose;
+
     private Population population;
+    private SharedExecutor executor;
+    private Future<?> chartRendering;
     private final ModeChoiceCalibrationData modeChoiceCalibrationData = new ModeChoiceCalibrationData();
 
     public TravelDistances getTravelDistancesAuto(){return this.travelDistancesAuto;}
@@ -59,31 +77,31 @@ public class DataSet {
     }
 
     public Map<Integer, MitoPerson> getPersons() {
-        return Collections.unmodifiableMap(persons);
+        return personsView;
     }
 
     public Map<Integer, MitoZone> getZones() {
-        return Collections.unmodifiableMap(zones);
+        return zonesView;
     }
 
     public Map<Integer, MitoHousehold> getHouseholds() {
-        return Collections.unmodifiableMap(households);
+        return householdsView;
     }
 
     public Map<Integer, MitoSchool> getSchools() {
-        return Collections.unmodifiableMap(schools);
+        return schoolsView;
     }
 
     public Map<Integer, MitoJob> getJobs() {
-        return Collections.unmodifiableMap(jobs);
+        return jobsView;
     }
 
     public Map<Integer, MitoTrip> getTrips() {
-        return Collections.unmodifiableMap(trips);
+        return tripsView;
     }
 
     public Map<Integer, MitoTrip> getTripSubsample() {
-        return Collections.unmodifiableMap(tripSubsample);
+        return tripSubsampleView;
     }
 
     public void addTrip(final MitoTrip trip) {
@@ -94,6 +112,7 @@ public class DataSet {
     }
 
     public void addTrips(final Collection<MitoTrip> addedTrips) {
+        trips.ensureCapacity(trips.size() + addedTrips.size());
         for(MitoTrip trip: addedTrips) {
             addTrip(trip);
         }
@@ -154,40 +173,31 @@ public class DataSet {
     }
 
     public static int getFemalesForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getMitoGender().equals(MitoGender.FEMALE)).count();
+        return household.getNumberOfFemales();
     }
 
     public static int getChildrenForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getAge() < 18).count();
+        return household.getNumberOfChildren();
     }
 
     public static int getYoungAdultsForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getAge() >= 18 && person.getAge() <= 25).count();
-
+        return household.getNumberOfYoungAdults();
     }
 
     public static int getRetireesForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getAge() > 65).count();
+        return household.getNumberOfRetirees();
     }
 
     public static int getNumberOfWorkersForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getMitoOccupationStatus() == MitoOccupationStatus.WORKER).count();
-
+        return household.getNumberOfWorkers();
     }
 
     public static int getStudentsForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(person ->
-                person.getMitoOccupationStatus() == MitoOccupationStatus.STUDENT).count();
-
+        return household.getNumberOfStudents();
     }
 
     public static int getLicenseHoldersForHousehold(MitoHousehold household) {
-        return (int) household.getPersons().values().stream().filter(MitoPerson::hasDriversLicense).count();
+        return household.getNumberOfLicenseHolders();
     }
 
     public void addModeShareForPurpose(Purpose purpose, Mode mode, Double share){
@@ -212,6 +222,7 @@ public class DataSet {
 
     public void setArrivalMinuteCumProbByPurpose(EnumMap<Purpose, DoubleMatrix1D> arrivalMinuteCumProbByPurpose) {
         this.arrivalMinuteCumProbByPurpose = arrivalMinuteCumProbByPurpose;
+        this.arrivalMinuteSamplerByPurpose = createMinuteSamplers(arrivalMinuteCumProbByPurpose);
     }
 
     public EnumMap<Purpose, DoubleMatrix1D> getDurationMinuteCumProbByPurpose() {
@@ -220,6 +231,7 @@ public class DataSet {
 
     public void setDurationMinuteCumProbByPurpose(EnumMap<Purpose, DoubleMatrix1D> durationMinuteCumProbByPurpose) {
         this.durationMinuteCumProbByPurpose = durationMinuteCumProbByPurpose;
+        this.durationMinuteSamplerByPurpose = createMinuteSamplers(durationMinuteCumProbByPurpose);
     }
 
     public EnumMap<Purpose, DoubleMatrix1D> getDepartureMinuteCumProbByPurpose() {
@@ -228,6 +240,32 @@ public class DataSet {
 
     public void setDepartureMinuteCumProbByPurpose(EnumMap<Purpose, DoubleMatrix1D> departureMinuteCumProbByPurpose) {
         this.departureMinuteCumProbByPurpose = departureMinuteCumProbByPurpose;
+        this.departureMinuteSamplerByPurpose = createMinuteSamplers(departureMinuteCumProbByPurpose);
+    }
+
+    /**
+     * Samplers over the minute of day, built once when the arrival time distributions are set.
+     * Drawing does not copy the distribution and takes constant time.
+     */
+    public EnumMap<Purpose, AliasSampler> getArrivalMinuteSamplerByPurpose() {
+        return arrivalMinuteSamplerByPurpose;
+    }
+
+    public EnumMap<Purpose, AliasSampler> getDurationMinuteSamplerByPurpose() {
+        return durationMinuteSamplerByPurpose;
+    }
+
+    public EnumMap<Purpose, AliasSampler> getDepartureMinuteSamplerByPurpose() {
+        return departureMinuteSamplerByPurpose;
+    }
+
+    private static EnumMap<Purpose, AliasSampler> createMinuteSamplers(EnumMap<Purpose, DoubleMatrix1D> distributions) {
+        if (distributions == null) {
+            return null;
+        }
+        EnumMap<Purpose, AliasSampler> samplers = new EnumMap<>(Purpose.class);
+        distributions.forEach((purpose, distribution) -> samplers.put(purpose, new AliasSampler(distribution.toArray())));
+        return samplers;
     }
 
     public void setPopulation(Population population) {
@@ -238,6 +276,43 @@ public class DataSet {
         return population;
     }
 
+    /**
+     * Returns the executor shared by all modules working on this data set. It is created on first use with the
+     * number of threads defined in the properties and reused for all following runs, e.g. in subsequent years.
+     */
+    public synchronized SharedExecutor getExecutor() {
+        if (executor == null) {
+            executor = SharedExecutor.fromResources();
+        }
+        return executor;
+    }
+
+    public synchronized void setExecutor(SharedExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Keeps the future of the summary charts of the current run that are rendered in the background
+     */
+    public synchronized void setChartRendering(Future<?> chartRendering) {
+        this.chartRendering = chartRendering;
+    }
+
+    /**
+     * Waits until the summary charts of the last run of this data set are written. Called before the charts of the
+     * next year are rendered and when the model is shut down, as the rendering threads do not keep the JVM alive.
+     */
+    public void awaitChartRendering() {
+        final Future<?> future;
+        synchronized (this) {
+            future = chartRendering;
+            chartRendering = null;
+        }
+        if (future != null) {
+            SharedExecutor.await(future);
+        }
+    }
+
     public ModeChoiceCalibrationData getModeChoiceCalibrationData() {
         return modeChoiceCalibrationData;
     }
@@ -0,0 +1,42 @@
+package de.tum.bgu.msm.data;
+
+/**
+ * Immutable, clamped household attributes used for the household type lookup in trip generation. The key is the
+ * same for all purposes and is therefore cached on the {@link MitoHousehold}.
+ */
+public final class HouseholdTypeKey {
+
+    private final int size;
+    private final int workers;
+    private final int economicStatus;
+    private final int autos;
+    private final int region;
+
+    public HouseholdTypeKey(int size, int workers, int economicStatus, int autos, int region) {
+        this.size = size;
+        this.workers = workers;
+        this.economicStatus = economicStatus;
+        this.autos = autos;
+        this.region = region;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getEconomicStatus() {
+        return economicStatus;
+    }
+
+    public int getAutos() {
+        return autos;
+    }
+
+    public int getRegion() {
+        return region;
+    }
+}
@@ -28,6 +28,9 @@ public class MitoHousehold implements Id, MicroLocation {
 
     private final Map<Integer, MitoPerson> persons  = new HashMap<>();
 
+    private volatile HouseholdTypeKey householdTypeKey;
+    private volatile PersonSummary personSummary;
+
     public MitoHousehold(int id, int monthlyIncome_EUR, int autos) {
         this.hhId = id;
         this.monthlyIncome_EUR = monthlyIncome_EUR;
@@ -57,6 +60,7 @@ public class MitoHousehold implements Id, MicroLocation {
 
     public void setHomeZone(MitoZone homeZone) {
         this.homeZone = homeZone;
+        this.householdTypeKey = null;
     }
 
     public MitoZone getHomeZone() {
@@ -77,6 +81,53 @@ public class MitoHousehold implements Id, MicroLocation {
             }
         }
         this.persons.put(person.getId(), person);
+        this.householdTypeKey = null;
+        this.personSummary = null;
+    }
+
+    public int getNumberOfFemales() {
+        return getPersonSummary().females;
+    }
+
+    public int getNumberOfChildren() {
+        return getPersonSummary().children;
+    }
+
+    public int getNumberOfYoungAdults() {
+        return getPersonSummary().youngAdults;
+    }
+
+    public int getNumberOfRetirees() {
+        return getPersonSummary().retirees;
+    }
+
+    public int getNumberOfWorkers() {
+        return getPersonSummary().workers;
+    }
+
+    public int getNumberOfStudents() {
+        return getPersonSummary().students;
+    }
+
+    public int getNumberOfLicenseHolders() {
+        return getPersonSummary().licenseHolders;
+    }
+
+    public int getNumberOfPersonsAged15OrOlder() {
+        return getPersonSummary().aged15OrOlder;
+    }
+
+    /**
+     * The summary is computed on first access after the population has been read and dropped again whenever
+     * a person is added, so that the counters above are plain field reads.
+     */
+    private PersonSummary getPersonSummary() {
+        PersonSummary summary = personSummary;
+        if (summary == null) {
+            summary = new PersonSummary(persons.values());
+            personSummary = summary;
+        }
+        return summary;
     }
 
     public synchronized void setTripsByPurpose(List<MitoTrip> trips, Purpose purpose) {
@@ -99,12 +150,25 @@ public class MitoHousehold implements Id, MicroLocation {
         return travelTimeBudgetByPurpose.get(purpose) == null ? 0. : travelTimeBudgetByPurpose.get(purpose) ;
     }
 
+    /**
+     * @return the cached key for the household type lookup in trip generation or null if it has not been derived
+     * yet or the household changed since
+     */
+    public HouseholdTypeKey getHouseholdTypeKey() {
+        return householdTypeKey;
+    }
+
+    public void setHouseholdTypeKey(HouseholdTypeKey householdTypeKey) {
+        this.householdTypeKey = householdTypeKey;
+    }
+
     public int getEconomicStatus() {
         return economicStatus;
     }
 
     public void setEconomicStatus(int economicStatus) {
         this.economicStatus = economicStatus;
+        this.householdTypeKey = null;
     }
 
     public Coordinate getHomeLocation() {
@@ -138,4 +202,43 @@ public class MitoHousehold implements Id, MicroLocation {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private static final class PersonSummary {
+
+        private int females;
+        private int children;
+        private int youngAdults;
+        private int retirees;
+        private int workers;
+        private int students;
+        private int licenseHolders;
+        private int aged15OrOlder;
+
+        private PersonSummary(Collection<MitoPerson> persons) {
+            for (MitoPerson person : persons) {
+                final int age = person.getAge();
+                if (person.getMitoGender() == MitoGender.FEMALE) {
+                    females++;
+                }
+                if (age < 18) {
+                    children++;
+                } else if (age <= 25) {
+                    youngAdults++;
+                } else if (age > 65) {
+                    retirees++;
+                }
+                if (age >= 15) {
+                    aged15OrOlder++;
+                }
+                if (person.getMitoOccupationStatus() == MitoOccupationStatus.WORKER) {
+                    workers++;
+                } else if (person.getMitoOccupationStatus() == MitoOccupationStatus.STUDENT) {
+                    students++;
+                }
+                if (person.hasDriversLicense()) {
+                    licenseHolders++;
+                }
+            }
+        }
+    }
+}
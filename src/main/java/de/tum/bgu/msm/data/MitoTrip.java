@@ -103,9 +103,7 @@ public class MitoTrip implements Id {
     }
 
     public boolean isHomeBased() {
-        return !this.getTripPurpose().equals(Purpose.NHBW) &&
-                !this.getTripPurpose().equals(Purpose.NHBO) &&
-                !this.getTripPurpose().equals(Purpose.AIRPORT);
+        return this.getTripPurpose().isHomeBased();
     }
 
     @Override
@@ -39,6 +39,11 @@ public class MitoZone implements Id, Location {
     private float distanceToNearestRailStop;
     private Geometry geometry;
 
+    /**
+     * Pre-sampled interior points as x0, y0, x1, y1, ...
+     */
+    private double[] randomCoordinatePool;
+
 
     public MitoZone(int id, AreaTypes.SGType areaType) {
         this.zoneId = id;
@@ -141,6 +146,21 @@ public class MitoZone implements Id, Location {
         return sum;
     }
 
+    /**
+     * Counts the employees of all categories in a single pass over the job types.
+     * @return number of employees indexed by {@link Category#ordinal()}
+     */
+    public int[] getEmployeesPerCategory() {
+        final int[] employees = new int[Category.values().length];
+        for (Multiset.Entry<JobType> entry : employeesByType.entrySet()) {
+            final Category category = entry.getElement().getCategory();
+            if (category != null) {
+                employees[category.ordinal()] += entry.getCount();
+            }
+        }
+        return employees;
+    }
+
     @Override
     public String toString() {
         return "[MitoZone " + zoneId + "]";
@@ -158,7 +178,26 @@ public class MitoZone implements Id, Location {
         this.ags = ags;
     }
 
+    /**
+     * Sets a pool of pre-sampled points within the zone from which {@link #getRandomCoord(Random)} draws
+     * @param pool coordinates as x0, y0, x1, y1, ... or null to sample from the geometry on every call
+     */
+    public void setRandomCoordinatePool(double[] pool) {
+        if (pool != null && (pool.length == 0 || pool.length % 2 != 0)) {
+            throw new IllegalArgumentException("Invalid random coordinate pool for zone " + zoneId);
+        }
+        this.randomCoordinatePool = pool;
+    }
+
+    public boolean hasRandomCoordinatePool() {
+        return randomCoordinatePool != null;
+    }
+
     public Coordinate getRandomCoord(Random random) {
+        if (randomCoordinatePool != null) {
+            final int index = 2 * random.nextInt(randomCoordinatePool.length / 2);
+            return new Coordinate(randomCoordinatePool[index], randomCoordinatePool[index + 1]);
+        }
         SeededRandomPointsBuilder randomPointsBuilder = new SeededRandomPointsBuilder(new GeometryFactory(), random);
         randomPointsBuilder.setNumPoints(1);
         randomPointsBuilder.setExtent(geometry);
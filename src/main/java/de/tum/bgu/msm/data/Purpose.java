@@ -33,6 +33,15 @@ public enum Purpose implements Id {
         return this.tripAttractionByVariable.get(variable);
     }
 
+    /**
+     * Whether trips of this purpose start at home and therefore get a return trip in the MATSim plans. Airport trips
+     * are not home based although they start or end at home: they are modelled as single trips to or from the airport.
+     * All writers of MATSim plans use this rule.
+     */
+    public boolean isHomeBased() {
+        return this != NHBW && this != NHBO && this != AIRPORT;
+    }
+
     public static List<Purpose> getMandatoryPurposes(){
         List<Purpose> list = new ArrayList<>();
         list.add(HBW);
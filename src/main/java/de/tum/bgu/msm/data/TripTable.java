@@ -0,0 +1,214 @@
+package de.tum.bgu.msm.data;
+
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Columnar (structure-of-arrays) representation of trips. Every attribute is kept in a primitive array
+ * indexed by row, which allows modules and writers to iterate column-wise over millions of trips without
+ * touching the {@link MitoTrip} object graph. Missing values are stored as {@link #NO_VALUE} for int columns
+ * and as {@link Double#NaN} for coordinates.
+ */
+public class TripTable {
+
+    public static final int NO_VALUE = -1;
+
+    private static final Purpose[] PURPOSES = Purpose.values();
+    private static final Mode[] MODES = Mode.values();
+
+    private final boolean withCoordinates;
+    private int size = 0;
+
+    private int[] ids;
+    private int[] purposes;
+    private int[] persons;
+    private int[] originZones;
+    private int[] destinationZones;
+    private int[] modes;
+    private int[] departures;
+    private int[] returnDepartures;
+
+    private double[] originX;
+    private double[] originY;
+    private double[] destinationX;
+    private double[] destinationY;
+
+    /**
+     * @param expectedSize initial capacity, the table grows if more trips are added
+     * @param withCoordinates whether micro-location coordinates of origins and destinations should be stored
+     */
+    public TripTable(int expectedSize, boolean withCoordinates) {
+        final int capacity = Math.max(expectedSize, 16);
+        this.withCoordinates = withCoordinates;
+        ids = new int[capacity];
+        purposes = new int[capacity];
+        persons = new int[capacity];
+        originZones = new int[capacity];
+        destinationZones = new int[capacity];
+        modes = new int[capacity];
+        departures = new int[capacity];
+        returnDepartures = new int[capacity];
+        if (withCoordinates) {
+            originX = new double[capacity];
+            originY = new double[capacity];
+            destinationX = new double[capacity];
+            destinationY = new double[capacity];
+        }
+    }
+
+    /**
+     * Creates a columnar snapshot of the given trips, preserving their iteration order.
+     */
+    public static TripTable fromTrips(Collection<MitoTrip> trips, boolean withCoordinates) {
+        TripTable table = new TripTable(trips.size(), withCoordinates);
+        for (MitoTrip trip : trips) {
+            table.add(trip);
+        }
+        return table;
+    }
+
+    /**
+     * Appends the current state of the trip and returns its row index.
+     */
+    public int add(MitoTrip trip) {
+        ensureCapacity(size + 1);
+        final int row = size++;
+        ids[row] = trip.getId();
+        purposes[row] = trip.getTripPurpose() == null ? NO_VALUE : trip.getTripPurpose().ordinal();
+        persons[row] = trip.getPerson() == null ? NO_VALUE : trip.getPerson().getId();
+        originZones[row] = trip.getTripOrigin() == null ? NO_VALUE : trip.getTripOrigin().getZoneId();
+        destinationZones[row] = trip.getTripDestination() == null ? NO_VALUE : trip.getTripDestination().getZoneId();
+        modes[row] = trip.getTripMode() == null ? NO_VALUE : trip.getTripMode().ordinal();
+        departures[row] = trip.getDepartureInMinutes();
+        returnDepartures[row] = trip.getDepartureInMinutesReturnTrip();
+        if (withCoordinates) {
+            setCoordinate(originX, originY, row, trip.getTripOrigin());
+            setCoordinate(destinationX, destinationY, row, trip.getTripDestination());
+        }
+        return row;
+    }
+
+    private static void setCoordinate(double[] x, double[] y, int row, Location location) {
+        if (location instanceof MicroLocation && ((MicroLocation) location).getCoordinate() != null) {
+            final Coordinate coordinate = ((MicroLocation) location).getCoordinate();
+            x[row] = coordinate.x;
+            y[row] = coordinate.y;
+        } else {
+            x[row] = Double.NaN;
+            y[row] = Double.NaN;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        purposes = Arrays.copyOf(purposes, newCapacity);
+        persons = Arrays.copyOf(persons, newCapacity);
+        originZones = Arrays.copyOf(originZones, newCapacity);
+        destinationZones = Arrays.copyOf(destinationZones, newCapacity);
+        modes = Arrays.copyOf(modes, newCapacity);
+        departures = Arrays.copyOf(departures, newCapacity);
+        returnDepartures = Arrays.copyOf(returnDepartures, newCapacity);
+        if (withCoordinates) {
+            originX = Arrays.copyOf(originX, newCapacity);
+            originY = Arrays.copyOf(originY, newCapacity);
+            destinationX = Arrays.copyOf(destinationX, newCapacity);
+            destinationY = Arrays.copyOf(destinationY, newCapacity);
+        }
+    }
+
+    /**
+     * Releases unused capacity once all trips have been added.
+     */
+    public void trimToSize() {
+        if (size == ids.length) {
+            return;
+        }
+        ids = Arrays.copyOf(ids, size);
+        purposes = Arrays.copyOf(purposes, size);
+        persons = Arrays.copyOf(persons, size);
+        originZones = Arrays.copyOf(originZones, size);
+        destinationZones = Arrays.copyOf(destinationZones, size);
+        modes = Arrays.copyOf(modes, size);
+        departures = Arrays.copyOf(departures, size);
+        returnDepartures = Arrays.copyOf(returnDepartures, size);
+        if (withCoordinates) {
+            originX = Arrays.copyOf(originX, size);
+            originY = Arrays.copyOf(originY, size);
+            destinationX = Arrays.copyOf(destinationX, size);
+            destinationY = Arrays.copyOf(destinationY, size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasCoordinates() {
+        return withCoordinates;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public int getPurposeOrdinal(int row) {
+        return purposes[row];
+    }
+
+    public Purpose getPurpose(int row) {
+        return purposes[row] == NO_VALUE ? null : PURPOSES[purposes[row]];
+    }
+
+    public int getPersonId(int row) {
+        return persons[row];
+    }
+
+    public int getOriginZone(int row) {
+        return originZones[row];
+    }
+
+    public int getDestinationZone(int row) {
+        return destinationZones[row];
+    }
+
+    public int getModeOrdinal(int row) {
+        return modes[row];
+    }
+
+    public Mode getMode(int row) {
+        return modes[row] == NO_VALUE ? null : MODES[modes[row]];
+    }
+
+    public int getDepartureInMinutes(int row) {
+        return departures[row];
+    }
+
+    /**
+     * @return the departure of the return trip or {@link #NO_VALUE} if there is none
+     */
+    public int getDepartureInMinutesReturnTrip(int row) {
+        return returnDepartures[row];
+    }
+
+    public double getOriginX(int row) {
+        return withCoordinates ? originX[row] : Double.NaN;
+    }
+
+    public double getOriginY(int row) {
+        return withCoordinates ? originY[row] : Double.NaN;
+    }
+
+    public double getDestinationX(int row) {
+        return withCoordinates ? destinationX[row] : Double.NaN;
+    }
+
+    public double getDestinationY(int row) {
+        return withCoordinates ? destinationY[row] : Double.NaN;
+    }
+}
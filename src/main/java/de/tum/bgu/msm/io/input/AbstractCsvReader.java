@@ -10,26 +10,45 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
+ * Reads delimited text files line by line and hands the fields as strings to {@link #processRecord(String[])}.
+ * Files with a single character delimiter are split on byte level, all other delimiters are applied as regex
+ * like {@link String#split(String)}. Readers for large files should extend {@link AbstractCsvRecordReader} instead.
  * @author Nico
  */
-public abstract class AbstractCsvReader extends AbstractInputReader{
+public abstract class AbstractCsvReader extends AbstractCsvRecordReader {
 
     private static final Logger logger = Logger.getLogger(AbstractCsvReader.class);
 
-    private BufferedReader reader;
-
-    private int numberOfRecords = 0;
-
     protected AbstractCsvReader(DataSet dataSet) {
         super(dataSet);
     }
 
-    protected abstract void processHeader(String[] header);
-
     protected abstract void processRecord(String[] record);
 
+    @Override
+    protected final void processRecord(CsvRecord record) {
+        processRecord(record.toStringArray());
+    }
+
+    @Override
     public void read(Path filePath, String delimiter) {
-        initializeReader(filePath, delimiter);
+        if (isRecordDelimiter(delimiter)) {
+            super.read(filePath, delimiter);
+        } else {
+            readLines(filePath, delimiter);
+        }
+    }
+
+    private void readLines(Path filePath, String delimiter) {
+        final BufferedReader reader;
+        try {
+            reader = Files.newBufferedReader(filePath,  StandardCharsets.ISO_8859_1);
+            processHeader(reader.readLine().split(delimiter));
+        } catch (IOException e) {
+            logger.error("Error initializing csv reader: " + e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+        int numberOfRecords = 0;
         try {
             String record;
             while ((record = reader.readLine()) != null) {
@@ -47,17 +66,4 @@ public abstract class AbstractCsvReader extends AbstractInputReader{
         }
         logger.info(this.getClass().getSimpleName() + ": Read " + numberOfRecords + " records.");
     }
-
-    private void initializeReader(Path filePath, String delimiter) {
-        try {
-
-            reader = Files.newBufferedReader(filePath,  StandardCharsets.ISO_8859_1);
-            processHeader(reader.readLine().split(delimiter));
-        } catch (IOException e) {
-            logger.error("Error initializing csv reader: " + e.getMessage(), e);
-        }
-    }
 }
-
-
-
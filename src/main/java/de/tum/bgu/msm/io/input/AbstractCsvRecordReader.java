@@ -0,0 +1,72 @@
+package de.tum.bgu.msm.io.input;
+
+import de.tum.bgu.msm.data.DataSet;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads csv files with a single character delimiter on byte level. Every line is handed to
+ * {@link #processRecord(CsvRecord)} as a reused {@link CsvRecord}, so that readers of large files can parse the
+ * fields without creating strings. Readers that want the fields as strings extend {@link AbstractCsvReader}.
+ */
+public abstract class AbstractCsvRecordReader extends AbstractInputReader {
+
+    private static final Logger logger = Logger.getLogger(AbstractCsvRecordReader.class);
+
+    private static final String REGEX_META_CHARACTERS = ".$|()[{^?*+\\";
+
+    protected AbstractCsvRecordReader(DataSet dataSet) {
+        super(dataSet);
+    }
+
+    protected abstract void processHeader(String[] header);
+
+    /**
+     * Processes one line. The record is only valid during this call.
+     */
+    protected abstract void processRecord(CsvRecord record);
+
+    /**
+     * @param delimiter a single ASCII character that is not a regex meta character
+     */
+    public void read(Path filePath, String delimiter) {
+        if (!isRecordDelimiter(delimiter)) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName()
+                    + " requires a single character delimiter but got \"" + delimiter + "\".");
+        }
+        final InputStream in;
+        try {
+            in = Files.newInputStream(filePath);
+        } catch (IOException e) {
+            logger.error("Error initializing csv reader: " + e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+        int numberOfRecords = 0;
+        try (CsvRecordReader reader = new CsvRecordReader(in, delimiter.charAt(0))) {
+            CsvRecord record = reader.next();
+            if (record == null) {
+                throw new RuntimeException("Csv file " + filePath + " does not have a header.");
+            }
+            processHeader(record.toStringArray());
+            while ((record = reader.next()) != null) {
+                numberOfRecords++;
+                processRecord(record);
+            }
+        } catch (IOException e) {
+            logger.error("Error parsing record number " + numberOfRecords + ": " + e.getMessage(), e);
+        }
+        logger.info(this.getClass().getSimpleName() + ": Read " + numberOfRecords + " records.");
+    }
+
+    /**
+     * Whether the delimiter splits lines the same way on byte level as {@link String#split(String)} does
+     */
+    static boolean isRecordDelimiter(String delimiter) {
+        return delimiter.length() == 1 && REGEX_META_CHARACTERS.indexOf(delimiter.charAt(0)) < 0
+                && delimiter.charAt(0) <= 0x7F;
+    }
+}
@@ -0,0 +1,139 @@
+package de.tum.bgu.msm.io.input;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads large csv or csv.gz files in chunks. The file is cut into blocks of complete lines, which are parsed
+ * in parallel by {@link #parseRecord(CsvRecord)}. The parsed records are then handed to
+ * {@link #applyRecord(Object)} on the calling thread, strictly in file order, so that the resulting
+ * {@link DataSet} does not depend on the number of threads. Reading, parsing and applying overlap, and only
+ * a few blocks are kept in memory at the same time.
+ *
+ * @param <T> intermediate result of parsing one record
+ */
+public abstract class AbstractParallelCsvReader<T> extends AbstractCsvRecordReader {
+
+    private static final Logger logger = Logger.getLogger(AbstractParallelCsvReader.class);
+
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 22;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    protected AbstractParallelCsvReader(DataSet dataSet) {
+        super(dataSet);
+    }
+
+    /**
+     * Sets the approximate size of the chunks in bytes, mainly for testing
+     */
+    void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Parses one record. Called concurrently for different records, so implementations must not modify
+     * the data set or any other shared state.
+     * @return the parsed record or null if the record should be skipped
+     */
+    protected abstract T parseRecord(CsvRecord record);
+
+    /**
+     * Adds a parsed record to the data set. Called on a single thread in the order of the file.
+     */
+    protected abstract void applyRecord(T record);
+
+    @Override
+    protected final void processRecord(CsvRecord record) {
+        final T parsed = parseRecord(record);
+        if (parsed != null) {
+            applyRecord(parsed);
+        }
+    }
+
+    @Override
+    public void read(Path filePath, String delimiter) {
+        if (delimiter.length() != 1) {
+            super.read(filePath, delimiter);
+            return;
+        }
+        final SharedExecutor executor = dataSet.getExecutor();
+        final int maxPendingBlocks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<List<T>>> pending = new ArrayDeque<>();
+        long numberOfRecords = 0;
+
+        try (InputStream in = open(filePath)) {
+            final CsvBlockReader blocks = new CsvBlockReader(in, blockSize);
+            byte[] block = blocks.next();
+            if (block == null) {
+                throw new RuntimeException("Csv file " + filePath + " does not have a header.");
+            }
+            final CsvRecordReader headerReader = new CsvRecordReader(new ByteArrayInputStream(block), delimiter.charAt(0));
+            processHeader(headerReader.next().toStringArray());
+
+            boolean skipHeader = true;
+            while (block != null) {
+                final byte[] data = block;
+                final boolean skip = skipHeader;
+                pending.add(executor.submit(() -> parseBlock(data, delimiter.charAt(0), skip)));
+                skipHeader = false;
+                while (pending.size() >= maxPendingBlocks) {
+                    numberOfRecords += applyBlock(SharedExecutor.await(pending.poll()));
+                }
+                block = blocks.next();
+            }
+            while (!pending.isEmpty()) {
+                numberOfRecords += applyBlock(SharedExecutor.await(pending.poll()));
+            }
+        } catch (IOException e) {
+            logger.error("Error reading " + filePath + ": " + e.getMessage(), e);
+            throw new RuntimeException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        logger.info(this.getClass().getSimpleName() + ": Read " + numberOfRecords + " records.");
+    }
+
+    private static InputStream open(Path filePath) throws IOException {
+        final InputStream in = Files.newInputStream(filePath);
+        if (filePath.toString().endsWith(".gz")) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return in;
+    }
+
+    private List<T> parseBlock(byte[] block, char delimiter, boolean skipHeader) throws IOException {
+        final List<T> parsed = new ArrayList<>();
+        final CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(block), delimiter);
+        if (skipHeader) {
+            reader.next();
+        }
+        CsvRecord record;
+        while ((record = reader.next()) != null) {
+            // skipped records are kept as null to count all lines
+            parsed.add(parseRecord(record));
+        }
+        return parsed;
+    }
+
+    private int applyBlock(List<T> parsed) {
+        for (T record : parsed) {
+            if (record != null) {
+                applyRecord(record);
+            }
+        }
+        return parsed.size();
+    }
+}
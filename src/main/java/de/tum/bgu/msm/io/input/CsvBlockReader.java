@@ -0,0 +1,67 @@
+package de.tum.bgu.msm.io.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Cuts a stream into blocks of complete lines, so that the blocks can be parsed independently, e.g. by a
+ * {@link CsvRecordReader} on another thread. Every block ends after a line feed, except for the last block.
+ * Blocks have about the given size, a single line longer than that is returned as one larger block.
+ */
+public final class CsvBlockReader implements Closeable {
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int limit = 0;
+    private boolean endOfStream = false;
+
+    public CsvBlockReader(InputStream in, int blockSize) {
+        this.in = in;
+        this.buffer = new byte[blockSize];
+    }
+
+    /**
+     * @return the next block or null at the end of the stream
+     */
+    public byte[] next() throws IOException {
+        int searchFrom = 0;
+        while (true) {
+            while (!endOfStream && limit < buffer.length) {
+                final int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    endOfStream = true;
+                } else {
+                    limit += read;
+                }
+            }
+            if (limit == 0) {
+                return null;
+            }
+            if (endOfStream) {
+                final byte[] block = Arrays.copyOf(buffer, limit);
+                limit = 0;
+                return block;
+            }
+            int end = limit - 1;
+            while (end >= searchFrom && buffer[end] != '\n') {
+                end--;
+            }
+            if (end >= searchFrom) {
+                final byte[] block = Arrays.copyOf(buffer, end + 1);
+                System.arraycopy(buffer, end + 1, buffer, 0, limit - end - 1);
+                limit = limit - end - 1;
+                return block;
+            }
+            // a single line longer than the buffer
+            searchFrom = limit;
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,223 @@
+package de.tum.bgu.msm.io.input;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Mutable cursor over the fields of one delimited line. The record points directly into the read buffer of
+ * the {@link CsvRecordReader}, is reused for every line and is only valid until the next line is read.
+ * Numbers, booleans and enum constants are parsed from the raw bytes, so no strings are created unless
+ * {@link #getString(int)} is called. Like the readers, the record treats the data as ISO-8859-1, i.e. one
+ * byte per character. Quotes are not interpreted.
+ */
+public final class CsvRecord {
+
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+            1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private byte[] buffer;
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private int fieldCount = 0;
+    private long lineNumber = 0;
+
+    CsvRecord() {
+    }
+
+    void set(byte[] buffer, int from, int to, byte delimiter, long lineNumber) {
+        this.buffer = buffer;
+        this.lineNumber = lineNumber;
+        fieldCount = 0;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == delimiter) {
+                addField(start, i);
+                start = i + 1;
+            }
+        }
+        addField(start, to);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * @return the number of fields in the line, including empty trailing fields
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the 1-based number of the line in the file, including the header
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public boolean isEmpty(int column) {
+        checkColumn(column);
+        return starts[column] == ends[column];
+    }
+
+    public String getString(int column) {
+        checkColumn(column);
+        return new String(buffer, starts[column], ends[column] - starts[column], StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Parses the field like {@link Integer#parseInt(String)}, including the thrown exception for invalid values.
+     */
+    public int getInt(int column) {
+        checkColumn(column);
+        int position = starts[column];
+        final int end = ends[column];
+        boolean negative = false;
+        if (position < end && (buffer[position] == '-' || buffer[position] == '+')) {
+            negative = buffer[position] == '-';
+            position++;
+        }
+        if (position == end || end - position > 10) {
+            return Integer.parseInt(getString(column));
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            final int digit = buffer[position] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(getString(column));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(getString(column));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the field like {@link Double#parseDouble(String)}. Plain decimals with up to 15 significant digits
+     * are converted directly from the bytes, which gives the same correctly rounded result. Any other notation
+     * is delegated to {@link Double#parseDouble(String)}.
+     */
+    public double getDouble(int column) {
+        checkColumn(column);
+        int position = starts[column];
+        final int end = ends[column];
+        boolean negative = false;
+        if (position < end && (buffer[position] == '-' || buffer[position] == '+')) {
+            negative = buffer[position] == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean point = false;
+        boolean anyDigit = false;
+        for (; position < end; position++) {
+            final byte b = buffer[position];
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                if (digits > MAX_EXACT_DIGITS) {
+                    return Double.parseDouble(getString(column));
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    decimals++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(getString(column));
+            }
+        }
+        if (!anyDigit || decimals >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(column));
+        }
+        final double value = mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the field like {@link Boolean#parseBoolean(String)}, i.e. everything but "true" (ignoring case) is false.
+     */
+    public boolean getBoolean(int column) {
+        checkColumn(column);
+        final int start = starts[column];
+        if (ends[column] - start != 4) {
+            return false;
+        }
+        return (buffer[start] | 0x20) == 't' && (buffer[start + 1] | 0x20) == 'r'
+                && (buffer[start + 2] | 0x20) == 'u' && (buffer[start + 3] | 0x20) == 'e';
+    }
+
+    /**
+     * Returns the constant whose name equals the field, like {@link Enum#valueOf(Class, String)}.
+     * @param constants the constants of the enum, e.g. from {@code values()}
+     */
+    public <E extends Enum<E>> E getEnum(int column, E[] constants) {
+        checkColumn(column);
+        for (E constant : constants) {
+            if (equals(column, constant.name())) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + getString(column) + " in line " + lineNumber);
+    }
+
+    /**
+     * Compares the field to the given value without creating a string
+     */
+    public boolean equals(int column, String value) {
+        checkColumn(column);
+        final int start = starts[column];
+        final int length = ends[column] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((char) (buffer[start + i] & 0xFF) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the fields as strings with the semantics of {@link String#split(String)}, i.e. without
+     * trailing empty fields.
+     */
+    public String[] toStringArray() {
+        int count = fieldCount;
+        if (count == 1 && starts[0] == ends[0]) {
+            return new String[]{""};
+        }
+        while (count > 0 && starts[count - 1] == ends[count - 1]) {
+            count--;
+        }
+        final String[] fields = new String[count];
+        for (int i = 0; i < count; i++) {
+            fields[i] = getString(i);
+        }
+        return fields;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException("Column " + column + " does not exist in line " + lineNumber
+                    + " with " + fieldCount + " fields");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.tum.bgu.msm.io.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream into lines and fields without decoding it into strings. Lines are terminated by
+ * '\n', '\r' or "\r\n", just like for {@link java.io.BufferedReader#readLine()}. The returned record is
+ * reused for every line.
+ */
+public final class CsvRecordReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte delimiter;
+    private final CsvRecord record = new CsvRecord();
+
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfStream = false;
+    private boolean skipLineFeed = false;
+    private long lineNumber = 0;
+
+    public CsvRecordReader(InputStream in, char delimiter) {
+        if (delimiter > 0x7F) {
+            throw new IllegalArgumentException("Only single byte delimiters are supported: " + delimiter);
+        }
+        this.in = in;
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * @return the next line or null at the end of the stream
+     */
+    public CsvRecord next() throws IOException {
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                final byte b = buffer[scan];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (b == '\n') {
+                        position = scan + 1;
+                        continue;
+                    }
+                }
+                if (b == '\n' || b == '\r') {
+                    record.set(buffer, position, scan, delimiter, ++lineNumber);
+                    skipLineFeed = b == '\r';
+                    position = scan + 1;
+                    return record;
+                }
+            }
+            if (endOfStream) {
+                if (position < limit) {
+                    record.set(buffer, position, limit, delimiter, ++lineNumber);
+                    position = limit;
+                    return record;
+                }
+                return null;
+            }
+            scan = fill();
+        }
+    }
+
+    /**
+     * Moves the unprocessed part of the current line to the start of the buffer, grows the buffer for long
+     * lines and reads more bytes.
+     * @return the position from which scanning should resume
+     */
+    private int fill() throws IOException {
+        final int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+        final int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+        return remaining;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,299 @@
+package de.tum.bgu.msm.io.input.readers;
+
+import de.tum.bgu.msm.io.output.ColumnarTableWriter;
+import de.tum.bgu.msm.io.output.ColumnarTableWriter.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarTableWriter.Compression;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads tables written by {@link ColumnarTableWriter}. Uncompressed columns are copied from a memory mapped
+ * file into primitive arrays in bulk, compressed columns are inflated directly into the arrays' byte order.
+ * Provides a {@link ColumnarTable} that holds the data. Make sure to call {@link #read()} first.
+ */
+public final class ColumnarTableReader {
+
+    private static final Logger logger = Logger.getLogger(ColumnarTableReader.class);
+
+    private final Path filePath;
+    private ColumnarTable table;
+
+    public ColumnarTableReader(Path filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Reads all columns on the calling thread
+     */
+    public void read() {
+        read(null);
+    }
+
+    /**
+     * Reads the columns concurrently on the given executor
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid columnar table
+     */
+    public void read(SharedExecutor executor) {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final ByteBuffer start = map(channel, 0, ColumnarTableWriter.MAGIC.length + Integer.BYTES);
+            final byte[] magic = new byte[ColumnarTableWriter.MAGIC.length];
+            start.get(magic);
+            if (!Arrays.equals(magic, ColumnarTableWriter.MAGIC)) {
+                throw new IllegalArgumentException(filePath + " is not a columnar table");
+            }
+            final int headerLength = start.getInt();
+            final ByteBuffer header = map(channel, start.capacity(), headerLength);
+
+            final long rows = header.getLong();
+            if (rows > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(filePath + " has too many rows: " + rows);
+            }
+            final int rowCount = (int) rows;
+            final int columnCount = header.getInt();
+            final List<ColumnTask> tasks = new ArrayList<>(columnCount);
+            long offset = start.capacity() + headerLength;
+            for (int i = 0; i < columnCount; i++) {
+                final String name = readName(header);
+                final ColumnType type = ColumnType.values()[header.get()];
+                final Compression compression = Compression.values()[header.get()];
+                final long storedLength = header.getLong();
+                String[] labels = null;
+                if (type == ColumnType.CATEGORY) {
+                    labels = new String[header.getInt()];
+                    for (int j = 0; j < labels.length; j++) {
+                        labels[j] = readName(header);
+                    }
+                }
+                final ByteBuffer stored = map(channel, offset, storedLength);
+                offset += storedLength;
+                final String[] columnLabels = labels;
+                tasks.add(() -> new ColumnData(name, type, columnLabels, decode(stored, type, compression, rowCount)));
+            }
+
+            final List<ColumnData> columns;
+            if (executor != null) {
+                columns = executor.invokeAll(tasks);
+            } else {
+                columns = new ArrayList<>(columnCount);
+                for (ColumnTask task : tasks) {
+                    columns.add(task.call());
+                }
+            }
+            table = new ColumnarTable(rowCount, columns);
+        } catch (IOException e) {
+            logger.error("Could not read " + filePath + ": " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            // the header or a column ends early or refers to an unknown type or compression
+            throw new IllegalArgumentException(filePath + " is not a valid columnar table", e);
+        }
+        logger.info("Read " + table.getRowCount() + " rows from " + filePath);
+    }
+
+    public ColumnarTable getTable() {
+        return table;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Column is too large: " + length + " bytes");
+        }
+        if (position + length > channel.size()) {
+            throw new IllegalArgumentException("File is truncated");
+        }
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static String readName(ByteBuffer header) {
+        final byte[] bytes = new byte[header.getShort()];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Object decode(ByteBuffer stored, ColumnType type, Compression compression, int rowCount) {
+        ByteBuffer data = stored;
+        if ((long) rowCount * type.getWidth() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Column is too large: " + rowCount + " rows");
+        }
+        if (compression == Compression.DEFLATE) {
+            data = ByteBuffer.allocate(rowCount * type.getWidth()).order(ByteOrder.LITTLE_ENDIAN);
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                while (data.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(data) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Compressed column is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+            if (data.hasRemaining()) {
+                throw new IllegalArgumentException("Compressed column is truncated");
+            }
+            data.flip();
+        }
+        switch (type) {
+            case INT:
+                final int[] ints = new int[rowCount];
+                data.asIntBuffer().get(ints);
+                return ints;
+            case DOUBLE:
+                final double[] doubles = new double[rowCount];
+                data.asDoubleBuffer().get(doubles);
+                return doubles;
+            case CATEGORY:
+                final byte[] codes = new byte[rowCount];
+                data.get(codes);
+                return codes;
+            default:
+                throw new IllegalStateException("Unknown column type " + type);
+        }
+    }
+
+    /**
+     * Decodes one column, without checked exceptions
+     */
+    @FunctionalInterface
+    private interface ColumnTask extends Callable<ColumnData> {
+        @Override
+        ColumnData call();
+    }
+
+    private static final class ColumnData {
+        private final String name;
+        private final ColumnType type;
+        private final String[] labels;
+        private final Object values;
+
+        private ColumnData(String name, ColumnType type, String[] labels, Object values) {
+            this.name = name;
+            this.type = type;
+            this.labels = labels;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Class that stores data read by {@link ColumnarTableReader}. Columns are returned as the primitive arrays
+     * that hold the data, so they should not be modified.
+     */
+    public final static class ColumnarTable {
+
+        private final int rowCount;
+        private final Map<String, ColumnData> columns = new LinkedHashMap<>();
+
+        private ColumnarTable(int rowCount, List<ColumnData> columns) {
+            this.rowCount = rowCount;
+            for (ColumnData column : columns) {
+                this.columns.put(column.name, column);
+            }
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * returns the names of all columns in the order of the file
+         */
+        public List<String> getColumnNames() {
+            return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+        }
+
+        public boolean containsColumn(String column) {
+            return columns.containsKey(column);
+        }
+
+        public ColumnType getColumnType(String column) {
+            return getColumn(column).type;
+        }
+
+        /**
+         * returns the values of an int column, missing values are -1
+         */
+        public int[] getIntColumn(String column) {
+            return (int[]) getColumn(column, ColumnType.INT).values;
+        }
+
+        /**
+         * returns the values of a double column, missing values are NaN
+         */
+        public double[] getDoubleColumn(String column) {
+            return (double[]) getColumn(column, ColumnType.DOUBLE).values;
+        }
+
+        /**
+         * returns the codes of a category column, i.e. the index of every value in
+         * {@link #getCategoryLabels(String)} or -1 for missing values
+         */
+        public byte[] getCategoryCodes(String column) {
+            return (byte[]) getColumn(column, ColumnType.CATEGORY).values;
+        }
+
+        public String[] getCategoryLabels(String column) {
+            return getColumn(column, ColumnType.CATEGORY).labels.clone();
+        }
+
+        /**
+         * returns a category column as enum constants, missing values are null
+         * @throws IllegalArgumentException if a label is not a constant of the given enum
+         */
+        public <E extends Enum<E>> E[] getEnumColumn(String column, Class<E> enumClass) {
+            final ColumnData data = getColumn(column, ColumnType.CATEGORY);
+            final List<E> constants = new ArrayList<>(data.labels.length);
+            for (String label : data.labels) {
+                constants.add(Enum.valueOf(enumClass, label));
+            }
+            final byte[] codes = (byte[]) data.values;
+            @SuppressWarnings("unchecked")
+            final E[] values = (E[]) Array.newInstance(enumClass, codes.length);
+            for (int row = 0; row < codes.length; row++) {
+                values[row] = codes[row] < 0 ? null : constants.get(codes[row]);
+            }
+            return values;
+        }
+
+        private ColumnData getColumn(String column) {
+            final ColumnData data = columns.get(column);
+            if (data == null) {
+                throw new IllegalArgumentException("Column " + column + " does not exist");
+            }
+            return data;
+        }
+
+        private ColumnData getColumn(String column, ColumnType type) {
+            final ColumnData data = getColumn(column);
+            if (data.type != type) {
+                throw new IllegalArgumentException("Column " + column + " is of type " + data.type + ", not " + type);
+            }
+            return data;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package de.tum.bgu.msm.io.input.readers;
 
-import com.google.common.collect.HashBasedTable;
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.modules.plansConverter.externalFlows.ExternalFlowMatrix;
 import de.tum.bgu.msm.modules.plansConverter.externalFlows.ExternalFlowType;
 import de.tum.bgu.msm.modules.plansConverter.externalFlows.ExternalFlowZone;
 import de.tum.bgu.msm.resources.Properties;
@@ -46,8 +46,8 @@ public class ExternalFlowMatrixReader {
         this.zones = zones;
     }
 
-    public HashBasedTable<Integer, Integer, Float> read(ExternalFlowType type){
-        HashBasedTable<Integer, Integer, Float> matrix = HashBasedTable.create();
+    public ExternalFlowMatrix read(ExternalFlowType type){
+        ExternalFlowMatrix matrix = new ExternalFlowMatrix();
         String fileName = matrixFileNames.get(type);
 
         try {
@@ -6,6 +6,7 @@ import de.tum.bgu.msm.modules.plansConverter.externalFlows.ExternalFlowZoneType;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
+import org.locationtech.jts.geom.Geometry;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.core.utils.gis.ShapeFileReader;
 import org.opengis.feature.simple.SimpleFeature;
@@ -56,13 +57,13 @@ public class ExternalZonesReader extends AbstractCsvReader {
         String name = record[positionName];
         ExternalFlowZoneType type = ExternalFlowZoneType.getExternalFlowZoneTypeFromInt(Integer.parseInt(record[positionType]));
         Coord coordinates = new Coord(Float.parseFloat(record[positionX]),Float.parseFloat(record[positionY]));
-        SimpleFeature feature;
+        Geometry geometry;
         if (!ExternalFlowZoneType.BORDER.equals(type)) {
-            feature = features.get(id);
+            geometry = (Geometry) features.get(id).getDefaultGeometry();
         } else {
-            feature = null;
+            geometry = null;
         }
-        zones.put(id, new ExternalFlowZone(id, coordinates, type, feature));
+        zones.put(id, new ExternalFlowZone(id, coordinates, type, geometry));
         //return null;
     }
 
@@ -1,15 +1,15 @@
 package de.tum.bgu.msm.io.input.readers;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Table;
 import de.tum.bgu.msm.io.input.AbstractCsvReader;
 
 import java.nio.file.Path;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class that can be used for reading arbitrary csv files. Provides a {@link GenericCsvTable} that holds the data.
@@ -19,7 +19,7 @@ public final class GenericCsvReader extends AbstractCsvReader {
 
     private final Path filePath;
     private final GenericCsvTable table = new GenericCsvTable();
-    private int currentRow = 0;
+    private final List<String[]> rows = new ArrayList<>();
 
     public GenericCsvReader(Path filePath) {
         super(null);
@@ -33,16 +33,14 @@ public final class GenericCsvReader extends AbstractCsvReader {
 
     @Override
     protected void processRecord(String[] record) {
-        for(int i = 0; i < record.length; i++) {
-            table.put(currentRow, i, record[i]);
-        }
-        currentRow++;
-        //return null;
+        rows.add(record);
     }
 
     @Override
     public void read() {
         super.read(filePath, ",");
+        table.createColumns(rows);
+        rows.clear();
     }
 
     public GenericCsvTable getTable() {
@@ -50,28 +48,119 @@ public final class GenericCsvReader extends AbstractCsvReader {
     }
 
     /**
-     * Class that stores data read by {@link GenericCsvReader}. Uses a {@link Table} internally to store Strings that
-     * can be queried and converted by the provided methods.
+     * Class that stores data read by {@link GenericCsvReader}. The data is stored column by column. A column is parsed
+     * on its first integer or decimal access; if every value is a number it is then kept as primitive array, so that
+     * further numeric lookups neither hash nor parse. Columns that are only read as strings are never parsed. Header
+     * names are resolved to column indexes once when the header is read.
      */
     public final static class GenericCsvTable {
 
-        private final Table<Integer, Integer, String> table;
-        private List<String> header;
+        private List<String> header = Collections.emptyList();
+        private final Map<String, Integer> columnIndexes = new HashMap<>();
+
+        /**
+         * marks a column that has been parsed but contains values that are missing or not numbers
+         */
+        private static final int[] NO_INTS = new int[0];
+        private static final double[] NO_DOUBLES = new double[0];
+
+        private String[][] strings = new String[0][];
+        private AtomicReferenceArray<int[]> ints = new AtomicReferenceArray<>(0);
+        private AtomicReferenceArray<double[]> doubles = new AtomicReferenceArray<>(0);
+        private int rowCount = 0;
 
         private GenericCsvTable() {
-            this.table = HashBasedTable.create();
         }
 
         private void createHeader(String[] header) {
-            this.header = Lists.newArrayList(header);
+            this.header = Collections.unmodifiableList(Arrays.asList(header));
+            columnIndexes.clear();
+            for (int i = 0; i < header.length; i++) {
+                columnIndexes.putIfAbsent(header[i], i);
+            }
         }
 
-        private void put(int row, int column, String s) {
-            this.table.put(row, column, s);
+        private void createColumns(List<String[]> rows) {
+            int columnCount = header.size();
+            for (String[] row : rows) {
+                columnCount = Math.max(columnCount, row.length);
+            }
+            rowCount = rows.size();
+            strings = new String[columnCount][rowCount];
+            ints = new AtomicReferenceArray<>(columnCount);
+            doubles = new AtomicReferenceArray<>(columnCount);
+            for (int row = 0; row < rowCount; row++) {
+                String[] record = rows.get(row);
+                for (int column = 0; column < record.length; column++) {
+                    strings[column][row] = record[column];
+                }
+            }
+        }
+
+        /**
+         * Parses the column on first use. Threads that race on the first use parse it each and store the same values.
+         * @return the parsed column or null if the index is out of range or any value is missing or not an integer
+         */
+        private int[] getInts(int column) {
+            if (column < 0 || column >= ints.length()) {
+                return null;
+            }
+            int[] values = ints.get(column);
+            if (values == null) {
+                values = parseInts(strings[column]);
+                ints.set(column, values);
+            }
+            return values == NO_INTS ? null : values;
+        }
+
+        /**
+         * Parses the column on first use, see {@link #getInts(int)}
+         * @return the parsed column or null if the index is out of range or any value is missing or not a number
+         */
+        private double[] getDoubles(int column) {
+            if (column < 0 || column >= doubles.length()) {
+                return null;
+            }
+            double[] values = doubles.get(column);
+            if (values == null) {
+                values = parseDoubles(strings[column]);
+                doubles.set(column, values);
+            }
+            return values == NO_DOUBLES ? null : values;
+        }
+
+        private static int[] parseInts(String[] column) {
+            int[] values = new int[column.length];
+            for (int row = 0; row < column.length; row++) {
+                if (column[row] == null) {
+                    return NO_INTS;
+                }
+                try {
+                    values[row] = Integer.parseInt(column[row]);
+                } catch (NumberFormatException e) {
+                    return NO_INTS;
+                }
+            }
+            return values;
+        }
+
+        private static double[] parseDoubles(String[] column) {
+            double[] values = new double[column.length];
+            for (int row = 0; row < column.length; row++) {
+                if (column[row] == null) {
+                    return NO_DOUBLES;
+                }
+                try {
+                    values[row] = Double.parseDouble(column[row]);
+                } catch (NumberFormatException e) {
+                    return NO_DOUBLES;
+                }
+            }
+            return values;
         }
 
         public boolean containsColumn(String column) {
-            return header.contains(column);
+            return columnIndexes.containsKey(column);
         }
 
         /**
@@ -81,7 +170,10 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @return the value that is stored at the given position
          */
         public String getString(int row, int column) {
-            return table.get(row, column);
+            if (column < 0 || column >= strings.length || row < 0 || row >= rowCount) {
+                return null;
+            }
+            return strings[column][row];
         }
 
         /**
@@ -92,12 +184,15 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @throws NumberFormatException if the String cannot be parsed
          */
         public int getInt(int row, int column) throws NumberFormatException {
-            return Integer.parseInt(table.get(row, column));
+            final int[] values = getInts(column);
+            if (values != null && row >= 0 && row < rowCount) {
+                return values[row];
+            }
+            return Integer.parseInt(getString(row, column));
         }
 
         public int getInt(int row, String columnAsString) throws NumberFormatException {
-            int column = getColumnIndexOf(columnAsString);
-            return Integer.parseInt(table.get(row, column));
+            return getInt(row, getColumnIndexOf(columnAsString));
         }
 
         /**
@@ -108,16 +203,24 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @throws NumberFormatException if the String cannot be parsed
          */
         public double getDouble(int row, int column) throws NumberFormatException {
-            return Double.parseDouble(table.get(row, column));
+            final double[] values = getDoubles(column);
+            if (values != null && row >= 0 && row < rowCount) {
+                return values[row];
+            }
+            return Double.parseDouble(getString(row, column));
+        }
+
+        public double getDouble(int row, String columnAsString) throws NumberFormatException {
+            return getDouble(row, getColumnIndexOf(columnAsString));
         }
 
         /**
          * returns the index of the given column's header
          * @param string the header of the column
-         * @return
+         * @return the index or -1 if there is no such column
          */
         public int getColumnIndexOf(String string) {
-            return header.indexOf(string);
+            return columnIndexes.getOrDefault(string, -1);
         }
 
         /**
@@ -135,10 +238,15 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @return
          */
         public List<String> getStringColumn(int index) {
-            return table.column(index).entrySet().stream()
-                    .sorted(Comparator.comparingInt(Map.Entry::getKey))
-                    .map(entry -> entry.getValue())
-                    .collect(Collectors.toList());
+            List<String> column = new ArrayList<>(rowCount);
+            if (index >= 0 && index < strings.length) {
+                for (String value : strings[index]) {
+                    if (value != null) {
+                        column.add(value);
+                    }
+                }
+            }
+            return column;
         }
 
         /**
@@ -156,11 +264,21 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @return
          */
         public List<Double> getDoubleColumn(int index) {
-            return table.column(index).entrySet().stream()
-                    .sorted(Comparator.comparingInt(Map.Entry::getKey))
-                    .map(entry -> Double.parseDouble(entry.getValue()))
-                    .collect(Collectors.toList());
+            final double[] values = getDoubles(index);
+            if (values != null) {
+                List<Double> column = new ArrayList<>(rowCount);
+                for (double value : values) {
+                    column.add(value);
+                }
+                return column;
+            }
+            List<Double> column = new ArrayList<>(rowCount);
+            for (String value : getStringColumn(index)) {
+                column.add(Double.parseDouble(value));
+            }
+            return column;
         }
+
         /**
          * returns the column as list of float entries in ascending row order.
          * @param string the name of the column
@@ -176,14 +294,16 @@ public final class GenericCsvReader extends AbstractCsvReader {
          * @return
          */
         public List<Float> getFloatColumn(int index) {
-            return table.column(index).entrySet().stream()
-                    .sorted(Comparator.comparingInt(Map.Entry::getKey))
-                    .map(entry -> Float.parseFloat(entry.getValue()))
-                    .collect(Collectors.toList());
+            // parsed from the strings, as rounding a parsed double may differ from parsing a float
+            List<Float> column = new ArrayList<>(rowCount);
+            for (String value : getStringColumn(index)) {
+                column.add(Float.parseFloat(value));
+            }
+            return column;
         }
 
         public int getRowCount () {
-            return table.column(0).entrySet().size();
+            return rowCount;
         }
     }
 }
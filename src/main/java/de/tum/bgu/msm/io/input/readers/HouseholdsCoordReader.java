@@ -3,7 +3,8 @@ package de.tum.bgu.msm.io.input.readers;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.MitoHousehold;
 import de.tum.bgu.msm.data.MitoZone;
-import de.tum.bgu.msm.io.input.AbstractCsvReader;
+import de.tum.bgu.msm.io.input.AbstractParallelCsvReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
@@ -19,7 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Created by Qin on 02.07.2018.
  */
-public class HouseholdsCoordReader extends AbstractCsvReader {
+public class HouseholdsCoordReader extends AbstractParallelCsvReader<HouseholdsCoordReader.ParsedHomeLocation> {
 
     private int posHHId = -1;
     private int posCoordX = -1;
@@ -51,8 +52,8 @@ public class HouseholdsCoordReader extends AbstractCsvReader {
     }
 
     @Override
-    protected void processRecord(String[] record) {
-        int hhId = Integer.parseInt(record[posHHId]);
+    protected ParsedHomeLocation parseRecord(CsvRecord record) {
+        int hhId = record.getInt(posHHId);
 
 
         //vacant dwellings
@@ -60,9 +61,9 @@ public class HouseholdsCoordReader extends AbstractCsvReader {
             MitoHousehold hh = dataSet.getHouseholds().get(hhId);
             if (hh == null) {
                 logger.warn(String.format("Household %d does not exist in mito.", hhId));
-                return;
+                return null;
             }
-            int taz = Integer.parseInt(record[posTAZId]);
+            int taz = record.getInt(posTAZId);
             MitoZone zone = dataSet.getZones().get(taz);
             if(zone == null) {
                 logger.warn(String.format("Household %d is supposed to live in zone %d but this zone does not exist.", hhId, taz));
@@ -70,11 +71,28 @@ public class HouseholdsCoordReader extends AbstractCsvReader {
 
 
             Coordinate homeLocation = new Coordinate(
-            		Double.parseDouble(record[posCoordX]), Double.parseDouble(record[posCoordY]));
-            hh.setHomeLocation(homeLocation);
-            hh.setHomeZone(zone);
-            zone.addHousehold();
+            		record.getDouble(posCoordX), record.getDouble(posCoordY));
+            return new ParsedHomeLocation(hh, zone, homeLocation);
         }
+        return null;
     }
 
+    @Override
+    protected void applyRecord(ParsedHomeLocation parsed) {
+        parsed.household.setHomeLocation(parsed.homeLocation);
+        parsed.household.setHomeZone(parsed.zone);
+        parsed.zone.addHousehold();
+    }
+
+    static final class ParsedHomeLocation {
+        private final MitoHousehold household;
+        private final MitoZone zone;
+        private final Coordinate homeLocation;
+
+        private ParsedHomeLocation(MitoHousehold household, MitoZone zone, Coordinate homeLocation) {
+            this.household = household;
+            this.zone = zone;
+            this.homeLocation = homeLocation;
+        }
+    }
 }
@@ -3,7 +3,8 @@ package de.tum.bgu.msm.io.input.readers;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.MitoHousehold;
 import de.tum.bgu.msm.data.MitoZone;
-import de.tum.bgu.msm.io.input.AbstractCsvReader;
+import de.tum.bgu.msm.io.input.AbstractParallelCsvReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
@@ -14,7 +15,7 @@ import java.nio.file.Path;
 /**
  * Created by Nico on 17.07.2017.
  */
-public class HouseholdsReaderGermany extends AbstractCsvReader {
+public class HouseholdsReaderGermany extends AbstractParallelCsvReader<MitoHousehold> {
 
     private int posId = -1;
     private int posTaz = -1;
@@ -56,20 +57,10 @@ public class HouseholdsReaderGermany extends AbstractCsvReader {
     }
 
     @Override
-    protected void processRecord(String[] record) {
-        int id = Integer.parseInt(record[posId]);
-        int autos = Integer.parseInt(record[posAutos]);
+    protected MitoHousehold parseRecord(CsvRecord record) {
+        int id = record.getInt(posId);
+        int autos = record.getInt(posAutos);
         MitoHousehold hh = new MitoHousehold(id, 0, autos);
-        if (counter == 9){
-            counter =0;
-        } else {
-            counter++;
-        }
-        if (counter == thisPortion || thisPortion == -1){
-            dataSet.addHousehold(hh);
-        }
-
-
 
         //int hhId = Integer.parseInt(record[posHHId]);
 
@@ -77,11 +68,7 @@ public class HouseholdsReaderGermany extends AbstractCsvReader {
         //vacant dwellings
         if (id > 0) {
             //MitoHousehold hh = dataSet.getHouseholds().get(id);
-            if (hh == null) {
-                logger.warn(String.format("Household %d does not exist in mito.", id));
-                return;
-            }
-            int taz = Integer.parseInt(record[posTaz]);
+            int taz = record.getInt(posTaz);
             MitoZone zone = dataSet.getZones().get(taz);
             if(zone == null) {
                 logger.warn(String.format("Household %d is supposed to live in zone %d but this zone does not exist.", id, taz));
@@ -91,10 +78,25 @@ public class HouseholdsReaderGermany extends AbstractCsvReader {
             //Coordinate homeLocation = zone.getRandomCoord(MitoUtil.getRandomObject());
 
             Coordinate homeLocation = new Coordinate(
-            Double.parseDouble(record[posCoordX]), Double.parseDouble(record[posCoordY]));
+            record.getDouble(posCoordX), record.getDouble(posCoordY));
             hh.setHomeLocation(homeLocation);
             hh.setHomeZone(zone);
-            zone.addHousehold();
+        }
+        return hh;
     }
+
+    @Override
+    protected void applyRecord(MitoHousehold hh) {
+        if (counter == 9){
+            counter =0;
+        } else {
+            counter++;
+        }
+        if (counter == thisPortion || thisPortion == -1){
+            dataSet.addHousehold(hh);
+        }
+        if (hh.getId() > 0) {
+            hh.getHomeZone().addHousehold();
+        }
     }
 }
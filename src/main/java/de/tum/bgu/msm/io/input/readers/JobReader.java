@@ -3,8 +3,10 @@ package de.tum.bgu.msm.io.input.readers;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.MitoJob;
 import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.jobTypes.JobType;
 import de.tum.bgu.msm.data.jobTypes.JobTypeFactory;
-import de.tum.bgu.msm.io.input.AbstractCsvReader;
+import de.tum.bgu.msm.io.input.AbstractParallelCsvReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
@@ -15,7 +17,7 @@ import java.nio.file.Path;
 /**
  * Created by Nico on 17.07.2017.
  */
-public class JobReader extends AbstractCsvReader {
+public class JobReader extends AbstractParallelCsvReader<JobReader.ParsedJob> {
 
     private static final Logger logger = Logger.getLogger(JobReader.class);
     private final JobTypeFactory factory;
@@ -50,29 +52,51 @@ public class JobReader extends AbstractCsvReader {
     }
 
     @Override
-    protected void processRecord(String[] record) {
-        int id = Integer.parseInt(record[posId]);
-        int zoneId = Integer.parseInt(record[posZone]);
-        int worker = Integer.parseInt(record[posWorker]);
-        String type = record[posType];
+    protected ParsedJob parseRecord(CsvRecord record) {
+        int id = record.getInt(posId);
+        int zoneId = record.getInt(posZone);
+        int worker = record.getInt(posWorker);
         if (worker > 0) {
+            String type = record.getString(posType);
             MitoZone zone = dataSet.getZones().get(zoneId);
             if (zone == null) {
                 logger.warn(String.format("Job %d refers to non-existing zone %d! Ignoring it.", id, zoneId));
                 //return null;
             }
 
+            JobType jobType = null;
             try {
-                zone.addEmployeeForType(factory.getType(type.toUpperCase().replaceAll("\"","")));
+                jobType = factory.getType(type.toUpperCase().replace("\"",""));
             } catch (IllegalArgumentException e) {
                 //logger.error("Job Type " + type + " used in job microdata but is not defined");
             }
 
-            Coordinate coordinate = (new Coordinate(Double.parseDouble(record[posJobCoordX]),
-            		Double.parseDouble(record[posJobCoordY])));
+            Coordinate coordinate = (new Coordinate(record.getDouble(posJobCoordX),
+            		record.getDouble(posJobCoordY)));
 
             MitoJob job = new MitoJob(zone, coordinate, id);
-            dataSet.addJob(job);
+            return new ParsedJob(job, zone, jobType);
+        }
+        return null;
+    }
+
+    @Override
+    protected void applyRecord(ParsedJob parsed) {
+        if (parsed.type != null) {
+            parsed.zone.addEmployeeForType(parsed.type);
+        }
+        dataSet.addJob(parsed.job);
+    }
+
+    static final class ParsedJob {
+        private final MitoJob job;
+        private final MitoZone zone;
+        private final JobType type;
+
+        private ParsedJob(MitoJob job, MitoZone zone, JobType type) {
+            this.job = job;
+            this.zone = zone;
+            this.type = type;
         }
     }
 }
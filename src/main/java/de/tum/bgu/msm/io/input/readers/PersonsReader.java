@@ -1,7 +1,8 @@
 package de.tum.bgu.msm.io.input.readers;
 
 import de.tum.bgu.msm.data.*;
-import de.tum.bgu.msm.io.input.AbstractCsvReader;
+import de.tum.bgu.msm.io.input.AbstractParallelCsvReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
 import de.tum.bgu.msm.resources.Resources;
 import org.apache.log4j.Logger;
 
@@ -10,7 +11,7 @@ import java.util.Arrays;
 import java.util.List;
 
 
-public class PersonsReader extends AbstractCsvReader {
+public class PersonsReader extends AbstractParallelCsvReader<PersonsReader.ParsedPerson> {
 
     private static final Logger logger = Logger.getLogger(PersonsReader.class);
 
@@ -62,10 +63,10 @@ public class PersonsReader extends AbstractCsvReader {
     }
 
     @Override
-    public void processRecord(String[] record) {
+    protected ParsedPerson parseRecord(CsvRecord record) {
 
-        final int id = Integer.parseInt(record[posId]);
-        final int hhid = Integer.parseInt(record[posHhId]);
+        final int id = record.getInt(posId);
+        final int hhid = record.getInt(posHhId);
 
         if(!dataSet.getHouseholds().containsKey(hhid)) {
             logger.warn("Person " + id + " refers to non-existing household " + hhid + ". Ignoring this person.");
@@ -73,25 +74,25 @@ public class PersonsReader extends AbstractCsvReader {
         }
         MitoHousehold hh = dataSet.getHouseholds().get(hhid);
 
-        final int age = Integer.parseInt(record[posAge]);
+        final int age = record.getInt(posAge);
 
-        final int genderCode = Integer.parseInt(record[posSex]);
+        final int genderCode = record.getInt(posSex);
         MitoGender mitoGender = MitoGender.valueOf(genderCode);
 
-        final int occupationCode = Integer.parseInt(record[posOccupation]);
+        final int occupationCode = record.getInt(posOccupation);
         MitoOccupationStatus mitoOccupationStatus = MitoOccupationStatus.valueOf(occupationCode);
 
-        final int workplace = Integer.parseInt(record[posWorkplaceId]);
-        final int school = Integer.parseInt(record[posSchoolId]);
+        final int workplace = record.getInt(posWorkplaceId);
+        final int school = record.getInt(posSchoolId);
 
-        final boolean driversLicense = Boolean.parseBoolean(record[posLicence]);
+        final boolean driversLicense = record.getBoolean(posLicence);
 
 
         //mito uses monthly income, while SILO uses annual income
-        int monthlyIncome_EUR = Integer.parseInt(record[posIncome])/12;
-        hh.addIncome(monthlyIncome_EUR);
+        int monthlyIncome_EUR = record.getInt(posIncome)/12;
 
         MitoOccupation occupation = null;
+        boolean withoutOccupation = false;
 
         switch (mitoOccupationStatus) {
             case WORKER:
@@ -111,13 +112,35 @@ public class PersonsReader extends AbstractCsvReader {
             case UNEMPLOYED:
             default:
                 logger.debug("Person " + id + " does not have an occupation.");
-                occupationCounter++;
+                withoutOccupation = true;
                 break;
         }
 
         MitoPerson pp = new MitoPerson(id, mitoOccupationStatus, occupation, age, mitoGender, driversLicense);
+        return new ParsedPerson(pp, hh, monthlyIncome_EUR, withoutOccupation);
+    }
+
+    @Override
+    protected void applyRecord(ParsedPerson parsed) {
+        parsed.household.addIncome(parsed.monthlyIncome);
+        if (parsed.withoutOccupation) {
+            occupationCounter++;
+        }
+        parsed.household.addPerson(parsed.person);
+        dataSet.addPerson(parsed.person);
+    }
 
-        hh.addPerson(pp);
-        dataSet.addPerson(pp);
+    static final class ParsedPerson {
+        private final MitoPerson person;
+        private final MitoHousehold household;
+        private final int monthlyIncome;
+        private final boolean withoutOccupation;
+
+        private ParsedPerson(MitoPerson person, MitoHousehold household, int monthlyIncome, boolean withoutOccupation) {
+            this.person = person;
+            this.household = household;
+            this.monthlyIncome = monthlyIncome;
+            this.withoutOccupation = withoutOccupation;
+        }
     }
 }
@@ -0,0 +1,58 @@
+package de.tum.bgu.msm.io.input.readers;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.jobTypes.JobTypeFactory;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Loads jobs, schools, households, household locations and persons of the synthetic population,
+ * either from the separate files of the standard format or from the German format, in which jobs
+ * are part of the person file.
+ * Files that do not depend on each other are read concurrently: jobs, schools and households
+ * (followed by their dwelling coordinates) each only fill their own registry and touch different
+ * attributes of the zones. Persons refer to all of them and are read afterwards. Each file is
+ * parsed in parallel chunks and applied in file order, so the loaded data does not depend on the
+ * number of threads. The chunks of the concurrently read files are forked and joined by the worker that
+ * reads the file, so the nesting does not block workers, see {@link de.tum.bgu.msm.util.concurrent.SharedExecutor}.
+ * Zones need to be read before.
+ */
+public final class SyntheticPopulationLoader {
+
+    private static final Logger logger = Logger.getLogger(SyntheticPopulationLoader.class);
+
+    private final DataSet dataSet;
+    private final JobTypeFactory jobTypeFactory;
+
+    public SyntheticPopulationLoader(DataSet dataSet, JobTypeFactory jobTypeFactory) {
+        this.dataSet = dataSet;
+        this.jobTypeFactory = jobTypeFactory;
+    }
+
+    public void load() {
+        long start = System.currentTimeMillis();
+        dataSet.getExecutor().runAll(Arrays.asList(
+                () -> new JobReader(dataSet, jobTypeFactory).read(),
+                () -> new SchoolsReader(dataSet).read(),
+                () -> {
+                    new HouseholdsReader(dataSet).read();
+                    new HouseholdsCoordReader(dataSet).read();
+                }));
+        new PersonsReader(dataSet).read();
+        logger.info("  Loaded synthetic population in " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+
+    /**
+     * Loads schools and households (including their locations) concurrently, followed by persons
+     * and their jobs. Zones and skims need to be read before.
+     */
+    public void loadGermany() {
+        long start = System.currentTimeMillis();
+        dataSet.getExecutor().runAll(Arrays.asList(
+                () -> new SchoolsReader(dataSet).read(),
+                () -> new HouseholdsReaderGermany(dataSet).read()));
+        new SyntheticPopulationReaderGermany(dataSet, jobTypeFactory).read();
+        logger.info("  Loaded synthetic population in " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+}
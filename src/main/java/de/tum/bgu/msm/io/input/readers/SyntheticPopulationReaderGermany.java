@@ -1,8 +1,10 @@
 package de.tum.bgu.msm.io.input.readers;
 
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.jobTypes.JobType;
 import de.tum.bgu.msm.data.jobTypes.JobTypeFactory;
-import de.tum.bgu.msm.io.input.AbstractCsvReader;
+import de.tum.bgu.msm.io.input.AbstractParallelCsvReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
 import de.tum.bgu.msm.resources.Resources;
 import org.apache.log4j.Logger;
 import org.locationtech.jts.geom.Coordinate;
@@ -12,7 +14,7 @@ import java.util.Arrays;
 import java.util.List;
 
 
-public class SyntheticPopulationReaderGermany extends AbstractCsvReader {
+public class SyntheticPopulationReaderGermany extends AbstractParallelCsvReader<SyntheticPopulationReaderGermany.ParsedPerson> {
 
     private static final Logger logger = Logger.getLogger(SyntheticPopulationReaderGermany.class);
     private final JobTypeFactory factory;
@@ -90,113 +92,120 @@ public class SyntheticPopulationReaderGermany extends AbstractCsvReader {
     }
 
     @Override
-    public void processRecord(String[] record) {
+    protected ParsedPerson parseRecord(CsvRecord record) {
 
-        final int id = Integer.parseInt(record[posId]);
-        final int hhid = Integer.parseInt(record[posHhId]);
+        final int id = record.getInt(posId);
+        final int hhid = record.getInt(posHhId);
 
         if(!dataSet.getHouseholds().containsKey(hhid)) {
             //logger.warn("Person " + id + " refers to non-existing household " + hhid + ". Ignoring this person.");
-        } else {
-            MitoHousehold hh = dataSet.getHouseholds().get(hhid);
-
-            final int age = Integer.parseInt(record[posAge]);
-
-            final int genderCode = Integer.parseInt(record[posSex]);
-            MitoGender mitoGender = MitoGender.valueOf(genderCode);
-
-            final int occupationCode = Integer.parseInt(record[posOccupation]);
-            MitoOccupationStatus mitoOccupationStatus = MitoOccupationStatus.valueOf(occupationCode);
-
-
-            //int workplace = -1;
-            //try{
-            //    workplace = Integer.parseInt(record[posWorkplaceId]);
-            // } catch (Exception e ){
-            //logger.warn("No Work ID");
-            //}
-
-            //final int workplace = Integer.parseInt(record[posWorkplaceId]);
-            final int school = Integer.parseInt(record[posSchoolId]);
-
-            final boolean driversLicense = Boolean.parseBoolean(record[posLicence]);
-            //final boolean driversLicense = MitoGender.obtainLicense(mitoGender, age); // new, added by Alona, Quick fix for drivers license
-
-
-            //the SP of Germany has monthly_income
-            int monthlyIncome_EUR = Integer.parseInt(record[posIncome]);
-            hh.addIncome(monthlyIncome_EUR);
-
-            MitoOccupation occupation = null;
-
-            switch (mitoOccupationStatus) {
-                case WORKER:
-                    //if(dataSet.getJobs().containsKey(workplace)) {
-                    int jobId = Integer.parseInt(record[posJobId]);
-                    int zoneId = Integer.parseInt(record[posZone]);
-                    String type = record[posType];
-                    MitoZone zone = dataSet.getZones().get(zoneId);
-                    if (zone == null) {
-                        logger.warn(String.format("Job %d refers to non-existing zone %d! Ignoring it.",jobId, zoneId));
-                        //return null;
-                    }
-                    try {
-                        zone.addEmployeeForType(factory.getType(type.toUpperCase().replaceAll("\"","")));
-                    } catch (IllegalArgumentException e) {
-                        //logger.error("Job Type " + type + " used in job microdata but is not defined");
-                    }
-
-                    //Coordinate coordinate = zone.getRandomCoord(MitoUtil.getRandomObject());
-                    Coordinate coordinate = (new Coordinate(Double.parseDouble(record[posJobCoordX]),
-                            Double.parseDouble(record[posJobCoordY])));
-
-                    //Coordinate coordinate = new Coordinate(Double.parseDouble(record[posJobCoordX]), Double.parseDouble(record[posJobCoordY]));
-
-                    MitoJob job = new MitoJob(zone, coordinate, jobId);
-                    dataSet.addJob(job);
-
-                    int workplace = Integer.parseInt(record[posWorkplaceId]);
-                    occupation = (dataSet.getJobs().get(workplace));
-
-                /*} else {
-                    logger.warn("Person " + id + " declared as worker does not have a valid job!");
-                }*/
-                    break;
-                case STUDENT:
-                    if(dataSet.getSchools().containsKey(school)) {
-                        occupation = (dataSet.getSchools().get(school));
-                    } else {
-                        //logger.warn("Person " + id + " declared as student does not have a valid school!");
-                    }
-                    break;
-                case UNEMPLOYED:
-                default:
-                    logger.debug("Person " + id + " does not have an occupation.");
-                    occupationCounter++;
-                    break;
-            }
+            return null;
+        }
+        MitoHousehold hh = dataSet.getHouseholds().get(hhid);
 
-            if (occupation != null){
-                if (dataSet.getTravelDistancesAuto().getTravelDistance(hh.getHomeZone().getZoneId(), occupation.getZoneId()) > 200) {
-                    occupation = null;
-                    tooLongCommuteCounter++;
-                }
-            }
+        final int age = record.getInt(posAge);
+
+        final int genderCode = record.getInt(posSex);
+        MitoGender mitoGender = MitoGender.valueOf(genderCode);
+
+        final int occupationCode = record.getInt(posOccupation);
+        MitoOccupationStatus mitoOccupationStatus = MitoOccupationStatus.valueOf(occupationCode);
 
-            MitoPerson pp = new MitoPerson(id, mitoOccupationStatus, occupation, age, mitoGender, driversLicense);
+        final int school = record.getInt(posSchoolId);
 
-            //int worker = Integer.parseInt(record[posOccupation]); //int worker = Integer.parseInt(record[posWorker]);
+        final boolean driversLicense = record.getBoolean(posLicence);
+        //final boolean driversLicense = MitoGender.obtainLicense(mitoGender, age); // new, added by Alona, Quick fix for drivers license
 
-            //if (worker == 1) {
 
+        //the SP of Germany has monthly_income
+        int monthlyIncome_EUR = record.getInt(posIncome);
 
-            //MitoPerson pp = new MitoPerson(id, mitoOccupationStatus, occupation, age, mitoGender, driversLicense);
+        final ParsedPerson parsed = new ParsedPerson(hh, monthlyIncome_EUR);
+        MitoOccupation occupation = null;
 
-            hh.addPerson(pp);
-            dataSet.addPerson(pp);
+        switch (mitoOccupationStatus) {
+            case WORKER:
+                int jobId = record.getInt(posJobId);
+                int zoneId = record.getInt(posZone);
+                String type = record.getString(posType);
+                MitoZone zone = dataSet.getZones().get(zoneId);
+                if (zone == null) {
+                    logger.warn(String.format("Job %d refers to non-existing zone %d! Ignoring it.",jobId, zoneId));
+                    //return null;
+                }
+                try {
+                    parsed.jobType = factory.getType(type.toUpperCase().replace("\"",""));
+                } catch (IllegalArgumentException e) {
+                    //logger.error("Job Type " + type + " used in job microdata but is not defined");
+                }
+
+                //Coordinate coordinate = zone.getRandomCoord(MitoUtil.getRandomObject());
+                Coordinate coordinate = (new Coordinate(record.getDouble(posJobCoordX),
+                        record.getDouble(posJobCoordY)));
+
+                parsed.job = new MitoJob(zone, coordinate, jobId);
+                parsed.jobZone = zone;
+
+                // the workplace is the job of this record (JobId column)
+                occupation = parsed.job;
+                break;
+            case STUDENT:
+                if(dataSet.getSchools().containsKey(school)) {
+                    occupation = (dataSet.getSchools().get(school));
+                } else {
+                    //logger.warn("Person " + id + " declared as student does not have a valid school!");
+                }
+                break;
+            case UNEMPLOYED:
+            default:
+                logger.debug("Person " + id + " does not have an occupation.");
+                parsed.withoutOccupation = true;
+                break;
         }
 
+        if (occupation != null){
+            if (dataSet.getTravelDistancesAuto().getTravelDistance(hh.getHomeZone().getZoneId(), occupation.getZoneId()) > 200) {
+                occupation = null;
+                parsed.tooLongCommute = true;
+            }
+        }
+
+        parsed.person = new MitoPerson(id, mitoOccupationStatus, occupation, age, mitoGender, driversLicense);
+        return parsed;
+    }
 
+    @Override
+    protected void applyRecord(ParsedPerson parsed) {
+        parsed.household.addIncome(parsed.monthlyIncome);
+        if (parsed.job != null) {
+            if (parsed.jobType != null) {
+                parsed.jobZone.addEmployeeForType(parsed.jobType);
+            }
+            dataSet.addJob(parsed.job);
+        }
+        if (parsed.withoutOccupation) {
+            occupationCounter++;
+        }
+        if (parsed.tooLongCommute) {
+            tooLongCommuteCounter++;
+        }
+        parsed.household.addPerson(parsed.person);
+        dataSet.addPerson(parsed.person);
+    }
 
+    static final class ParsedPerson {
+        private final MitoHousehold household;
+        private final int monthlyIncome;
+        private MitoPerson person;
+        private MitoJob job;
+        private MitoZone jobZone;
+        private JobType jobType;
+        private boolean withoutOccupation = false;
+        private boolean tooLongCommute = false;
+
+        private ParsedPerson(MitoHousehold household, int monthlyIncome) {
+            this.household = household;
+            this.monthlyIncome = monthlyIncome;
+        }
     }
 }
@@ -7,16 +7,23 @@ import de.tum.bgu.msm.io.input.AbstractCsvReader;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.PolygonPointSampler;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
 import org.locationtech.jts.geom.Geometry;
 import org.matsim.core.utils.gis.ShapeFileReader;
 import org.opengis.feature.simple.SimpleFeature;
 
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Nico
  */
 public class ZonesReader extends AbstractCsvReader {
 
     private static final org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(ZonesReader.class);
+    private static final int DEFAULT_RANDOM_COORDINATE_POOL_SIZE = 0;
+
     private int idIndex;
     private int areaTypeIndex;
 
@@ -28,6 +35,7 @@ public class ZonesReader extends AbstractCsvReader {
     public void read() {
         super.read(Resources.instance.getZonesInputFile().toAbsolutePath(), ",");
         mapFeaturesToZones(dataSet);
+        createRandomCoordinatePools(dataSet);
     }
 
     private static void mapFeaturesToZones(DataSet dataSet) {
@@ -46,6 +54,45 @@ public class ZonesReader extends AbstractCsvReader {
         }
     }
 
+    /**
+     * Creates the pools only if a scenario sets a positive {@link Properties#ZONE_RANDOM_COORDINATE_POOL_SIZE},
+     * by default coordinates are sampled from the geometry on every draw.
+     */
+    private static void createRandomCoordinatePools(DataSet dataSet) {
+        final int poolSize = Resources.instance.getInt(Properties.ZONE_RANDOM_COORDINATE_POOL_SIZE, DEFAULT_RANDOM_COORDINATE_POOL_SIZE);
+        if (poolSize <= 0) {
+            return;
+        }
+        createRandomCoordinatePools(dataSet.getExecutor(), dataSet.getZones().values(), poolSize,
+                Resources.instance.getInt(Properties.RANDOM_SEED));
+    }
+
+    /**
+     * Pre-samples a pool of interior points for every zone with a geometry, so that random coordinates can later
+     * be drawn without any geometric operation. Each zone uses its own random stream, which makes the pools
+     * independent of the number of threads.
+     */
+    public static void createRandomCoordinatePools(SharedExecutor executor, Collection<MitoZone> zoneCollection,
+                                                   int poolSize, long seed) {
+        final MitoZone[] zones = zoneCollection.toArray(new MitoZone[0]);
+        final AtomicInteger triangulated = new AtomicInteger();
+        executor.parallelFor(0, zones.length, 16, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                final MitoZone zone = zones[i];
+                if (zone.getGeometry() == null) {
+                    continue;
+                }
+                final PolygonPointSampler sampler = new PolygonPointSampler(zone.getGeometry());
+                if (sampler.isTriangulated()) {
+                    triangulated.incrementAndGet();
+                }
+                zone.setRandomCoordinatePool(sampler.samplePool(poolSize, MitoUtil.createRandomStream(seed, zone.getId())));
+            }
+        });
+        logger.info("  Sampled " + poolSize + " random coordinates for each zone (" + triangulated.get()
+                + " zones triangulated)");
+    }
+
     @Override
     protected void processHeader(String[] header) {
         idIndex = MitoUtil.findPositionInArray("Zone", header);
@@ -0,0 +1,289 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a table in a self-describing columnar binary format. All values are fixed width and little endian,
+ * so that a column can be read back with a single bulk copy, see
+ * {@link de.tum.bgu.msm.io.input.readers.ColumnarTableReader}.
+ * <pre>
+ * magic          8 bytes "MITOCOL1"
+ * header length  int, followed by the header:
+ *   rows         long
+ *   columns      int
+ *   per column:  name (short length + UTF-8 bytes), type (byte), compression (byte), stored length (long),
+ *                for categories the number of labels (int) followed by the labels like names
+ * data           the stored bytes of every column in header order, either the raw values or a zlib stream
+ * </pre>
+ * Missing values are stored as -1 for int and category columns and as NaN for double columns.
+ */
+public final class ColumnarTableWriter {
+
+    private static final Logger logger = Logger.getLogger(ColumnarTableWriter.class);
+
+    public static final byte[] MAGIC = "MITOCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    public enum ColumnType {
+        INT(Integer.BYTES), DOUBLE(Double.BYTES), CATEGORY(Byte.BYTES);
+
+        private final int width;
+
+        ColumnType(int width) {
+            this.width = width;
+        }
+
+        /**
+         * @return the number of bytes of a single value
+         */
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    public enum Compression {
+        NONE, DEFLATE
+    }
+
+    private final long rowCount;
+    private final Compression defaultCompression;
+    private final List<Column> columns = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+
+    /**
+     * @param defaultCompression compression of all columns that are added without explicit compression
+     */
+    public ColumnarTableWriter(int rowCount, Compression defaultCompression) {
+        this.rowCount = rowCount;
+        this.defaultCompression = defaultCompression;
+    }
+
+    public ColumnarTableWriter addIntColumn(String name, int[] values) {
+        return addIntColumn(name, values, defaultCompression);
+    }
+
+    public ColumnarTableWriter addIntColumn(String name, int[] values, Compression compression) {
+        return add(new Column(name, ColumnType.INT, compression, values, values.length, null));
+    }
+
+    public ColumnarTableWriter addDoubleColumn(String name, double[] values) {
+        return addDoubleColumn(name, values, defaultCompression);
+    }
+
+    public ColumnarTableWriter addDoubleColumn(String name, double[] values, Compression compression) {
+        return add(new Column(name, ColumnType.DOUBLE, compression, values, values.length, null));
+    }
+
+    /**
+     * Adds a column of categorical values, e.g. enum constants
+     * @param codes index of every value in the labels or -1 if there is no value
+     * @param labels names of the categories, at most {@link Byte#MAX_VALUE}
+     */
+    public ColumnarTableWriter addCategoryColumn(String name, byte[] codes, String[] labels) {
+        return addCategoryColumn(name, codes, labels, defaultCompression);
+    }
+
+    public ColumnarTableWriter addCategoryColumn(String name, byte[] codes, String[] labels, Compression compression) {
+        if (labels.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Column " + name + " has more than " + Byte.MAX_VALUE + " categories");
+        }
+        return add(new Column(name, ColumnType.CATEGORY, compression, codes, codes.length, labels.clone()));
+    }
+
+    private ColumnarTableWriter add(Column column) {
+        if (column.length != rowCount) {
+            throw new IllegalArgumentException("Column " + column.name + " has " + column.length
+                    + " values, but the table has " + rowCount + " rows");
+        }
+        if (!names.add(column.name)) {
+            throw new IllegalArgumentException("Column " + column.name + " was already added");
+        }
+        columns.add(column);
+        return this;
+    }
+
+    /**
+     * Writes the table. Compressed columns are deflated concurrently on the given executor.
+     */
+    public void write(Path file, SharedExecutor executor) {
+        final List<Callable<byte[]>> compressionTasks = new ArrayList<>();
+        for (Column column : columns) {
+            if (column.compression == Compression.DEFLATE) {
+                compressionTasks.add(column::deflate);
+            }
+        }
+        final List<byte[]> compressed = executor.invokeAll(compressionTasks);
+        int next = 0;
+        for (Column column : columns) {
+            if (column.compression == Compression.DEFLATE) {
+                column.compressed = compressed.get(next++);
+            }
+        }
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final byte[] header = createHeader();
+                final ByteBuffer start = ByteBuffer.allocate(MAGIC.length + Integer.BYTES + header.length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                start.put(MAGIC).putInt(header.length).put(header).flip();
+                writeFully(channel, start);
+
+                final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                for (Column column : columns) {
+                    if (column.compressed != null) {
+                        writeFully(channel, ByteBuffer.wrap(column.compressed));
+                    } else {
+                        column.write(channel, buffer);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not write " + file + ": " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            columns.forEach(column -> column.compressed = null);
+        }
+    }
+
+    private byte[] createHeader() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        out.write(buffer.putLong(0, rowCount).array(), 0, Long.BYTES);
+        out.write(buffer.putInt(0, columns.size()).array(), 0, Integer.BYTES);
+        for (Column column : columns) {
+            writeName(out, buffer, column.name);
+            out.write(column.type.ordinal());
+            out.write(column.compression.ordinal());
+            final long storedLength = column.compressed != null ? column.compressed.length : rowCount * column.type.getWidth();
+            out.write(buffer.putLong(0, storedLength).array(), 0, Long.BYTES);
+            if (column.type == ColumnType.CATEGORY) {
+                out.write(buffer.putInt(0, column.labels.length).array(), 0, Integer.BYTES);
+                for (String label : column.labels) {
+                    writeName(out, buffer, label);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeName(ByteArrayOutputStream out, ByteBuffer buffer, String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Name is too long: " + name);
+        }
+        out.write(buffer.putShort(0, (short) bytes.length).array(), 0, Short.BYTES);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Column {
+
+        private final String name;
+        private final ColumnType type;
+        private final Compression compression;
+        private final Object values;
+        private final int length;
+        private final String[] labels;
+        private byte[] compressed;
+
+        private Column(String name, ColumnType type, Compression compression, Object values, int length, String[] labels) {
+            this.name = name;
+            this.type = type;
+            this.compression = compression;
+            this.values = values;
+            this.length = length;
+            this.labels = labels;
+        }
+
+        /**
+         * Puts as many values starting at the given row into the buffer as fit and returns the next row
+         */
+        private int fill(ByteBuffer buffer, int row) {
+            switch (type) {
+                case INT:
+                    final int[] ints = (int[]) values;
+                    final int intCount = Math.min(buffer.remaining() / Integer.BYTES, length - row);
+                    buffer.asIntBuffer().put(ints, row, intCount);
+                    buffer.position(buffer.position() + intCount * Integer.BYTES);
+                    return row + intCount;
+                case DOUBLE:
+                    final double[] doubles = (double[]) values;
+                    final int doubleCount = Math.min(buffer.remaining() / Double.BYTES, length - row);
+                    buffer.asDoubleBuffer().put(doubles, row, doubleCount);
+                    buffer.position(buffer.position() + doubleCount * Double.BYTES);
+                    return row + doubleCount;
+                case CATEGORY:
+                    final byte[] bytes = (byte[]) values;
+                    final int byteCount = Math.min(buffer.remaining(), length - row);
+                    buffer.put(bytes, row, byteCount);
+                    return row + byteCount;
+                default:
+                    throw new IllegalStateException("Unknown column type " + type);
+            }
+        }
+
+        private void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+            int row = 0;
+            while (row < length) {
+                buffer.clear();
+                row = fill(buffer, row);
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+        }
+
+        private byte[] deflate() {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                final ByteBuffer input = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                final byte[] output = new byte[WRITE_BUFFER_SIZE];
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                int row = 0;
+                while (row < length) {
+                    input.clear();
+                    row = fill(input, row);
+                    input.flip();
+                    deflater.setInput(input);
+                    while (!deflater.needsInput()) {
+                        compressed.write(output, 0, deflater.deflate(output));
+                    }
+                }
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(output, 0, deflater.deflate(output));
+                }
+                return compressed.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -1,11 +1,8 @@
 package de.tum.bgu.msm.io.output;
 
-import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.DataSet;
-import de.tum.bgu.msm.data.MitoTrip;
 import de.tum.bgu.msm.data.Mode;
 import de.tum.bgu.msm.data.Purpose;
-import de.tum.bgu.msm.resources.Resources;
 import org.apache.log4j.Logger;
 import org.knowm.xchart.BitmapEncoder;
 import org.knowm.xchart.CategoryChart;
@@ -18,18 +15,21 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class DistancePlots {
 
     private final static Logger logger = Logger.getLogger(DistancePlots.class);
 
+    /**
+     * Writes the charts on the calling thread. Use {@link SummaryCharts} to write them in the background.
+     */
     public static void writeDistanceDistributions(DataSet dataSet, String scenarioName) {
+        SummaryCharts.prepare(dataSet, scenarioName, EnumSet.of(SummaryCharts.Chart.TRIP_LENGTHS)).render();
+    }
 
-        final String directory = Resources.instance.getBaseDirectory().toString()
-                + "/scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/tripLengths/";
+    static void writeDistanceDistributions(String directory, TripSummary summary) {
         new File(directory).mkdirs();
         logger.info("Writing trip length plots to " + directory);
 
@@ -46,12 +46,11 @@ public class DistancePlots {
         stackedChartByPurpose.getStyler().setStacked(true);
         stackedChartByPurpose.getStyler().setXAxisLabelRotation(90);
 
-        final Map<Purpose, List<MitoTrip>> tripsByPurpose = dataSet.getTrips().values().stream()
-                .filter(trip -> trip.getTripOrigin() != null && trip.getTripDestination() != null)
-                .collect(Collectors.groupingBy(MitoTrip::getTripPurpose));
+        final double[] binCenters = TripSummary.DistanceHistogram.getBinCenters();
 
         for(Purpose purpose: Purpose.values()) {
-            if(tripsByPurpose.containsKey(purpose)) {
+            final TripSummary.DistanceHistogram histogram = summary.distancesByPurpose[purpose.ordinal()];
+            if(histogram.getCount() > 0) {
 
                 // Create Chart
                 CategoryChart individualChart = new CategoryChartBuilder().width(800).height(600).xAxisTitle("Trip Length").yAxisTitle("Frequency").theme(Styler.ChartTheme.GGPlot2).build();
@@ -61,17 +60,9 @@ public class DistancePlots {
                 individualChart.getStyler().setAvailableSpaceFill(1);
                 individualChart.getStyler().setXAxisLabelRotation(90);
 
-                List<Double> distances = new ArrayList<>();
-                for (MitoTrip t : tripsByPurpose.get(purpose)) {
-                    double travelDistance = dataSet.getTravelDistancesAuto()
-                            .getTravelDistance(t.getTripOrigin().getZoneId(), t.getTripDestination().getZoneId());
-                    distances.add(travelDistance);
-                }
-                Histogram histogram = new Histogram(distances, 50, 0, 100);
-                stackedChartByPurpose.addSeries(purpose.name(), histogram.getxAxisData(), histogram.getyAxisData());
-                individualChart.addSeries(purpose.name(), histogram.getxAxisData(), histogram.getyAxisData());
-                double avg = Stats.meanOf(distances);
-                individualChart.setTitle("Trip Length Frequency Distribution - " + purpose.name() + " - Avg: " + avg);
+                stackedChartByPurpose.addSeries(purpose.name(), binCenters, histogram.getFrequencies());
+                individualChart.addSeries(purpose.name(), binCenters, histogram.getFrequencies());
+                individualChart.setTitle("Trip Length Frequency Distribution - " + purpose.name() + " - Avg: " + histogram.getMean());
                 individualChartsByPurpose.add(individualChart);
             }
         }
@@ -87,12 +78,9 @@ public class DistancePlots {
         stackedChartByMode.getStyler().setStacked(true);
         stackedChartByMode.getStyler().setXAxisLabelRotation(90);
 
-        final Map<Mode, List<MitoTrip>> tripsByMode = dataSet.getTrips().values().stream()
-                .filter(trip -> trip.getTripOrigin() != null && trip.getTripDestination() != null)
-                .collect(Collectors.groupingBy(MitoTrip::getTripMode));
-
         for(Mode mode: Mode.values()) {
-            if(tripsByMode.containsKey(mode)) {
+            final TripSummary.DistanceHistogram histogram = summary.distancesByMode[mode.ordinal()];
+            if(histogram.getCount() > 0) {
 
                 // Create Chart
                 CategoryChart individualChart = new CategoryChartBuilder().width(800).height(600).xAxisTitle("Trip Length").yAxisTitle("Frequency").theme(Styler.ChartTheme.GGPlot2).build();
@@ -102,18 +90,10 @@ public class DistancePlots {
                 individualChart.getStyler().setAvailableSpaceFill(1);
                 individualChart.getStyler().setXAxisLabelRotation(90);
 
-                List<Double> distances = new ArrayList<>();
-                for (MitoTrip t : tripsByMode.get(mode)) {
-                    double travelDistance = dataSet.getTravelDistancesAuto()
-                            .getTravelDistance(t.getTripOrigin().getZoneId(), t.getTripDestination().getZoneId());
-                    distances.add(travelDistance);
-                }
-                Histogram histogram = new Histogram(distances, 50, 0, 100);
-                stackedChartByMode.addSeries(mode.name(), histogram.getxAxisData(), histogram.getyAxisData());
-
-                individualChart.addSeries(mode.name(), histogram.getxAxisData(), histogram.getyAxisData());
-                double avg = Stats.meanOf(distances);
-                individualChart.setTitle("Trip Length Frequency Distribution - " + mode.name() + " - Avg: " + avg);
+                stackedChartByMode.addSeries(mode.name(), binCenters, histogram.getFrequencies());
+
+                individualChart.addSeries(mode.name(), binCenters, histogram.getFrequencies());
+                individualChart.setTitle("Trip Length Frequency Distribution - " + mode.name() + " - Avg: " + histogram.getMean());
                 individualChartsByMode.add(individualChart);
             }
         }
@@ -0,0 +1,255 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.MicroLocation;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.output.TripCsvWriter.AsciiBuffer;
+import de.tum.bgu.msm.modules.plansConverter.MatsimActivityTypes;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import static de.tum.bgu.msm.io.output.TripCsvWriter.finish;
+import static de.tum.bgu.msm.io.output.TripCsvWriter.writeFully;
+
+/**
+ * Writes MATSim plans (population_v6 format) directly from the trip subsample, without creating a MATSim
+ * {@link org.matsim.api.core.v01.population.Population}. Every trip with a MATSim mode becomes a person with a single
+ * plan in the same way as in {@link de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator}: the origin
+ * activity, a leg and the destination activity, followed by a leg back to the origin for home based trips.
+ * <p>
+ * Like {@link TripCsvWriter}, trips are formatted in chunks on the {@link SharedExecutor}. The chunks are taken from
+ * the trip subsample while it is iterated, so only the trips of the pending chunks are referenced at a time. Every chunk draws random coordinates and end times from its own random stream, so the
+ * file does not depend on the number of threads. Files ending with .gz are written as concatenated gzip members.
+ */
+public final class MatsimPlansWriter {
+
+    private static final Logger logger = Logger.getLogger(MatsimPlansWriter.class);
+
+    static final String HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<!DOCTYPE population SYSTEM \"http://www.matsim.org/files/dtd/population_v6.dtd\">\n\n"
+            + "<population>\n\n";
+    static final String FOOTER = "</population>\n";
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final DataSet dataSet;
+    private final MatsimActivityTypes activityTypes;
+    private final String[] matsimModes = new String[Mode.values().length];
+    private final ThreadLocal<AsciiBuffer> buffers = ThreadLocal.withInitial(() -> new AsciiBuffer(1 << 20));
+
+    /**
+     * @param modes modes of the trips that are written, trips with other modes are ignored
+     */
+    public MatsimPlansWriter(DataSet dataSet, Set<Mode> modes, MatsimActivityTypes activityTypes) {
+        this.dataSet = dataSet;
+        this.activityTypes = activityTypes;
+        for (Mode mode : modes) {
+            matsimModes[mode.ordinal()] = Mode.getMatsimMode(mode);
+        }
+    }
+
+    public void write(Path file) {
+        final long start = System.currentTimeMillis();
+        final boolean gzip = file.getFileName().toString().endsWith(".gz");
+        // a single draw from the model's random object, every chunk then gets its own stream
+        final long seed = MitoUtil.getRandomObject().nextLong();
+
+        final SharedExecutor executor = dataSet.getExecutor();
+        final int maxPendingChunks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        final Chunk total = new Chunk(null, 0, 0);
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, finish(text(HEADER), gzip));
+
+                final Iterator<MitoTrip> trips = dataSet.getTripSubsample().values().iterator();
+                for (int chunk = 0; trips.hasNext(); chunk++) {
+                    final MitoTrip[] chunkTrips = new MitoTrip[CHUNK_SIZE];
+                    int size = 0;
+                    while (size < CHUNK_SIZE && trips.hasNext()) {
+                        chunkTrips[size++] = trips.next();
+                    }
+                    final int chunkSize = size;
+                    final int chunkIndex = chunk;
+                    pending.add(executor.submit(() -> {
+                        final AsciiBuffer buffer = buffers.get();
+                        buffer.clear();
+                        final Random random = MitoUtil.createRandomStream(seed, chunkIndex);
+                        int persons = 0;
+                        int notAssigned = 0;
+                        for (int i = 0; i < chunkSize; i++) {
+                            final MitoTrip trip = chunkTrips[i];
+                            final Mode mode = trip.getTripMode();
+                            if (mode == null || matsimModes[mode.ordinal()] == null) {
+                                continue;
+                            }
+                            if (appendPerson(buffer, trip, matsimModes[mode.ordinal()], random)) {
+                                persons++;
+                            } else {
+                                notAssigned++;
+                            }
+                        }
+                        return new Chunk(finish(buffer, gzip), persons, notAssigned);
+                    }));
+                    while (pending.size() >= maxPendingChunks) {
+                        total.add(channel, SharedExecutor.await(pending.poll()));
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    total.add(channel, SharedExecutor.await(pending.poll()));
+                }
+                writeFully(channel, finish(text(FOOTER), gzip));
+            }
+        } catch (IOException e) {
+            logger.error("Could not write MATSim plans to " + file + ": " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        logger.warn(total.notAssigned + " trips do not have trip origin, destination or purpose and cannot be assigned in MATSim");
+        logger.info("  Wrote " + total.persons + " MATSim agents to " + file + " in "
+                + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+
+    /**
+     * Appends the person of a trip, random values are drawn in the order of {@link
+     * de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator}
+     * @return false if the trip cannot be assigned
+     */
+    private boolean appendPerson(AsciiBuffer buffer, MitoTrip trip, String matsimMode, Random random) {
+        final Location origin = trip.getTripOrigin();
+        final Location destination = trip.getTripDestination();
+        final Purpose purpose = trip.getTripPurpose();
+        if (origin == null || destination == null || purpose == null) {
+            return false;
+        }
+        final MitoZone originZone = dataSet.getZones().get(origin.getZoneId());
+        final MitoZone destinationZone = dataSet.getZones().get(destination.getZoneId());
+        Coordinate originCoordinate = getMicroLocation(origin);
+        Coordinate destinationCoordinate = getMicroLocation(destination);
+        if ((originZone == null && originCoordinate == null) || (destinationZone == null && destinationCoordinate == null)) {
+            return false;
+        }
+
+        if (originCoordinate == null) {
+            originCoordinate = originZone.getRandomCoord(random);
+        }
+        final double originEndTime = trip.getDepartureInMinutes() * 60 + random.nextDouble() * 60;
+        if (destinationCoordinate == null) {
+            destinationCoordinate = destinationZone.getRandomCoord(random);
+        }
+        final String originActivity = activityTypes.getOriginActivity(purpose, origin.getZoneId());
+        final String destinationActivity = activityTypes.getDestinationActivity(purpose, destination.getZoneId());
+
+        buffer.append("\t<person id=\"").append(trip.getId()).append("\">\n");
+        buffer.append("\t\t<plan selected=\"yes\">\n");
+        appendActivity(buffer, originActivity, originCoordinate.x, originCoordinate.y);
+        appendEndTime(buffer, originEndTime);
+        appendLeg(buffer, matsimMode);
+        appendActivity(buffer, destinationActivity, destinationCoordinate.x, destinationCoordinate.y);
+        if (purpose.isHomeBased()) {
+            appendEndTime(buffer, trip.getDepartureInMinutesReturnTrip() * 60 + random.nextDouble() * 60);
+            appendLeg(buffer, matsimMode);
+            appendActivity(buffer, originActivity, originCoordinate.x, originCoordinate.y);
+        }
+        buffer.append(" />\n");
+        buffer.append("\t\t</plan>\n");
+        buffer.append("\t</person>\n\n");
+        return true;
+    }
+
+    /**
+     * @return the coordinate of a micro location or null if the location is a zone
+     */
+    private static Coordinate getMicroLocation(Location location) {
+        return location instanceof MicroLocation ? ((MicroLocation) location).getCoordinate() : null;
+    }
+
+    /**
+     * Appends the start of an activity element, which is closed by the next element
+     */
+    static void appendActivity(AsciiBuffer buffer, String type, double x, double y) {
+        buffer.append("\t\t\t<activity type=\"").append(type)
+                .append("\" x=\"").append(x).append("\" y=\"").append(y).append('"');
+    }
+
+    static void appendEndTime(AsciiBuffer buffer, double seconds) {
+        buffer.append(" end_time=\"");
+        appendTime(buffer, seconds);
+        buffer.append('"');
+    }
+
+    private static void appendLeg(AsciiBuffer buffer, String mode) {
+        buffer.append(" />\n\t\t\t<leg mode=\"").append(mode).append("\" />\n");
+    }
+
+    /**
+     * Appends the time as hh:mm:ss like org.matsim.core.utils.misc.Time#writeTime, fractions of seconds are cut off
+     */
+    static void appendTime(AsciiBuffer buffer, double seconds) {
+        if (seconds < 0) {
+            buffer.append('-');
+            seconds = -seconds;
+        }
+        final long time = (long) seconds;
+        final long hours = time / 3600;
+        if (hours < 10) {
+            buffer.append('0');
+        }
+        buffer.append(Long.toString(hours)).append(':');
+        appendTwoDigits(buffer, (int) (time % 3600 / 60));
+        buffer.append(':');
+        appendTwoDigits(buffer, (int) (time % 60));
+    }
+
+    private static void appendTwoDigits(AsciiBuffer buffer, int value) {
+        buffer.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    static AsciiBuffer text(String text) {
+        final AsciiBuffer buffer = new AsciiBuffer(text.length());
+        buffer.append(text);
+        return buffer;
+    }
+
+    private static final class Chunk {
+        private final byte[] bytes;
+        private int persons;
+        private int notAssigned;
+
+        private Chunk(byte[] bytes, int persons, int notAssigned) {
+            this.bytes = bytes;
+            this.persons = persons;
+            this.notAssigned = notAssigned;
+        }
+
+        private void add(FileChannel channel, Chunk chunk) throws IOException {
+            writeFully(channel, chunk.bytes);
+            persons += chunk.persons;
+            notAssigned += chunk.notAssigned;
+        }
+    }
+}
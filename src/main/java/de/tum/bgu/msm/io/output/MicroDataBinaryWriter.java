@@ -0,0 +1,214 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoPerson;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.TripTable;
+import de.tum.bgu.msm.io.output.ColumnarTableWriter.Compression;
+import org.apache.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes the micro data of trips, households and persons in the columnar binary format of
+ * {@link ColumnarTableWriter}. The columns are the same as in the csv files written by {@link SummarizeData},
+ * with -1 and NaN for missing values. Coordinates are only stored for micro locations.
+ * Use {@link de.tum.bgu.msm.io.input.readers.ColumnarTableReader} to read the files.
+ */
+public final class MicroDataBinaryWriter {
+
+    private static final Logger logger = Logger.getLogger(MicroDataBinaryWriter.class);
+
+    public static final String FILE_EXTENSION = ".mcol";
+
+    private static final String[] PURPOSE_LABELS = Arrays.stream(Purpose.values()).map(Enum::name).toArray(String[]::new);
+    private static final String[] MODE_LABELS = Arrays.stream(Mode.values()).map(Enum::name).toArray(String[]::new);
+    private static final String[] TIME_COLUMNS = {"time_auto", "time_bus", "time_train", "time_tram_metro"};
+
+    private final DataSet dataSet;
+    private final Compression compression;
+
+    /**
+     * @param compress whether columns other than coordinates should be deflated
+     */
+    public MicroDataBinaryWriter(DataSet dataSet, boolean compress) {
+        this.dataSet = dataSet;
+        this.compression = compress ? Compression.DEFLATE : Compression.NONE;
+    }
+
+    /**
+     * Returns the path of the binary file next to the given csv file
+     */
+    public static Path toBinaryPath(Path csvPath) {
+        final String fileName = csvPath.getFileName().toString();
+        final String baseName = fileName.endsWith(".csv") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        return csvPath.resolveSibling(baseName + FILE_EXTENSION);
+    }
+
+    /**
+     * @param trips the trips of the data set, see {@link TripTable#fromTrips(java.util.Collection, boolean)}
+     */
+    public void writeTrips(TripTable trips, Path file) {
+        final long start = System.currentTimeMillis();
+        final TripSkimValues skims = new TripSkimValues(dataSet);
+        final int size = trips.size();
+
+        final int[] ids = new int[size];
+        final int[] origins = new int[size];
+        final double[] originX = new double[size];
+        final double[] originY = new double[size];
+        final int[] destinations = new int[size];
+        final double[] destinationX = new double[size];
+        final double[] destinationY = new double[size];
+        final byte[] purposes = new byte[size];
+        final int[] persons = new int[size];
+        final double[] distances = new double[size];
+        final double[][] times = new double[TripSkimValues.TIME_MODES.length][size];
+        final byte[] modes = new byte[size];
+        final int[] departures = new int[size];
+        final int[] returnDepartures = new int[size];
+
+        dataSet.getExecutor().parallelFor(0, size, 4096, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                final int id = trips.getId(row);
+                final int origin = trips.getOriginZone(row);
+                final int destination = trips.getDestinationZone(row);
+                ids[row] = id;
+                origins[row] = origin;
+                originX[row] = trips.getOriginX(row);
+                originY[row] = trips.getOriginY(row);
+                destinations[row] = destination;
+                destinationX[row] = trips.getDestinationX(row);
+                destinationY[row] = trips.getDestinationY(row);
+                purposes[row] = (byte) trips.getPurposeOrdinal(row);
+                persons[row] = trips.getPersonId(row);
+                if (origin != TripTable.NO_VALUE && destination != TripTable.NO_VALUE) {
+                    distances[row] = skims.getDistance(origin, destination);
+                    for (int mode = 0; mode < times.length; mode++) {
+                        times[mode][row] = skims.getTravelTime(mode, id, origin, destination);
+                    }
+                } else {
+                    distances[row] = Double.NaN;
+                    for (double[] time : times) {
+                        time[row] = Double.NaN;
+                    }
+                }
+                modes[row] = (byte) trips.getModeOrdinal(row);
+                departures[row] = trips.getDepartureInMinutes(row);
+                returnDepartures[row] = trips.getDepartureInMinutesReturnTrip(row);
+            }
+        });
+
+        final ColumnarTableWriter writer = new ColumnarTableWriter(size, compression)
+                .addIntColumn("id", ids)
+                .addIntColumn("origin", origins)
+                .addDoubleColumn("originX", originX, Compression.NONE)
+                .addDoubleColumn("originY", originY, Compression.NONE)
+                .addIntColumn("destination", destinations)
+                .addDoubleColumn("destinationX", destinationX, Compression.NONE)
+                .addDoubleColumn("destinationY", destinationY, Compression.NONE)
+                .addCategoryColumn("purpose", purposes, PURPOSE_LABELS)
+                .addIntColumn("person", persons)
+                .addDoubleColumn("distance", distances);
+        for (int mode = 0; mode < times.length; mode++) {
+            writer.addDoubleColumn(TIME_COLUMNS[mode], times[mode]);
+        }
+        writer.addCategoryColumn("mode", modes, MODE_LABELS)
+                .addIntColumn("departure_time", departures)
+                .addIntColumn("departure_time_return", returnDepartures)
+                .write(file, dataSet.getExecutor());
+        logger.info("  Wrote " + size + " trips to " + file + " in "
+                + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+
+    /**
+     * Writes all households with a home zone
+     */
+    public void writeHouseholds(Path file) {
+        final int capacity = dataSet.getHouseholds().size();
+        final int[] ids = new int[capacity];
+        final int[] zones = new int[capacity];
+        final double[] homeX = new double[capacity];
+        final double[] homeY = new double[capacity];
+        final int[] sizes = new int[capacity];
+        final int[] autos = new int[capacity];
+        final int[] trips = new int[capacity];
+        final int[] workTrips = new int[capacity];
+
+        int row = 0;
+        for (MitoHousehold household : dataSet.getHouseholds().values()) {
+            final MitoZone homeZone = household.getHomeZone();
+            if (homeZone == null) {
+                logger.warn("Skipping household " + household.getId() + " as no home zone is defined");
+                continue;
+            }
+            ids[row] = household.getId();
+            zones[row] = homeZone.getId();
+            homeX[row] = household.getHomeLocation() == null ? Double.NaN : household.getHomeLocation().x;
+            homeY[row] = household.getHomeLocation() == null ? Double.NaN : household.getHomeLocation().y;
+            sizes[row] = household.getHhSize();
+            autos[row] = household.getAutos();
+            trips[row] = countTrips(household);
+            workTrips[row] = household.getTripsForPurpose(Purpose.HBW).size();
+            row++;
+        }
+
+        new ColumnarTableWriter(row, compression)
+                .addIntColumn("id", Arrays.copyOf(ids, row))
+                .addIntColumn("zone", Arrays.copyOf(zones, row))
+                .addDoubleColumn("homeX", Arrays.copyOf(homeX, row), Compression.NONE)
+                .addDoubleColumn("homeY", Arrays.copyOf(homeY, row), Compression.NONE)
+                .addIntColumn("hhSize", Arrays.copyOf(sizes, row))
+                .addIntColumn("autos", Arrays.copyOf(autos, row))
+                .addIntColumn("trips", Arrays.copyOf(trips, row))
+                .addIntColumn("workTrips", Arrays.copyOf(workTrips, row))
+                .write(file, dataSet.getExecutor());
+        logger.info("  Wrote " + row + " households to " + file);
+    }
+
+    public void writePersons(Path file) {
+        int size = 0;
+        for (MitoHousehold household : dataSet.getHouseholds().values()) {
+            size += household.getPersons().size();
+        }
+        final int[] ids = new int[size];
+        final int[] householdIds = new int[size];
+        final int[] householdSizes = new int[size];
+        final int[] householdTrips = new int[size];
+        final int[] averageTrips = new int[size];
+
+        int row = 0;
+        for (MitoHousehold household : dataSet.getHouseholds().values()) {
+            final int trips = countTrips(household);
+            for (MitoPerson person : household.getPersons().values()) {
+                ids[row] = person.getId();
+                householdIds[row] = household.getId();
+                householdSizes[row] = household.getHhSize();
+                householdTrips[row] = trips;
+                averageTrips[row] = trips / household.getHhSize();
+                row++;
+            }
+        }
+
+        new ColumnarTableWriter(size, compression)
+                .addIntColumn("id", ids)
+                .addIntColumn("hhID", householdIds)
+                .addIntColumn("hhSize", householdSizes)
+                .addIntColumn("hhTrips", householdTrips)
+                .addIntColumn("avTrips", averageTrips)
+                .write(file, dataSet.getExecutor());
+        logger.info("  Wrote " + size + " persons to " + file);
+    }
+
+    private static int countTrips(MitoHousehold household) {
+        int trips = 0;
+        for (Purpose purpose : Purpose.values()) {
+            trips += household.getTripsForPurpose(purpose).size();
+        }
+        return trips;
+    }
+}
@@ -3,7 +3,6 @@ package de.tum.bgu.msm.io.output;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.Mode;
 import de.tum.bgu.msm.data.Purpose;
-import de.tum.bgu.msm.resources.Resources;
 import org.apache.log4j.Logger;
 import org.knowm.xchart.BitmapEncoder;
 import org.knowm.xchart.PieChartBuilder;
@@ -14,16 +13,26 @@ import org.knowm.xchart.style.Styler;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 public final class ModeChoicePlots {
 
     private final static Logger logger = Logger.getLogger(ModeChoicePlots.class);
 
 
+    /**
+     * Writes the charts on the calling thread. Use {@link SummaryCharts} to write them in the background.
+     */
     public static void writeModeChoice(DataSet dataSet, String scenarioName) {
-        final String directory = Resources.instance.getBaseDirectory().toString()
-                + "/scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/modeChoice/";
+        SummaryCharts.prepare(dataSet, scenarioName, EnumSet.of(SummaryCharts.Chart.MODE_CHOICE)).render();
+    }
+
+    /**
+     * @param modeShares shares of all modes with a share by purpose
+     */
+    static void writeModeChoice(String directory, Map<Purpose, Map<Mode, Double>> modeShares) {
         new File(directory).mkdirs();
         logger.info("Writing mode choice plots to " + directory);
         List<Chart> charts = new ArrayList<>();
@@ -37,13 +46,10 @@ public final class ModeChoicePlots {
             chart.getStyler().setAnnotationDistance(1.2);
             // Customize Chart
 
-            for (Mode mode : Mode.values()) {
-                Double share = dataSet.getModeShareForPurpose(purpose, mode);
-                if (share != null) {
-                    logger.info("Mode " + mode + ": " + share + " share");
-                    // Series
-                    chart.addSeries(mode.name(), (int) (dataSet.getModeShareForPurpose(purpose, mode) * 100));
-                }
+            for (Map.Entry<Mode, Double> share : modeShares.get(purpose).entrySet()) {
+                logger.info("Mode " + share.getKey() + ": " + share.getValue() + " share");
+                // Series
+                chart.addSeries(share.getKey().name(), (int) (share.getValue() * 100));
             }
             charts.add(chart);
         }
@@ -0,0 +1,55 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.profiling.ModuleProfiler;
+import org.apache.log4j.Logger;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Writes the per-module profiles of a run as csv next to the other scenario outputs.
+ */
+public class RunReportWriter {
+
+    private static final Logger logger = Logger.getLogger(RunReportWriter.class);
+
+    /**
+     * Writes the report if profiling is enabled. The report is written from the finally block of the travel demand
+     * generators, so a failure to write it is only logged and never replaces the failure of a module.
+     */
+    public static void writeRunReport(DataSet dataSet, String scenarioName, ModuleProfiler profiler) {
+        if (!profiler.isEnabled() || profiler.getProfiles().isEmpty()) {
+            return;
+        }
+        try {
+            write(dataSet, scenarioName, profiler);
+        } catch (RuntimeException e) {
+            logger.error("Could not write run report: " + e.getMessage(), e);
+        }
+    }
+
+    private static void write(DataSet dataSet, String scenarioName, ModuleProfiler profiler) {
+        String file = Resources.instance.getBaseDirectory().toString() + "/scenOutput/" + scenarioName + "/"
+                + dataSet.getYear() + "/runReport.csv";
+        PrintWriter pw = MitoUtil.openFileForSequentialWriting(file, false);
+        if (pw == null) {
+            return;
+        }
+        pw.println("module,wallTime_s,cpuTime_s,allocated_bytes,peakHeap_bytes,trips,tripsPerSecond");
+        for (ModuleProfiler.ModuleProfile profile : profiler.getProfiles()) {
+            pw.println(String.format(Locale.US, "%s,%.3f,%.3f,%d,%d,%d,%.1f",
+                    profile.getName(),
+                    profile.getWallTime_ns() / 1e9,
+                    profile.getCpuTime_ns() / 1e9,
+                    profile.getAllocatedBytes(),
+                    profile.getPeakHeapBytes(),
+                    profile.getTrips(),
+                    profile.getTripsPerSecond()));
+        }
+        pw.close();
+        logger.info("Wrote run report to " + file);
+    }
+}
@@ -1,20 +1,18 @@
 package de.tum.bgu.msm.io.output;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
-import com.google.common.math.Stats;
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.modules.plansConverter.MatsimActivityTypes;
+import de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.charts.Histogram;
 import de.tum.bgu.msm.util.charts.ScatterPlot;
-import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.population.PopulationWriter;
-import org.matsim.core.utils.geometry.CoordUtils;
 
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -26,6 +24,19 @@ public class SummarizeData {
     private static final org.apache.log4j.Logger LOGGER = org.apache.log4j.Logger.getLogger(SummarizeData.class);
 
     public static void writeOutSyntheticPopulationWithTrips(DataSet dataSet) {
+        if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA_BINARY, false)) {
+            LOGGER.info("  Writing binary household and person files");
+            MicroDataBinaryWriter writer = new MicroDataBinaryWriter(dataSet,
+                    Resources.instance.getBoolean(Properties.COMPRESS_MICRO_DATA, false));
+            writer.writeHouseholds(MicroDataBinaryWriter.toBinaryPath(Resources.instance.getOutputHouseholdPath()));
+            writer.writePersons(MicroDataBinaryWriter.toBinaryPath(Resources.instance.getOutputPersonsPath()));
+        }
+        if (Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA_CSV, true)) {
+            writeOutSyntheticPopulationWithTripsAsCsv(dataSet);
+        }
+    }
+
+    private static void writeOutSyntheticPopulationWithTripsAsCsv(DataSet dataSet) {
 
         LOGGER.info("  Writing household file");
         Path filehh = Resources.instance.getOutputHouseholdPath();
@@ -35,7 +46,7 @@ public class SummarizeData {
             final MitoZone homeZone = hh.getHomeZone();
             if(homeZone == null) {
                 LOGGER.warn("Skipping household " + hh.getId() + " as no home zone is defined");
-                break;
+                continue;
             }
             pwh.print(hh.getId());
             pwh.print(",");
@@ -85,179 +96,79 @@ public class SummarizeData {
 
         LOGGER.info("  Writing trips file");
         String file = Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/microData/trips.csv";
-        PrintWriter pwh = MitoUtil.openFileForSequentialWriting(file, false);
-        pwh.println("id,origin,originX,originY,destination,destinationX,destinationY,purpose,person,distance,time_auto,time_bus,time_train,time_tram_metro,mode,departure_time,departure_time_return");
-        for (MitoTrip trip : dataSet.getTrips().values()) {
-            pwh.print(trip.getId());
-            pwh.print(",");
-            Location origin = trip.getTripOrigin();
-            String originId = "null";
-            if(origin != null) {
-                originId = String.valueOf(origin.getZoneId());
-            }
-            pwh.print(originId);
-            pwh.print(",");
-
-            if(origin instanceof MicroLocation){
-                pwh.print(((MicroLocation) origin).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) origin).getCoordinate().y);
-                pwh.print(",");
-            } else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        origin != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
-                }
-            }
-
-            Location destination = trip.getTripDestination();
-            String destinationId = "null";
-            if(destination != null) {
-                destinationId = String.valueOf(destination.getZoneId());
-            }
-            pwh.print(destinationId);
-            pwh.print(",");
-            if(destination instanceof MicroLocation){
-                pwh.print(((MicroLocation) destination).getCoordinate().x);
-                pwh.print(",");
-                pwh.print(((MicroLocation) destination).getCoordinate().y);
-                pwh.print(",");
-            }else{
-                if (Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false) &&
-                        destination != null){
-                    Coord coordinate = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    pwh.print(coordinate.getX());
-                    pwh.print(",");
-                    pwh.print(coordinate.getY());
-                    pwh.print(",");
-                } else {
-                    pwh.print("null");
-                    pwh.print(",");
-                    pwh.print("null");
-                    pwh.print(",");
-                }
-            }
-
-            pwh.print(trip.getTripPurpose());
-            pwh.print(",");
-            pwh.print(trip.getPerson().getId());
-            pwh.print(",");
-            if(origin != null && destination != null) {
-                double distance = dataSet.getTravelDistancesAuto().getTravelDistance(origin.getZoneId(), destination.getZoneId());
-                pwh.print(distance);
-                pwh.print(",");
-                double timeAuto = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "car");
-                pwh.print(timeAuto);
-                pwh.print(",");
-                double timeBus = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "bus");
-                pwh.print(timeBus);
-                pwh.print(",");
-                double timeTrain = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "train");
-                pwh.print(timeTrain);
-                pwh.print(",");
-                double timeTramMetro = dataSet.getTravelTimes().getTravelTime(origin, destination, dataSet.getPeakHour(), "tramMetro");
-                pwh.print(timeTramMetro);
-            } else {
-                pwh.print("NA,NA,NA,NA,NA");
-            }
-            pwh.print(",");
-            pwh.print(trip.getTripMode());
-            pwh.print(",");
-            pwh.print(trip.getDepartureInMinutes());
-            int departureOfReturnTrip = trip.getDepartureInMinutesReturnTrip();
-            if (departureOfReturnTrip != -1){
-                pwh.print(",");
-                pwh.println(departureOfReturnTrip);
-            } else {
-                pwh.print(",");
-                pwh.println("NA");
-            }
-
+        boolean gzip = Resources.instance.getBoolean(Properties.COMPRESS_MICRO_DATA, false);
+        boolean binary = Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA_BINARY, false);
+        boolean csv = Resources.instance.getBoolean(Properties.PRINT_MICRO_DATA_CSV, true);
+        if (!binary && !csv) {
+            return;
         }
-        pwh.close();
-    }
-
-
-    private static void writeCharts(DataSet dataSet, Purpose purpose, String scenarioName) {
-        String outputSubDirectory = "scenOutput/" + scenarioName + "/";
-
-        List<Double> travelTimes = new ArrayList<>();
-//        List<Double> travelDistances = new ArrayList<>();
-        Map<Integer, List<Double>> distancesByZone = new HashMap<>();
-        Multiset<MitoZone> tripsByZone = HashMultiset.create();
-
-        for (MitoTrip trip : dataSet.getTrips().values()) {
-            final Location tripOrigin = trip.getTripOrigin();
-            if (trip.getTripPurpose() == purpose && tripOrigin != null && trip.getTripDestination() != null) {
-                travelTimes.add(dataSet.getTravelTimes().getTravelTime(tripOrigin, trip.getTripDestination(), dataSet.getPeakHour(), "car"));
-                double travelDistance = dataSet.getTravelDistancesAuto().getTravelDistance(tripOrigin.getZoneId(), trip.getTripDestination().getZoneId());
-//                travelDistances.add(travelDistance);
-                tripsByZone.add(dataSet.getZones().get(tripOrigin.getZoneId()));
-                if(distancesByZone.containsKey(tripOrigin.getZoneId())){
-                    distancesByZone.get(tripOrigin.getZoneId()).add(travelDistance);
-                } else {
-                    List<Double> values = new ArrayList<>();
-                    values.add(travelDistance);
-                    distancesByZone.put(tripOrigin.getZoneId(), values);
-                }
-            }
+        // the trips are copied into columns once for both formats, the copy is dropped when the files are written
+        TripTable trips = TripTable.fromTrips(dataSet.getTrips().values(), true);
+        if (binary) {
+            new MicroDataBinaryWriter(dataSet, gzip).writeTrips(trips, MicroDataBinaryWriter.toBinaryPath(Paths.get(file)));
         }
-
-        double[] travelTimesArray = new double[travelTimes.size()];
-        int i = 0;
-        for (Double value : travelTimes) {
-            travelTimesArray[i] = value;
-            i++;
+        if (csv) {
+            boolean fillMicroLocations = Resources.instance.getBoolean(Properties.FILL_MICRO_DATA_WITH_MICROLOCATION, false);
+            new TripCsvWriter(dataSet, fillMicroLocations).write(trips, Paths.get(gzip ? file + ".gz" : file), gzip);
         }
-
-//        double[] travelDistancesArray = new double[travelTimes.size()];
-//        i= 0;
-//        for(Double value: travelDistances) {
-//            travelDistancesArray[i] = value;
-//            i++;
-//        }
-        Histogram.createFrequencyHistogram(Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/timeDistribution/tripTimeDistribution"+ purpose, travelTimesArray, "Travel Time Distribution " + purpose, "Time", "Frequency", 80, 0, 80);
+    }
 
 
-        Map<Double, Double> averageDistancesByZone = new HashMap<>();
-        for(Map.Entry<Integer, List<Double>> entry: distancesByZone.entrySet()) {
-            averageDistancesByZone.put(Double.valueOf(entry.getKey()), Stats.meanOf(entry.getValue()));
+    /**
+     * Writes the travel time histogram, the trips by zone and the average trip distance by zone of a purpose
+     * @param directory the output directory of the scenario year
+     */
+    static void writeCharts(String directory, TripSummary summary, Purpose purpose) {
+        Histogram.createFrequencyHistogram(directory + "timeDistribution/tripTimeDistribution" + purpose,
+                summary.carTravelTimesByPurpose[purpose.ordinal()], "Travel Time Distribution " + purpose, "Time", "Frequency", 80, 0, 80);
+
+        final int[] tripsByZone = summary.tripsByPurposeAndZone[purpose.ordinal()];
+        final double[] distanceSumByZone = summary.distanceSumByPurposeAndZone[purpose.ordinal()];
+        Map<Double, Double> averageDistancesByZone = new LinkedHashMap<>();
+        for (int zone = 0; zone < summary.zones.length; zone++) {
+            if (tripsByZone[zone] > 0) {
+                averageDistancesByZone.put((double) summary.zones[zone].getId(), distanceSumByZone[zone] / tripsByZone[zone]);
+            }
         }
-        PrintWriter pw1 = MitoUtil.openFileForSequentialWriting(Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() + "/distanceDistribution/tripsByZone"+purpose+".csv", false);
+        PrintWriter pw1 = MitoUtil.openFileForSequentialWriting(directory + "distanceDistribution/tripsByZone" + purpose + ".csv", false);
         pw1.println("id,number_trips");
-        for(MitoZone zone: dataSet.getZones().values()) {
-            pw1.println(zone.getId()+","+tripsByZone.count(zone));
+        for (int zone = 0; zone < summary.zones.length; zone++) {
+            pw1.println(summary.zones[zone].getId() + "," + tripsByZone[zone]);
         }
         pw1.close();
-        PrintWriter pw = MitoUtil.openFileForSequentialWriting(Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() +  "/distanceDistribution/averageZoneDistanceTable"+purpose+".csv", false);
+        PrintWriter pw = MitoUtil.openFileForSequentialWriting(directory + "distanceDistribution/averageZoneDistanceTable" + purpose + ".csv", false);
         pw.println("id,avTripDistance");
-        for(Map.Entry<Double, Double> entry: averageDistancesByZone.entrySet()) {
-            pw.println(entry.getKey().intValue()+","+entry.getValue());
+        for (Map.Entry<Double, Double> entry : averageDistancesByZone.entrySet()) {
+            pw.println(entry.getKey().intValue() + "," + entry.getValue());
         }
         pw.close();
-        ScatterPlot.createScatterPlot(Resources.instance.getBaseDirectory().toString() + "/" + outputSubDirectory + dataSet.getYear() +  "/distanceDistribution/averageZoneDistancePlot"+purpose, averageDistancesByZone, "Average Trip Distances by MitoZone", "MitoZone Id", "Average Trip Distance");
-
+        ScatterPlot.createScatterPlot(directory + "distanceDistribution/averageZoneDistancePlot" + purpose, averageDistancesByZone,
+                "Average Trip Distances by MitoZone", "MitoZone Id", "Average Trip Distance");
     }
 
+    /**
+     * Writes the charts on the calling thread. Use {@link SummaryCharts} to write them in the background.
+     */
     public static void writeCharts(DataSet dataSet, String scenarioName) {
-        for(Purpose purpose: Purpose.values()) {
-            writeCharts(dataSet, purpose, scenarioName);
-        }
+        SummaryCharts.prepare(dataSet, scenarioName, EnumSet.of(SummaryCharts.Chart.TRAVEL_TIMES_AND_DISTANCES_BY_ZONE)).render();
     }
 
+    /**
+     * Writes the MATSim population if it was created in memory, otherwise streams the plans from the trips
+     */
     public static void writeMatsimPlans(DataSet dataSet, String scenarioName) {
         LOGGER.info("  Writing matsim plans file");
 
         String outputSubDirectory = Resources.instance.getBaseDirectory() + "/scenOutput/" + scenarioName + "/"+ dataSet.getYear()+"/";
-        new PopulationWriter(dataSet.getPopulation()).write(outputSubDirectory + "matsimPlans.xml.gz");
+        writeMatsimPlansToFile(dataSet, outputSubDirectory + "matsimPlans.xml.gz");
+    }
+
+    public static void writeMatsimPlansToFile(DataSet dataSet, String file) {
+        if (dataSet.getPopulation() != null) {
+            new PopulationWriter(dataSet.getPopulation()).write(file);
+        } else {
+            new MatsimPlansWriter(dataSet, MatsimPopulationGenerator.getMatsimModes(), MatsimActivityTypes.fromResources())
+                    .write(Paths.get(file));
+        }
     }
 }
@@ -0,0 +1,145 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Summary charts of a model run. {@link #prepare(DataSet, String, Set)} aggregates everything the charts need in
+ * a single parallel pass over the trips ({@link TripSummary}) and copies the mode shares, so that the data set
+ * may change afterwards. The charts can then be rendered on the calling thread or in the background, so that
+ * the model can return control to the caller while the images are written.
+ * <p>
+ * Background rendering uses a process-wide pool with {@link SharedExecutor#getNumberOfThreads()} daemon threads, whose
+ * idle threads time out, so the pool never keeps the JVM alive and does not need to be shut down. Callers keep the
+ * future returned by {@link #renderInBackground()}, see {@link DataSet#awaitChartRendering()}, and wait for it before
+ * the JVM exits.
+ */
+public final class SummaryCharts {
+
+    private static final Logger logger = Logger.getLogger(SummaryCharts.class);
+
+    private static ThreadPoolExecutor renderer;
+
+    public enum Chart {
+        /**
+         * travel time histograms, trips by zone and average trip distances by zone, see
+         * {@link SummarizeData#writeCharts(DataSet, String)}
+         */
+        TRAVEL_TIMES_AND_DISTANCES_BY_ZONE,
+        /**
+         * trip length distributions by purpose and mode, see {@link DistancePlots}
+         */
+        TRIP_LENGTHS,
+        /**
+         * mode shares by purpose, see {@link ModeChoicePlots}
+         */
+        MODE_CHOICE
+    }
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private SummaryCharts() {
+    }
+
+    public static SummaryCharts prepare(DataSet dataSet, String scenarioName, Set<Chart> charts) {
+        final long start = System.currentTimeMillis();
+        final String directory = Resources.instance.getBaseDirectory().toString()
+                + "/scenOutput/" + scenarioName + "/" + dataSet.getYear() + "/";
+        final SummaryCharts summaryCharts = new SummaryCharts();
+
+        if (charts.contains(Chart.TRAVEL_TIMES_AND_DISTANCES_BY_ZONE) || charts.contains(Chart.TRIP_LENGTHS)) {
+            final TripSummary summary = TripSummary.compute(dataSet);
+            if (charts.contains(Chart.TRAVEL_TIMES_AND_DISTANCES_BY_ZONE)) {
+                for (Purpose purpose : Purpose.values()) {
+                    summaryCharts.tasks.add(() -> SummarizeData.writeCharts(directory, summary, purpose));
+                }
+            }
+            if (charts.contains(Chart.TRIP_LENGTHS)) {
+                summaryCharts.tasks.add(() -> DistancePlots.writeDistanceDistributions(directory + "tripLengths/", summary));
+            }
+        }
+        if (charts.contains(Chart.MODE_CHOICE)) {
+            final Map<Purpose, Map<Mode, Double>> modeShares = new EnumMap<>(Purpose.class);
+            for (Purpose purpose : Purpose.values()) {
+                final Map<Mode, Double> shares = new EnumMap<>(Mode.class);
+                for (Mode mode : Mode.values()) {
+                    final Double share = dataSet.getModeShareForPurpose(purpose, mode);
+                    if (share != null) {
+                        shares.put(mode, share);
+                    }
+                }
+                modeShares.put(purpose, shares);
+            }
+            summaryCharts.tasks.add(() -> ModeChoicePlots.writeModeChoice(directory + "modeChoice/", modeShares));
+        }
+        logger.info("  Prepared summary charts in " + (System.currentTimeMillis() - start) / 1000. + " seconds");
+        return summaryCharts;
+    }
+
+    /**
+     * Renders all charts on the calling thread
+     */
+    public void render() {
+        tasks.forEach(Runnable::run);
+    }
+
+    /**
+     * Renders the charts on the background pool and returns immediately. Failures are logged.
+     * @return a future that completes when all charts are written
+     */
+    public Future<?> renderInBackground() {
+        final long start = System.currentTimeMillis();
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            final Runnable task = tasks.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Could not write summary chart: " + e.getMessage(), e);
+                }
+            }, getRenderer());
+        }
+        final CompletableFuture<Void> all = CompletableFuture.allOf(futures).whenComplete((result, e) ->
+                logger.info("  Rendered summary charts in " + (System.currentTimeMillis() - start) / 1000. + " seconds"));
+        return all;
+    }
+
+    /**
+     * The pool is created on first use, so that its size is taken from the properties of the run
+     */
+    private static synchronized ThreadPoolExecutor getRenderer() {
+        if (renderer == null) {
+            renderer = createRenderer(SharedExecutor.getNumberOfThreads());
+        }
+        return renderer;
+    }
+
+    private static ThreadPoolExecutor createRenderer(int threads) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "mito-charts-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
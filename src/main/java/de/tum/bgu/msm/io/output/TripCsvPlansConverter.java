@@ -0,0 +1,447 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.io.input.CsvBlockReader;
+import de.tum.bgu.msm.io.input.CsvRecord;
+import de.tum.bgu.msm.io.input.CsvRecordReader;
+import de.tum.bgu.msm.io.output.TripCsvWriter.AsciiBuffer;
+import de.tum.bgu.msm.modules.plansConverter.MatsimActivityTypes;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.FOOTER;
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.HEADER;
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.appendActivity;
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.appendEndTime;
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.appendTime;
+import static de.tum.bgu.msm.io.output.MatsimPlansWriter.text;
+import static de.tum.bgu.msm.io.output.TripCsvWriter.finish;
+import static de.tum.bgu.msm.io.output.TripCsvWriter.writeFully;
+
+/**
+ * Converts a trip list written by {@link TripCsvWriter} into MATSim plans (population_v6 format) with bounded memory.
+ * The csv file is read in blocks of complete lines, which are converted on the {@link SharedExecutor} into
+ * formatted persons, so neither the trips nor a MATSim population are held in memory. Every trip with an assigned
+ * mode that is kept by the scale factor becomes a person with a trip to the destination and, if it is home based
+ * (see {@link Purpose#isHomeBased()}), back to the origin. Trips without coordinates get random coordinates from the pre-sampled pool of their
+ * zone or, if the zone has no pool, from its polygon. Trips that can not be located are skipped.
+ * <p>
+ * Every block draws from its own random stream, so the plans only depend on the seed and the block size, not on the
+ * number of threads. The blocks are either written in file order to a single plans file or each to its own numbered
+ * part file, which is a complete plans file by itself. Files ending with .gz are written as concatenated gzip members.
+ */
+public final class TripCsvPlansConverter {
+
+    private static final Logger logger = Logger.getLogger(TripCsvPlansConverter.class);
+
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 24;
+    private static final double MAX_TRAVEL_TIME_S = 4 * 3600;
+    private static final double SPEED_WALK_KMH = 5.;
+    private static final double SPEED_BICYCLE_KMH = 12.;
+
+    private final SharedExecutor executor;
+    private final Map<Integer, MitoZone> zones;
+    private final Set<String> matsimModes;
+    private final MatsimActivityTypes activityTypes;
+    private final double scaleFactor;
+    private final long seed;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * @param zones       zones with random coordinate pools or polygons for trips without coordinates, may be empty
+     * @param matsimModes   MATSim modes of the trips that are converted, e.g. "car"
+     * @param activityTypes activity types at the trip ends
+     * @param scaleFactor   share of the trips that is converted
+     * @param seed          seed of the random streams for scaling and coordinates
+     */
+    public TripCsvPlansConverter(SharedExecutor executor, Map<Integer, MitoZone> zones, Set<String> matsimModes,
+                                 MatsimActivityTypes activityTypes, double scaleFactor, long seed) {
+        this.executor = executor;
+        this.zones = zones;
+        this.matsimModes = matsimModes;
+        this.activityTypes = activityTypes;
+        this.scaleFactor = scaleFactor;
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the approximate size in bytes of the blocks of trips that are converted together, which is also the
+     * size of the input of each part file
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Converts all trips into a single plans file
+     */
+    public void convert(Path tripsFile, Path plansFile) {
+        final long start = System.currentTimeMillis();
+        final boolean gzip = plansFile.getFileName().toString().endsWith(".gz");
+        final int maxPendingBlocks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+        final Block total = new Block(null, 0, 0, 0);
+
+        try (CsvBlockReader blocks = new CsvBlockReader(open(tripsFile), blockSize)) {
+            final Columns columns = readHeader(blocks, tripsFile);
+            createParentDirectories(plansFile);
+            try (FileChannel channel = FileChannel.open(plansFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, finish(text(HEADER), gzip));
+                byte[] data = columns.firstBlock;
+                for (int index = 0; data != null; index++) {
+                    final byte[] block = data;
+                    final int blockIndex = index;
+                    pending.add(executor.submit(() -> {
+                        final AsciiBuffer buffer = new AsciiBuffer(block.length);
+                        final Block result = convertBlock(buffer, block, blockIndex, columns);
+                        return result.withBytes(finish(buffer, gzip));
+                    }));
+                    while (pending.size() >= maxPendingBlocks) {
+                        total.add(channel, SharedExecutor.await(pending.poll()));
+                    }
+                    data = blocks.next();
+                }
+                while (!pending.isEmpty()) {
+                    total.add(channel, SharedExecutor.await(pending.poll()));
+                }
+                writeFully(channel, finish(text(FOOTER), gzip));
+            }
+        } catch (IOException e) {
+            logger.error("Could not convert " + tripsFile + " to MATSim plans: " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        logger.info("  Converted " + total.persons + " of " + total.trips + " trips into MATSim agents in " + plansFile
+                + " in " + (System.currentTimeMillis() - start) / 1000. + " seconds, " + total.notLocated
+                + " trips could not be located");
+    }
+
+    /**
+     * Converts every block of trips into its own plans file, named by the prefix, the number of the block and the
+     * suffix, e.g. plans_0.xml.gz, plans_1.xml.gz, ...
+     * @return the number of part files
+     */
+    public int convertToParts(Path tripsFile, Path directory, String prefix, String suffix) {
+        final long start = System.currentTimeMillis();
+        final boolean gzip = suffix.endsWith(".gz");
+        final int maxPendingBlocks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+        final Block total = new Block(null, 0, 0, 0);
+        int parts = 0;
+
+        try (CsvBlockReader blocks = new CsvBlockReader(open(tripsFile), blockSize)) {
+            final Columns columns = readHeader(blocks, tripsFile);
+            Files.createDirectories(directory);
+            byte[] data = columns.firstBlock;
+            for (; data != null; parts++) {
+                final byte[] block = data;
+                final int blockIndex = parts;
+                final Path partFile = directory.resolve(prefix + blockIndex + suffix);
+                pending.add(executor.submit(() -> {
+                    final AsciiBuffer buffer = new AsciiBuffer(block.length);
+                    buffer.append(HEADER);
+                    final Block result = convertBlock(buffer, block, blockIndex, columns);
+                    buffer.append(FOOTER);
+                    try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        writeFully(channel, finish(buffer, gzip));
+                    }
+                    return result;
+                }));
+                while (pending.size() >= maxPendingBlocks) {
+                    total.add(SharedExecutor.await(pending.poll()));
+                }
+                data = blocks.next();
+            }
+            while (!pending.isEmpty()) {
+                total.add(SharedExecutor.await(pending.poll()));
+            }
+        } catch (IOException e) {
+            logger.error("Could not convert " + tripsFile + " to MATSim plans: " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        logger.info("  Converted " + total.persons + " of " + total.trips + " trips into MATSim agents in " + parts
+                + " files in " + directory + " in " + (System.currentTimeMillis() - start) / 1000. + " seconds, "
+                + total.notLocated + " trips could not be located");
+        return parts;
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        final InputStream in = Files.newInputStream(file);
+        if (file.toString().endsWith(".gz")) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return in;
+    }
+
+    private static void createParentDirectories(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+    }
+
+    /**
+     * Reads the header from the first block and keeps the rest of the block for conversion
+     */
+    private static Columns readHeader(CsvBlockReader blocks, Path tripsFile) throws IOException {
+        final byte[] block = blocks.next();
+        if (block == null) {
+            throw new RuntimeException("Trip file " + tripsFile + " does not have a header.");
+        }
+        final CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(block), ',');
+        return new Columns(reader.next().toStringArray(), block);
+    }
+
+    private Block convertBlock(AsciiBuffer buffer, byte[] block, int blockIndex, Columns columns) throws IOException {
+        final Random random = MitoUtil.createRandomStream(seed, blockIndex);
+        final CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(block), ',');
+        if (block == columns.firstBlock) {
+            reader.next();
+        }
+        final Block result = new Block(null, 0, 0, 0);
+        CsvRecord record;
+        while ((record = reader.next()) != null) {
+            if (record.getFieldCount() == 1 && record.isEmpty(0)) {
+                continue;
+            }
+            result.trips++;
+            final String mode = decodeMode(record, columns.mode);
+            if (mode == null || random.nextDouble() > scaleFactor || !matsimModes.contains(mode)) {
+                continue;
+            }
+            if (appendPerson(buffer, record, columns, mode, random)) {
+                result.persons++;
+            } else {
+                result.notLocated++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return false if the origin or destination has neither coordinates nor a zone with a pool or polygon
+     */
+    private boolean appendPerson(AsciiBuffer buffer, CsvRecord record, Columns columns, String mode, Random random) {
+        final double[] origin = getCoordinates(record, columns.origin, columns.originX, columns.originY, random);
+        if (origin == null) {
+            return false;
+        }
+        final double[] destination = getCoordinates(record, columns.destination, columns.destinationX,
+                columns.destinationY, random);
+        if (destination == null) {
+            return false;
+        }
+        final Purpose purpose = record.getEnum(columns.purpose, Purpose.values());
+        final String originActivity = activityTypes.getOriginActivity(purpose, getZone(record, columns.origin));
+        final String destinationActivity = activityTypes.getDestinationActivity(purpose, getZone(record, columns.destination));
+
+        final double departure = getTime(record, columns.departure, 0);
+        final double travelTime = Math.min(getEstimatedTravelTime(record, columns), MAX_TRAVEL_TIME_S);
+        final double arrival = departure + travelTime;
+
+        buffer.append("\t<person id=\"").append(record.getString(columns.person)).append('_')
+                .append(record.getString(columns.id)).append("\">\n");
+        buffer.append("\t\t<plan selected=\"yes\">\n");
+        appendActivity(buffer, originActivity, origin[0], origin[1]);
+        appendEndTime(buffer, departure);
+        appendLeg(buffer, mode, departure);
+        appendActivity(buffer, destinationActivity, destination[0], destination[1]);
+        appendStartTime(buffer, arrival);
+        if (purpose.isHomeBased()) {
+            // make sure that the return trip does not start before the arrival
+            final double departureReturn = Math.min(getTime(record, columns.departureReturn, -1), arrival + 1);
+            appendEndTime(buffer, departureReturn);
+            appendLeg(buffer, mode, departureReturn);
+            appendActivity(buffer, originActivity, origin[0], origin[1]);
+            appendStartTime(buffer, departureReturn + travelTime);
+        }
+        buffer.append(" />\n");
+        buffer.append("\t\t</plan>\n");
+        buffer.append("\t</person>\n\n");
+        return true;
+    }
+
+    /**
+     * @return the coordinates of the trip end, drawn within its zone if the file has none
+     */
+    private double[] getCoordinates(CsvRecord record, int zoneColumn, int xColumn, int yColumn, Random random) {
+        if (isNumber(record, xColumn) && isNumber(record, yColumn)) {
+            return new double[]{record.getDouble(xColumn), record.getDouble(yColumn)};
+        }
+        if (zoneColumn < 0 || !isNumber(record, zoneColumn)) {
+            return null;
+        }
+        final MitoZone zone = zones.get(record.getInt(zoneColumn));
+        if (zone == null || (!zone.hasRandomCoordinatePool() && zone.getGeometry() == null)) {
+            return null;
+        }
+        final Coordinate coordinate = zone.getRandomCoord(random);
+        return new double[]{coordinate.x, coordinate.y};
+    }
+
+    /**
+     * @return the zone id of a trip end or -1 if the file has none
+     */
+    private static int getZone(CsvRecord record, int column) {
+        return column >= 0 && isNumber(record, column) ? record.getInt(column) : -1;
+    }
+
+    /**
+     * Missing values are written as null or NA by {@link TripCsvWriter}
+     */
+    private static boolean isNumber(CsvRecord record, int column) {
+        return !record.isEmpty(column) && !record.equals(column, "null") && !record.equals(column, "NA");
+    }
+
+    /**
+     * @return the time in seconds of a column in minutes
+     */
+    private static double getTime(CsvRecord record, int column, double defaultSeconds) {
+        return isNumber(record, column) ? record.getDouble(column) * 60 : defaultSeconds;
+    }
+
+    /**
+     * @return the MATSim mode or null if the trip has no mode
+     */
+    private static String decodeMode(CsvRecord record, int column) {
+        if (record.equals(column, "autoDriver") || record.equals(column, "auto")) {
+            return "car";
+        } else if (record.equals(column, "autoPassenger")) {
+            return "car_passenger";
+        } else if (record.equals(column, "train") || record.equals(column, "bus") || record.equals(column, "tramOrMetro")) {
+            return "pt";
+        } else if (record.equals(column, "bicycle")) {
+            return "bike";
+        } else if (record.equals(column, "null")) {
+            return null;
+        }
+        return record.getString(column);
+    }
+
+    private static double getEstimatedTravelTime(CsvRecord record, Columns columns) {
+        final int mode = columns.mode;
+        if (record.equals(mode, "autoDriver") || record.equals(mode, "auto") || record.equals(mode, "autoPassenger")) {
+            return record.getDouble(columns.timeCar) * 60;
+        } else if (record.equals(mode, "train")) {
+            return record.getDouble(columns.timeTrain) * 60;
+        } else if (record.equals(mode, "tramOrMetro")) {
+            return record.getDouble(columns.timeTramMetro) * 60;
+        } else if (record.equals(mode, "bus")) {
+            return record.getDouble(columns.timeBus) * 60;
+        } else if (record.equals(mode, "walk")) {
+            return record.getDouble(columns.distance) / SPEED_WALK_KMH * 3600;
+        } else if (record.equals(mode, "bicycle")) {
+            return record.getDouble(columns.distance) / SPEED_BICYCLE_KMH * 3600;
+        }
+        throw new RuntimeException("The mode " + record.getString(mode) + " is not recognized");
+    }
+
+    private static void appendStartTime(AsciiBuffer buffer, double seconds) {
+        buffer.append(" start_time=\"");
+        appendTime(buffer, seconds);
+        buffer.append('"');
+    }
+
+    private static void appendLeg(AsciiBuffer buffer, String mode, double departure) {
+        buffer.append(" />\n\t\t\t<leg mode=\"").append(mode).append("\" dep_time=\"");
+        appendTime(buffer, departure);
+        buffer.append("\" />\n");
+    }
+
+    /**
+     * Positions of the columns in the trip file, the zone columns are optional
+     */
+    private static final class Columns {
+        private final byte[] firstBlock;
+        private final int id;
+        private final int origin;
+        private final int originX;
+        private final int originY;
+        private final int destination;
+        private final int destinationX;
+        private final int destinationY;
+        private final int purpose;
+        private final int person;
+        private final int mode;
+        private final int distance;
+        private final int timeCar;
+        private final int timeTrain;
+        private final int timeTramMetro;
+        private final int timeBus;
+        private final int departure;
+        private final int departureReturn;
+
+        private Columns(String[] header, byte[] firstBlock) {
+            this.firstBlock = firstBlock;
+            id = MitoUtil.findPositionInArray("id", header);
+            origin = MitoUtil.findPositionInArray("origin", header);
+            originX = MitoUtil.findPositionInArray("originX", header);
+            originY = MitoUtil.findPositionInArray("originY", header);
+            destination = MitoUtil.findPositionInArray("destination", header);
+            destinationX = MitoUtil.findPositionInArray("destinationX", header);
+            destinationY = MitoUtil.findPositionInArray("destinationY", header);
+            purpose = MitoUtil.findPositionInArray("purpose", header);
+            person = MitoUtil.findPositionInArray("person", header);
+            mode = MitoUtil.findPositionInArray("mode", header);
+            distance = MitoUtil.findPositionInArray("distance", header);
+            timeCar = MitoUtil.findPositionInArray("time_auto", header);
+            timeTrain = MitoUtil.findPositionInArray("time_train", header);
+            timeTramMetro = MitoUtil.findPositionInArray("time_tram_metro", header);
+            timeBus = MitoUtil.findPositionInArray("time_bus", header);
+            departure = MitoUtil.findPositionInArray("departure_time", header);
+            departureReturn = MitoUtil.findPositionInArray("departure_time_return", header);
+        }
+    }
+
+    private static final class Block {
+        private final byte[] bytes;
+        private int trips;
+        private int persons;
+        private int notLocated;
+
+        private Block(byte[] bytes, int trips, int persons, int notLocated) {
+            this.bytes = bytes;
+            this.trips = trips;
+            this.persons = persons;
+            this.notLocated = notLocated;
+        }
+
+        private Block withBytes(byte[] bytes) {
+            return new Block(bytes, trips, persons, notLocated);
+        }
+
+        private void add(Block block) {
+            trips += block.trips;
+            persons += block.persons;
+            notLocated += block.notLocated;
+        }
+
+        private void add(FileChannel channel, Block block) throws IOException {
+            writeFully(channel, block.bytes);
+            add(block);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.TripTable;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the trips file of the micro data. Trips are taken from a {@link TripTable} snapshot and formatted in
+ * chunks on the {@link SharedExecutor}, each into a reused byte buffer of the formatting thread. Chunks are written
+ * to a single {@link FileChannel} in trip order, so the file does not depend on the number of threads.
+ * If compression is enabled, every chunk is deflated on the worker into a separate gzip member. The members
+ * concatenate to a valid gzip file that can be read by {@link java.util.zip.GZIPInputStream} or gunzip.
+ * Skim values are read through {@link TripSkimValues}.
+ */
+public final class TripCsvWriter {
+
+    private static final Logger logger = Logger.getLogger(TripCsvWriter.class);
+
+    static final String HEADER = "id,origin,originX,originY,destination,destinationX,destinationY,purpose,person," +
+            "distance,time_auto,time_bus,time_train,time_tram_metro,mode,departure_time,departure_time_return\n";
+
+    private static final int CHUNK_SIZE = 1 << 15;
+
+    private static final Purpose[] PURPOSES = Purpose.values();
+    private static final Mode[] MODES = Mode.values();
+
+    private final DataSet dataSet;
+    private final boolean fillMicroLocations;
+    private final ThreadLocal<AsciiBuffer> buffers = ThreadLocal.withInitial(() -> new AsciiBuffer(1 << 20));
+
+    /**
+     * @param fillMicroLocations whether trips without micro location should be written with random coordinates
+     *                           within their zones
+     */
+    public TripCsvWriter(DataSet dataSet, boolean fillMicroLocations) {
+        this.dataSet = dataSet;
+        this.fillMicroLocations = fillMicroLocations;
+    }
+
+    /**
+     * @param trips the trips of the data set, see {@link TripTable#fromTrips(java.util.Collection, boolean)}
+     */
+    public void write(TripTable trips, Path file, boolean gzip) {
+        final long start = System.currentTimeMillis();
+        final TripSkimValues skims = new TripSkimValues(dataSet);
+        // a single draw from the model's random object, every chunk then gets its own stream
+        final long seed = fillMicroLocations ? MitoUtil.getRandomObject().nextLong() : 0;
+
+        final SharedExecutor executor = dataSet.getExecutor();
+        final int maxPendingChunks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                final AsciiBuffer header = new AsciiBuffer(HEADER.length());
+                header.append(HEADER);
+                writeFully(channel, finish(header, gzip));
+
+                for (int from = 0; from < trips.size(); from += CHUNK_SIZE) {
+                    final int chunkFrom = from;
+                    final int chunkTo = Math.min(from + CHUNK_SIZE, trips.size());
+                    final int chunk = from / CHUNK_SIZE;
+                    pending.add(executor.submit(() -> {
+                        final AsciiBuffer buffer = buffers.get();
+                        buffer.clear();
+                        final Random random = MitoUtil.createRandomStream(seed, chunk);
+                        for (int row = chunkFrom; row < chunkTo; row++) {
+                            appendTrip(buffer, trips, row, skims, random);
+                        }
+                        return finish(buffer, gzip);
+                    }));
+                    while (pending.size() >= maxPendingChunks) {
+                        writeFully(channel, SharedExecutor.await(pending.poll()));
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    writeFully(channel, SharedExecutor.await(pending.poll()));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not write trips to " + file + ": " + e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        logger.info("  Wrote " + trips.size() + " trips to " + file + " in "
+                + (System.currentTimeMillis() - start) / 1000. + " seconds");
+    }
+
+    private void appendTrip(AsciiBuffer buffer, TripTable trips, int row, TripSkimValues skims, Random random) {
+        final int origin = trips.getOriginZone(row);
+        final int destination = trips.getDestinationZone(row);
+
+        buffer.append(trips.getId(row)).append(',');
+        appendLocation(buffer, origin, trips.getOriginX(row), trips.getOriginY(row), random);
+        appendLocation(buffer, destination, trips.getDestinationX(row), trips.getDestinationY(row), random);
+
+        final int purpose = trips.getPurposeOrdinal(row);
+        buffer.append(purpose == TripTable.NO_VALUE ? "null" : PURPOSES[purpose].toString()).append(',');
+        buffer.append(trips.getPersonId(row)).append(',');
+
+        if (origin != TripTable.NO_VALUE && destination != TripTable.NO_VALUE) {
+            buffer.append(skims.getDistance(origin, destination));
+            for (int mode = 0; mode < TripSkimValues.TIME_MODES.length; mode++) {
+                buffer.append(',').append(skims.getTravelTime(mode, trips.getId(row), origin, destination));
+            }
+        } else {
+            buffer.append("NA,NA,NA,NA,NA");
+        }
+        buffer.append(',');
+
+        final int mode = trips.getModeOrdinal(row);
+        buffer.append(mode == TripTable.NO_VALUE ? "null" : MODES[mode].toString()).append(',');
+        buffer.append(trips.getDepartureInMinutes(row)).append(',');
+        final int departureOfReturnTrip = trips.getDepartureInMinutesReturnTrip(row);
+        if (departureOfReturnTrip != TripTable.NO_VALUE) {
+            buffer.append(departureOfReturnTrip);
+        } else {
+            buffer.append("NA");
+        }
+        buffer.append('\n');
+    }
+
+    private void appendLocation(AsciiBuffer buffer, int zone, double x, double y, Random random) {
+        if (zone == TripTable.NO_VALUE) {
+            buffer.append("null,null,null,");
+            return;
+        }
+        buffer.append(zone).append(',');
+        if (!Double.isNaN(x)) {
+            buffer.append(x).append(',').append(y).append(',');
+        } else if (fillMicroLocations) {
+            final MitoZone mitoZone = dataSet.getZones().get(zone);
+            final Coordinate coordinate = mitoZone.getRandomCoord(random);
+            buffer.append(coordinate.x).append(',').append(coordinate.y).append(',');
+        } else {
+            buffer.append("null,null,");
+        }
+    }
+
+    /**
+     * Returns the content of the buffer, as a separate gzip member if compression is enabled
+     */
+    static byte[] finish(AsciiBuffer buffer, boolean gzip) throws IOException {
+        if (!gzip) {
+            return buffer.toByteArray();
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.size() / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 1 << 16)) {
+            buffer.writeTo(out);
+        }
+        return compressed.toByteArray();
+    }
+
+    static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+    }
+
+    /**
+     * Growable byte buffer for ASCII text. Integers are formatted without creating strings, doubles are
+     * formatted like {@link Double#toString(double)}.
+     */
+    static final class AsciiBuffer {
+
+        private byte[] bytes;
+        private int size = 0;
+
+        AsciiBuffer(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        AsciiBuffer append(char c) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) c;
+            return this;
+        }
+
+        AsciiBuffer append(String s) {
+            final int length = s.length();
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                bytes[size++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        AsciiBuffer append(int value) {
+            if (value == Integer.MIN_VALUE) {
+                return append(Integer.toString(value));
+            }
+            ensureCapacity(11);
+            if (value < 0) {
+                bytes[size++] = '-';
+                value = -value;
+            }
+            int end = size + digits(value);
+            size = end;
+            do {
+                bytes[--end] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            return this;
+        }
+
+        AsciiBuffer append(double value) {
+            return append(Double.toString(value));
+        }
+
+        private static int digits(int value) {
+            int digits = 1;
+            while (value >= 10) {
+                value /= 10;
+                digits++;
+            }
+            return digits;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + additional, 2 * bytes.length));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+    }
+}
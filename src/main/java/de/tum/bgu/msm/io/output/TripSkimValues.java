@@ -0,0 +1,102 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+
+/**
+ * Auto travel distance and peak hour travel times of the modes in {@link #TIME_MODES}, as written to the
+ * micro data trip outputs. If the travel times are backed by skims, the row and column indices of every
+ * matrix are resolved by zone id once, so that lookups are plain array accesses. Safe for concurrent use.
+ */
+final class TripSkimValues {
+
+    static final String[] TIME_MODES = {"car", "bus", "train", "tramMetro"};
+
+    private static final int MAX_DENSE_ZONE_ID = 1 << 24;
+
+    private final DataSet dataSet;
+    private final SkimLookup[] timeSkims;
+
+    TripSkimValues(DataSet dataSet) {
+        this.dataSet = dataSet;
+        this.timeSkims = createTimeSkims(dataSet.getTravelTimes());
+    }
+
+    /**
+     * @return one lookup per mode of {@link #TIME_MODES}, or null if the travel times are not backed by skims
+     */
+    private static SkimLookup[] createTimeSkims(TravelTimes travelTimes) {
+        if (!(travelTimes instanceof SkimTravelTimes)) {
+            return null;
+        }
+        final SkimLookup[] skims = new SkimLookup[TIME_MODES.length];
+        for (int i = 0; i < TIME_MODES.length; i++) {
+            final IndexedDoubleMatrix2D matrix = travelTimes.getPeakSkim(TIME_MODES[i]);
+            if (matrix == null) {
+                return null;
+            }
+            skims[i] = new SkimLookup(matrix);
+        }
+        return skims;
+    }
+
+    double getDistance(int origin, int destination) {
+        return dataSet.getTravelDistancesAuto().getTravelDistance(origin, destination);
+    }
+
+    /**
+     * @param mode index of the mode in {@link #TIME_MODES}
+     * @param tripId id of the trip, only used if the travel times are not backed by skims
+     */
+    double getTravelTime(int mode, int tripId, int origin, int destination) {
+        if (timeSkims != null) {
+            return timeSkims[mode].get(origin, destination);
+        }
+        final MitoTrip trip = dataSet.getTrips().get(tripId);
+        return dataSet.getTravelTimes().getTravelTime(trip.getTripOrigin(), trip.getTripDestination(),
+                dataSet.getPeakHour(), TIME_MODES[mode]);
+    }
+
+    /**
+     * Skim matrix with its row and column indices resolved by zone id. Unknown ids resolve to the first
+     * row or column, just like {@link IndexedDoubleMatrix2D#getIndexed(int, int)}.
+     */
+    private static final class SkimLookup {
+
+        private final IndexedDoubleMatrix2D matrix;
+        private final int[] rowIndexById;
+        private final int[] columnIndexById;
+
+        private SkimLookup(IndexedDoubleMatrix2D matrix) {
+            this.matrix = matrix;
+            this.rowIndexById = invert(matrix.getRowLookupArray());
+            this.columnIndexById = invert(matrix.getColumnLookupArray());
+        }
+
+        private static int[] invert(int[] lookup) {
+            int maxId = -1;
+            for (int id : lookup) {
+                if (id < 0 || id > MAX_DENSE_ZONE_ID) {
+                    return null;
+                }
+                maxId = Math.max(maxId, id);
+            }
+            final int[] indexById = new int[maxId + 1];
+            for (int index = 0; index < lookup.length; index++) {
+                indexById[lookup[index]] = index;
+            }
+            return indexById;
+        }
+
+        private double get(int origin, int destination) {
+            if (rowIndexById == null || columnIndexById == null
+                    || origin >= rowIndexById.length || destination >= columnIndexById.length) {
+                return matrix.getIndexed(origin, destination);
+            }
+            return matrix.getQuick(rowIndexById[origin], columnIndexById[destination]);
+        }
+    }
+}
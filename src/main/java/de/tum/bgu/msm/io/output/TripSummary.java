@@ -0,0 +1,223 @@
+package de.tum.bgu.msm.io.output;
+
+import cern.colt.map.tint.OpenIntIntHashMap;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.TripTable;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregates of all trips that are needed for the summary charts, computed in a single pass over a
+ * {@link TripTable} of the trips. Blocks of trips are aggregated in parallel and merged in trip order, so
+ * the result does not depend on the number of threads. Only trips with origin and destination are counted.
+ */
+final class TripSummary {
+
+    static final int DISTANCE_BINS = 50;
+    static final double MAX_DISTANCE = 100;
+
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int PURPOSES = Purpose.values().length;
+    private static final int MODES = Mode.values().length;
+
+    /**
+     * zones in the iteration order of the data set
+     */
+    final MitoZone[] zones;
+
+    /**
+     * peak hour car travel times by purpose in trip order
+     */
+    final double[][] carTravelTimesByPurpose = new double[PURPOSES][];
+
+    final int[][] tripsByPurposeAndZone;
+    final double[][] distanceSumByPurposeAndZone;
+
+    final DistanceHistogram[] distancesByPurpose = new DistanceHistogram[PURPOSES];
+    final DistanceHistogram[] distancesByMode = new DistanceHistogram[MODES];
+
+    private final OpenIntIntHashMap zoneIndex;
+    private final int[] carTravelTimeCounts = new int[PURPOSES];
+
+    private TripSummary(DataSet dataSet) {
+        zones = dataSet.getZones().values().toArray(new MitoZone[0]);
+        zoneIndex = new OpenIntIntHashMap(zones.length * 2);
+        for (int i = 0; i < zones.length; i++) {
+            zoneIndex.put(zones[i].getId(), i);
+        }
+        tripsByPurposeAndZone = new int[PURPOSES][zones.length];
+        distanceSumByPurposeAndZone = new double[PURPOSES][zones.length];
+        for (int purpose = 0; purpose < PURPOSES; purpose++) {
+            carTravelTimesByPurpose[purpose] = new double[1024];
+            distancesByPurpose[purpose] = new DistanceHistogram();
+        }
+        for (int mode = 0; mode < MODES; mode++) {
+            distancesByMode[mode] = new DistanceHistogram();
+        }
+    }
+
+    static TripSummary compute(DataSet dataSet) {
+        final TripSummary summary = new TripSummary(dataSet);
+        // coordinates are not needed, the table is dropped once the aggregates are computed
+        final TripTable trips = TripTable.fromTrips(dataSet.getTrips().values(), false);
+        final TripSkimValues skims = new TripSkimValues(dataSet);
+        final SharedExecutor executor = dataSet.getExecutor();
+        final int maxPendingBlocks = 2 * executor.getParallelism();
+        final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+        try {
+            for (int from = 0; from < trips.size(); from += BLOCK_SIZE) {
+                final int blockFrom = from;
+                final int blockTo = Math.min(from + BLOCK_SIZE, trips.size());
+                pending.add(executor.submit(() -> summary.aggregate(trips, blockFrom, blockTo, skims)));
+                while (pending.size() >= maxPendingBlocks) {
+                    summary.merge(SharedExecutor.await(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                summary.merge(SharedExecutor.await(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        for (int purpose = 0; purpose < PURPOSES; purpose++) {
+            summary.carTravelTimesByPurpose[purpose] = Arrays.copyOf(summary.carTravelTimesByPurpose[purpose],
+                    summary.carTravelTimeCounts[purpose]);
+        }
+        return summary;
+    }
+
+    private Block aggregate(TripTable trips, int from, int to, TripSkimValues skims) {
+        final Block block = new Block(to - from, zones.length);
+        for (int row = from; row < to; row++) {
+            final int origin = trips.getOriginZone(row);
+            final int destination = trips.getDestinationZone(row);
+            if (origin == TripTable.NO_VALUE || destination == TripTable.NO_VALUE) {
+                continue;
+            }
+            final double distance = skims.getDistance(origin, destination);
+            final int purpose = trips.getPurposeOrdinal(row);
+            if (purpose != TripTable.NO_VALUE) {
+                block.carTravelTimes[purpose][block.carTravelTimeCounts[purpose]++] =
+                        skims.getTravelTime(0, trips.getId(row), origin, destination);
+                if (zoneIndex.containsKey(origin)) {
+                    final int zone = zoneIndex.get(origin);
+                    block.tripsByPurposeAndZone[purpose][zone]++;
+                    block.distanceSumByPurposeAndZone[purpose][zone] += distance;
+                }
+                block.distancesByPurpose[purpose].add(distance);
+            }
+            final int mode = trips.getModeOrdinal(row);
+            if (mode != TripTable.NO_VALUE) {
+                block.distancesByMode[mode].add(distance);
+            }
+        }
+        return block;
+    }
+
+    private void merge(Block block) {
+        for (int purpose = 0; purpose < PURPOSES; purpose++) {
+            final int count = block.carTravelTimeCounts[purpose];
+            final int offset = carTravelTimeCounts[purpose];
+            if (offset + count > carTravelTimesByPurpose[purpose].length) {
+                carTravelTimesByPurpose[purpose] = Arrays.copyOf(carTravelTimesByPurpose[purpose],
+                        Math.max(offset + count, 2 * carTravelTimesByPurpose[purpose].length));
+            }
+            System.arraycopy(block.carTravelTimes[purpose], 0, carTravelTimesByPurpose[purpose], offset, count);
+            carTravelTimeCounts[purpose] += count;
+            for (int zone = 0; zone < zones.length; zone++) {
+                tripsByPurposeAndZone[purpose][zone] += block.tripsByPurposeAndZone[purpose][zone];
+                distanceSumByPurposeAndZone[purpose][zone] += block.distanceSumByPurposeAndZone[purpose][zone];
+            }
+            distancesByPurpose[purpose].merge(block.distancesByPurpose[purpose]);
+        }
+        for (int mode = 0; mode < MODES; mode++) {
+            distancesByMode[mode].merge(block.distancesByMode[mode]);
+        }
+    }
+
+    private static final class Block {
+
+        private final double[][] carTravelTimes;
+        private final int[] carTravelTimeCounts = new int[PURPOSES];
+        private final int[][] tripsByPurposeAndZone;
+        private final double[][] distanceSumByPurposeAndZone;
+        private final DistanceHistogram[] distancesByPurpose = new DistanceHistogram[PURPOSES];
+        private final DistanceHistogram[] distancesByMode = new DistanceHistogram[MODES];
+
+        private Block(int size, int zones) {
+            carTravelTimes = new double[PURPOSES][size];
+            tripsByPurposeAndZone = new int[PURPOSES][zones];
+            distanceSumByPurposeAndZone = new double[PURPOSES][zones];
+            for (int purpose = 0; purpose < PURPOSES; purpose++) {
+                distancesByPurpose[purpose] = new DistanceHistogram();
+            }
+            for (int mode = 0; mode < MODES; mode++) {
+                distancesByMode[mode] = new DistanceHistogram();
+            }
+        }
+    }
+
+    /**
+     * Frequencies of trip distances in {@link #DISTANCE_BINS} bins between 0 and {@link #MAX_DISTANCE}, counted
+     * like {@link org.knowm.xchart.Histogram}, together with the number and sum of all distances.
+     */
+    static final class DistanceHistogram {
+
+        private final double[] frequencies = new double[DISTANCE_BINS];
+        private long count = 0;
+        private double sum = 0;
+
+        private void add(double distance) {
+            count++;
+            sum += distance;
+            final double binSize = MAX_DISTANCE / DISTANCE_BINS;
+            final int bin = (int) (distance / binSize);
+            if (bin < 0) {
+                return;
+            }
+            if (distance == MAX_DISTANCE) {
+                frequencies[bin - 1]++;
+            } else if (bin < DISTANCE_BINS) {
+                frequencies[bin]++;
+            }
+        }
+
+        private void merge(DistanceHistogram other) {
+            for (int bin = 0; bin < DISTANCE_BINS; bin++) {
+                frequencies[bin] += other.frequencies[bin];
+            }
+            count += other.count;
+            sum += other.sum;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        double getMean() {
+            return sum / count;
+        }
+
+        double[] getFrequencies() {
+            return frequencies.clone();
+        }
+
+        /**
+         * @return the centers of the bins
+         */
+        static double[] getBinCenters() {
+            final double binSize = MAX_DISTANCE / DISTANCE_BINS;
+            final double[] centers = new double[DISTANCE_BINS];
+            for (int bin = 0; bin < DISTANCE_BINS; bin++) {
+                centers[bin] = bin * MAX_DISTANCE / DISTANCE_BINS + binSize / 2.;
+            }
+            return centers;
+        }
+    }
+}
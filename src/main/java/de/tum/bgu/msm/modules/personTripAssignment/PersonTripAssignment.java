@@ -5,159 +5,201 @@ import de.tum.bgu.msm.modules.Module;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 
 import static de.tum.bgu.msm.data.MitoOccupationStatus.STUDENT;
 import static de.tum.bgu.msm.data.MitoOccupationStatus.WORKER;
 import static de.tum.bgu.msm.data.Purpose.*;
 
+/**
+ * Assigns the trips of each household to its members. Households are processed in parallel in chunks of fixed
+ * size, each with its own random number stream, so results do not depend on the number of threads.
+ */
 public class PersonTripAssignment extends Module {
 
     private static final Logger logger = Logger.getLogger(PersonTripAssignment.class);
 
+    private static final int CHUNK_SIZE = 1024;
+    private static final Purpose[] PURPOSES = Purpose.values();
+
     public PersonTripAssignment(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
     }
 
     @Override
     public void run() {
-        for (MitoHousehold household : dataSet.getHouseholds().values()) {
-            for (Purpose purpose : purposes) {
-                //todo check that the order of purposes affects the assignment. It crashes if a non-home based is done before a home-based
-                for (Iterator<MitoTrip> iterator = household.getTripsForPurpose(purpose).listIterator(); iterator.hasNext(); ) {
-                    MitoTrip trip = iterator.next();
-                    Map<MitoPerson, Double> probabilitiesByPerson = getProbabilityByPersonForTrip(household, trip);
-                    if (probabilitiesByPerson != null && !probabilitiesByPerson.isEmpty()) {
-                        selectPersonForTrip(trip, probabilitiesByPerson);
-                    } else {
-                        logger.warn("Removing " + trip + " since no person could be assigned.");
-                        iterator.remove();
-                        dataSet.removeTrip(trip.getId());
-                    }
+        final List<MitoHousehold> households = new ArrayList<>(dataSet.getHouseholds().values());
+        final int numberOfChunks = (households.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        @SuppressWarnings("unchecked")
+        final List<MitoTrip>[] removedTripsByChunk = new List[numberOfChunks];
+        final long seed = MitoUtil.getRandomObject().nextLong();
+
+        dataSet.getExecutor().parallelFor(0, numberOfChunks, 1, (firstChunk, lastChunk) -> {
+            for (int chunk = firstChunk; chunk < lastChunk; chunk++) {
+                final Random random = MitoUtil.createRandomStream(seed, chunk);
+                final List<MitoTrip> removedTrips = new ArrayList<>();
+                final int end = Math.min(households.size(), (chunk + 1) * CHUNK_SIZE);
+                for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                    assignTrips(households.get(i), random, removedTrips);
                 }
+                removedTripsByChunk[chunk] = removedTrips;
             }
-        }
-    }
+        });
 
-    private Map<MitoPerson, Double> getProbabilityByPersonForTrip(MitoHousehold household, MitoTrip trip) {
-        Purpose purpose = trip.getTripPurpose();
-        Map<MitoPerson, Double> probabilitiesByPerson = new HashMap<>(household.getHhSize());
-        if (purpose == HBW) {
-            assignHBW(household, probabilitiesByPerson);
-        } else if (purpose == HBE) {
-            assignHBE(household, probabilitiesByPerson);
-        } else if (purpose == HBS || purpose == HBO) {
-            assignHBSHBO(household, probabilitiesByPerson);
-        } else if (purpose == NHBW) {
-            assignNHBW(household, probabilitiesByPerson);
-        } else if (purpose == NHBO) {
-            assignNHBO(household, probabilitiesByPerson);
-        } else if (purpose == AIRPORT) {
-            assignAIRPORT(household, probabilitiesByPerson);
+        for (List<MitoTrip> removedTrips : removedTripsByChunk) {
+            for (MitoTrip trip : removedTrips) {
+                logger.warn("Removing " + trip + " since no person could be assigned.");
+                dataSet.removeTrip(trip.getId());
+            }
         }
-        return probabilitiesByPerson;
-    }
-
-
-
-    private void selectPersonForTrip(MitoTrip trip, Map<MitoPerson, Double> probabilitiesByPerson) {
-        MitoPerson selectedPerson = MitoUtil.select(probabilitiesByPerson);
-        trip.setPerson(selectedPerson);
-        selectedPerson.addTrip(trip);
     }
 
-    private void assignHBW(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoPerson person : household.getPersons().values()) {
-            if (person.getMitoOccupationStatus() == WORKER) {
-                final long previousTrips = person.getTrips().stream().filter(trip -> trip.getTripPurpose() == HBW).count();
-                probabilitiesByPerson.put(person, Math.pow(10, -previousTrips));
+    private void assignTrips(MitoHousehold household, Random random, List<MitoTrip> removedTrips) {
+        final HouseholdMembers members = new HouseholdMembers(household);
+        for (Purpose purpose : purposes) {
+            //todo check that the order of purposes affects the assignment. It crashes if a non-home based is done before a home-based
+            for (Iterator<MitoTrip> iterator = household.getTripsForPurpose(purpose).listIterator(); iterator.hasNext(); ) {
+                MitoTrip trip = iterator.next();
+                final double sum = members.calculateProbabilities(trip.getTripPurpose());
+                if (sum > 0) {
+                    final int selected = MitoUtil.select(members.probabilities, random, sum);
+                    members.assign(selected, trip);
+                } else {
+                    iterator.remove();
+                    removedTrips.add(trip);
+                }
             }
         }
-        if (probabilitiesByPerson.isEmpty()) {
-            for (MitoPerson person : household.getPersons().values()) {
-                if (person.getAge() > 16) {
-                    probabilitiesByPerson.put(person, 1.);
+    }
+
+    /**
+     * Person attributes and trip counters of one household in primitive arrays, indexed by the position of the
+     * person in the household.
+     */
+    private static final class HouseholdMembers {
+
+        private final MitoPerson[] persons;
+        private final int[] ages;
+        private final MitoOccupationStatus[] occupationStatus;
+        private final int[][] tripsByPurpose;
+        private final double[] probabilities;
+
+        private HouseholdMembers(MitoHousehold household) {
+            final int size = household.getPersons().size();
+            persons = household.getPersons().values().toArray(new MitoPerson[size]);
+            ages = new int[size];
+            occupationStatus = new MitoOccupationStatus[size];
+            tripsByPurpose = new int[PURPOSES.length][size];
+            probabilities = new double[size];
+            for (int i = 0; i < size; i++) {
+                ages[i] = persons[i].getAge();
+                occupationStatus[i] = persons[i].getMitoOccupationStatus();
+                for (MitoTrip trip : persons[i].getTrips()) {
+                    tripsByPurpose[trip.getTripPurpose().ordinal()][i]++;
                 }
             }
         }
-        if (probabilitiesByPerson.isEmpty()) {
-            fillEquallyDistributed(household, probabilitiesByPerson);
+
+        private void assign(int person, MitoTrip trip) {
+            trip.setPerson(persons[person]);
+            persons[person].addTrip(trip);
+            tripsByPurpose[trip.getTripPurpose().ordinal()][person]++;
+        }
+
+        /**
+         * Fills the selection probabilities for a trip of the given purpose.
+         *
+         * @return the sum of the probabilities, 0 if no person can be assigned
+         */
+        private double calculateProbabilities(Purpose purpose) {
+            if (purpose == HBW) {
+                return assignHBW();
+            } else if (purpose == HBE) {
+                return assignHBE();
+            } else if (purpose == HBS || purpose == HBO) {
+                return fillEquallyDistributed();
+            } else if (purpose == NHBW) {
+                return assignNHBW();
+            } else if (purpose == NHBO) {
+                return assignNHBO();
+            } else if (purpose == AIRPORT) {
+                //by now we assign all the trips to the airport to residents, with the uniform probability for all hh
+                //members. Consider improvement: assign them long-distance travelers' based on socio-demographic attributes.
+                return fillEquallyDistributedAmongAdults();
+            }
+            return 0;
         }
-    }
 
-    private void assignHBE(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoPerson person : household.getPersons().values()) {
-            if (person.getMitoOccupationStatus() == STUDENT) {
-                long previousTrips = person.getTrips().stream().filter(trip -> trip.getTripPurpose() == HBE).count();
-                double probability = Math.pow(10, -previousTrips);
-                probabilitiesByPerson.put(person, probability);
+        private double assignHBW() {
+            double sum = 0;
+            for (int i = 0; i < persons.length; i++) {
+                probabilities[i] = occupationStatus[i] == WORKER ? Math.pow(10, -tripsByPurpose[HBW.ordinal()][i]) : 0;
+                sum += probabilities[i];
             }
+            if (sum == 0) {
+                sum = fillByMinimumAge(17);
+            }
+            return sum == 0 ? fillEquallyDistributed() : sum;
         }
-        if (probabilitiesByPerson.isEmpty()) {
-            fillEquallyDistributed(household, probabilitiesByPerson);
+
+        private double assignHBE() {
+            double sum = 0;
+            for (int i = 0; i < persons.length; i++) {
+                probabilities[i] = occupationStatus[i] == STUDENT ? Math.pow(10, -tripsByPurpose[HBE.ordinal()][i]) : 0;
+                sum += probabilities[i];
+            }
+            return sum == 0 ? fillEquallyDistributed() : sum;
         }
-    }
 
-    private void assignHBSHBO(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoPerson person : household.getPersons().values()) {
-            if (person.getMitoOccupationStatus() == WORKER) {
-                probabilitiesByPerson.put(person, 1. / 3.);
+        private double assignNHBW() {
+            double sum = fillByPreviousTrips(HBW);
+            if (sum == 0) {
+                sum = fillByMinimumAge(17);
             }
-            probabilitiesByPerson.put(person, 1.);
+            return sum == 0 ? fillEquallyDistributed() : sum;
         }
-    }
 
-    private void assignNHBW(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoTrip workTrip : household.getTripsForPurpose(HBW)) {
-            probabilitiesByPerson.put(workTrip.getPerson(), 1.);
+        private double assignNHBO() {
+            final double sum = fillByPreviousTrips(HBO, HBS, HBE);
+            return sum == 0 ? fillEquallyDistributed() : sum;
         }
-        if (probabilitiesByPerson.isEmpty()) {
-            for (MitoPerson person : household.getPersons().values()) {
-                if (person.getAge() > 16) {
-                    probabilitiesByPerson.put(person, 1.);
+
+        private double fillByPreviousTrips(Purpose... previousPurposes) {
+            double sum = 0;
+            for (int i = 0; i < persons.length; i++) {
+                probabilities[i] = 0;
+                for (Purpose previousPurpose : previousPurposes) {
+                    if (tripsByPurpose[previousPurpose.ordinal()][i] > 0) {
+                        probabilities[i] = 1;
+                        break;
+                    }
                 }
+                sum += probabilities[i];
             }
+            return sum;
         }
-        if (probabilitiesByPerson.isEmpty()) {
-            fillEquallyDistributed(household, probabilitiesByPerson);
-        }
-    }
 
-    private void assignNHBO(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoTrip otherTrip : household.getTripsForPurpose(HBO)) {
-            probabilitiesByPerson.put(otherTrip.getPerson(), 1.);
-        }
-        for (MitoTrip otherTrip : household.getTripsForPurpose(HBS)) {
-            probabilitiesByPerson.put(otherTrip.getPerson(), 1.);
-        }
-        for (MitoTrip otherTrip : household.getTripsForPurpose(HBE)) {
-            probabilitiesByPerson.put(otherTrip.getPerson(), 1.);
-        }
-        if (probabilitiesByPerson.isEmpty()) {
-            fillEquallyDistributed(household, probabilitiesByPerson);
+        private double fillByMinimumAge(int minimumAge) {
+            double sum = 0;
+            for (int i = 0; i < persons.length; i++) {
+                probabilities[i] = ages[i] >= minimumAge ? 1 : 0;
+                sum += probabilities[i];
+            }
+            return sum;
         }
-    }
-
-    private void assignAIRPORT(MitoHousehold household, Map<MitoPerson,Double> probabilitiesByPerson) {
-        //by now we assign all the trips to the airport to residents, with the uniform probability for all hh
-        //members. Consider improvement: assign them long-distance travelers' based on socio-demographic attributes.
-        fillEquallyDistributedAmongAdults(household, probabilitiesByPerson);
-    }
 
-    private void fillEquallyDistributed(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoPerson person : household.getPersons().values()) {
-            probabilitiesByPerson.put(person, 1.);
+        private double fillEquallyDistributed() {
+            for (int i = 0; i < persons.length; i++) {
+                probabilities[i] = 1;
+            }
+            return persons.length;
         }
-    }
 
-    private void fillEquallyDistributedAmongAdults(MitoHousehold household, Map<MitoPerson, Double> probabilitiesByPerson) {
-        for (MitoPerson person : household.getPersons().values()) {
-            if (person.getAge() > 17) {
-                probabilitiesByPerson.put(person, 1.);
-            }
+        private double fillEquallyDistributedAmongAdults() {
+            return fillByMinimumAge(18);
         }
     }
 }
@@ -0,0 +1,76 @@
+package de.tum.bgu.msm.modules.plansConverter;
+
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+
+/**
+ * MATSim activity types at the origin and destination of trips. The types are resolved once per purpose, only
+ * airport trips depend on whether the location is the airport zone.
+ */
+public final class MatsimActivityTypes {
+
+    private static final String AIRPORT = "airport";
+
+    private final int airportZone;
+    private final String[] originActivities = new String[Purpose.values().length];
+    private final String[] destinationActivities = new String[Purpose.values().length];
+
+    /**
+     * @param airportZone id of the airport zone or -1 if there is none
+     */
+    public MatsimActivityTypes(int airportZone) {
+        this.airportZone = airportZone;
+        for (Purpose purpose : Purpose.values()) {
+            originActivities[purpose.ordinal()] = resolveOriginActivity(purpose);
+            destinationActivities[purpose.ordinal()] = resolveDestinationActivity(purpose);
+        }
+    }
+
+    /**
+     * Uses the airport zone defined by {@link Properties#AIRPORT_ZONE}
+     */
+    public static MatsimActivityTypes fromResources() {
+        return new MatsimActivityTypes(Resources.instance.getInt(Properties.AIRPORT_ZONE, -1));
+    }
+
+    public String getOriginActivity(Purpose purpose, int originZone) {
+        if (purpose == Purpose.AIRPORT && originZone == airportZone) {
+            return AIRPORT;
+        }
+        return originActivities[purpose.ordinal()];
+    }
+
+    public String getDestinationActivity(Purpose purpose, int destinationZone) {
+        if (purpose == Purpose.AIRPORT && destinationZone == airportZone) {
+            return AIRPORT;
+        }
+        return destinationActivities[purpose.ordinal()];
+    }
+
+    private static String resolveOriginActivity(Purpose purpose) {
+        switch (purpose) {
+            case NHBW:
+                return "work";
+            case NHBO:
+                return "other";
+            default:
+                return "home";
+        }
+    }
+
+    private static String resolveDestinationActivity(Purpose purpose) {
+        switch (purpose) {
+            case HBW:
+                return "work";
+            case HBE:
+                return "education";
+            case HBS:
+                return "shopping";
+            case AIRPORT:
+                return "home";
+            default:
+                return "other";
+        }
+    }
+}
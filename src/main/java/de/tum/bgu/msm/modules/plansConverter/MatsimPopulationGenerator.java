@@ -1,11 +1,11 @@
 package de.tum.bgu.msm.modules.plansConverter;
 
 import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.io.output.MatsimPlansWriter;
 import de.tum.bgu.msm.modules.Module;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
-import edu.emory.mathcs.utils.ConcurrencyUtils;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
@@ -14,133 +14,165 @@ import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordUtils;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Callable;
 
 public final class MatsimPopulationGenerator extends Module {
 
     private static final Logger logger = Logger.getLogger(MatsimPopulationGenerator.class);
 
-    private final Set<Mode> modeSet = new HashSet<>();
+    private static final int SHARD_SIZE = 1 << 14;
+
+    private final Set<Mode> modeSet;
+    private final MatsimActivityTypes activityTypes;
 
     public MatsimPopulationGenerator(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
+        modeSet = getMatsimModes();
+        activityTypes = MatsimActivityTypes.fromResources();
+    }
+
+    /**
+     * Returns the network and teleported modes that are simulated in MATSim
+     */
+    public static Set<Mode> getMatsimModes() {
+        Set<Mode> modes = EnumSet.noneOf(Mode.class);
         String[] networkModes = Resources.instance.getArray(Properties.MATSIM_NETWORK_MODES, new String[]{"autoDriver"});
         String[] teleportedModes = Resources.instance.getArray(Properties.MATSIM_TELEPORTED_MODES, new String[]{});
         for (String mode : networkModes){
-            modeSet.add(Mode.valueOf(mode));
+            modes.add(Mode.valueOf(mode));
         }
         for (String mode : teleportedModes){
-            modeSet.add(Mode.valueOf(mode));
+            modes.add(Mode.valueOf(mode));
+        }
+        return modes;
+    }
+
+    /**
+     * Fails fast if the MATSim population will not be created in memory, so that steps which need it do not
+     * run into a missing population at the end of a long run.
+     * @param step the step that needs the population, used in the error message
+     */
+    public static void checkPopulationInMemory(String step) {
+        if (!Resources.instance.getBoolean(Properties.MATSIM_POPULATION_IN_MEMORY, true)) {
+            throw new IllegalStateException(step + " needs the MATSim population in memory, but "
+                    + Properties.MATSIM_POPULATION_IN_MEMORY + " is set to false.");
         }
     }
 
     @Override
     public void run() {
+        if (!Resources.instance.getBoolean(Properties.MATSIM_POPULATION_IN_MEMORY, true)) {
+            logger.info("Not creating the MATSim population in memory, plans can be written from the trips by "
+                    + MatsimPlansWriter.class.getSimpleName());
+            return;
+        }
         Population population = generateMatsimPopulation();
         dataSet.setPopulation(population);
     }
 
+    /**
+     * Creates the persons in shards of consecutive trips of the subsample on the shared executor. Every shard
+     * draws coordinates and end times from its own random stream and the shards are added to the population in
+     * trip order, so the population does not depend on the number of threads.
+     */
     private Population generateMatsimPopulation(){
         Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
         PopulationFactory factory = population.getFactory();
-        AtomicInteger assignedTripCounter = new AtomicInteger(0);
-        AtomicInteger nonAssignedTripCounter = new AtomicInteger(0);
-        dataSet.getTripSubsample().values().forEach(trip ->{
-            try {
-                if (modeSet.contains(trip.getTripMode())) {
-                    Person person = factory.createPerson(Id.createPersonId(trip.getId()));
-                    trip.setMatsimPerson(person);
-
-                    Plan plan = factory.createPlan();
-                    person.addPlan(plan);
-                    population.addPerson(person);
-
-                    String activityTypeAtOrigin = getOriginActivity(trip);
-
-                    Coord originCoord;
-                    if(trip.getTripOrigin() instanceof MicroLocation) {
-                        originCoord = CoordUtils.createCoord(((MicroLocation) trip.getTripOrigin()).getCoordinate());
-                    } else {
-                        originCoord =
-                                CoordUtils.createCoord(dataSet.getZones().get(trip.getTripOrigin().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    }
-
-                    Activity originActivity = factory.createActivityFromCoord(activityTypeAtOrigin, originCoord);
-                    originActivity.setEndTime(trip.getDepartureInMinutes() * 60 + MitoUtil.getRandomObject().nextDouble() * 60);
-                    plan.addActivity(originActivity);
-
-                    plan.addLeg(factory.createLeg(Mode.getMatsimMode(trip.getTripMode())));
-
-                    String activityTypeAtDestination = getDestinationActivity(trip);
-
-                    Coord destinationCoord;
-                    if(trip.getTripDestination() instanceof MicroLocation) {
-                        destinationCoord = CoordUtils.createCoord(((MicroLocation) trip.getTripDestination()).getCoordinate());
-                    } else {
-                        destinationCoord = CoordUtils.createCoord(dataSet.getZones().get(trip.getTripDestination().getZoneId()).getRandomCoord(MitoUtil.getRandomObject()));
-                    }
-                    Activity destinationActivity = factory.createActivityFromCoord(activityTypeAtDestination, destinationCoord);
-
-                    if (trip.isHomeBased()) {
-                        destinationActivity.setEndTime(trip.getDepartureInMinutesReturnTrip() * 60 + MitoUtil.getRandomObject().nextDouble() * 60);
-                        plan.addActivity(destinationActivity);
-                        plan.addLeg(factory.createLeg(Mode.getMatsimMode(trip.getTripMode())));
-                        plan.addActivity(factory.createActivityFromCoord(activityTypeAtOrigin, originCoord));
-                    } else {
-                        plan.addActivity(destinationActivity);
+        MitoTrip[] trips = dataSet.getTripSubsample().values().toArray(new MitoTrip[0]);
+        // ids are indexed in the order of their creation, so they are created before the shards run in parallel
+        @SuppressWarnings("unchecked")
+        Id<Person>[] personIds = new Id[trips.length];
+        for (int i = 0; i < trips.length; i++) {
+            if (modeSet.contains(trips[i].getTripMode())) {
+                personIds[i] = Id.createPersonId(trips[i].getId());
+            }
+        }
+        // a single draw from the model's random object, every shard then gets its own stream
+        long seed = MitoUtil.getRandomObject().nextLong();
+
+        List<Callable<Shard>> tasks = new ArrayList<>();
+        for (int from = 0; from < trips.length; from += SHARD_SIZE) {
+            final int shardFrom = from;
+            final int shardTo = Math.min(from + SHARD_SIZE, trips.length);
+            final Random random = MitoUtil.createRandomStream(seed, from / SHARD_SIZE);
+            tasks.add(() -> {
+                Shard shard = new Shard(shardTo - shardFrom);
+                for (int i = shardFrom; i < shardTo; i++) {
+                    MitoTrip trip = trips[i];
+                    if (personIds[i] != null) {
+                        try {
+                            Person person = createPerson(factory, personIds[i], trip, random);
+                            trip.setMatsimPerson(person);
+                            shard.persons.add(person);
+                        } catch (Exception e) {
+                            shard.nonAssignedTrips++;
+                        }
                     }
-
                 }
-            } catch (Exception e){
-                nonAssignedTripCounter.incrementAndGet();
-            }
+                return shard;
+            });
+        }
 
-            if (ConcurrencyUtils.isPowerOf2(assignedTripCounter.incrementAndGet())){
-                logger.warn( assignedTripCounter.get()  + " MATSim agents created");
+        int nonAssignedTrips = 0;
+        for (Shard shard : dataSet.getExecutor().invokeAll(tasks)) {
+            for (Person person : shard.persons) {
+                population.addPerson(person);
             }
-
-        });
-        logger.warn( nonAssignedTripCounter.get()  + " trips do not have trip origin, destination or mode and cannot be assigned in MATSim");
+            nonAssignedTrips += shard.nonAssignedTrips;
+        }
+        logger.info(population.getPersons().size() + " MATSim agents created");
+        logger.warn(nonAssignedTrips + " trips do not have trip origin, destination or mode and cannot be assigned in MATSim");
         return population;
     }
 
-
-    private static String getOriginActivity(MitoTrip trip){
-        Purpose purpose = trip.getTripPurpose();
-        if (purpose.equals(Purpose.NHBW)){
-            return "work";
-        } else if (purpose.equals(Purpose.NHBO)){
-            return "other";
-        } else if (purpose.equals(Purpose.AIRPORT)) {
-            if (trip.getTripOrigin().getZoneId() == Resources.instance.getInt(Properties.AIRPORT_ZONE)){
-                return "airport";
-            } else {
-                return "home";
-            }
+    private Person createPerson(PopulationFactory factory, Id<Person> personId, MitoTrip trip, Random random) {
+        Person person = factory.createPerson(personId);
+        Plan plan = factory.createPlan();
+        person.addPlan(plan);
+
+        String activityTypeAtOrigin = activityTypes.getOriginActivity(trip.getTripPurpose(), trip.getTripOrigin().getZoneId());
+        Coord originCoord = getCoord(trip.getTripOrigin(), random);
+        Activity originActivity = factory.createActivityFromCoord(activityTypeAtOrigin, originCoord);
+        originActivity.setEndTime(trip.getDepartureInMinutes() * 60 + random.nextDouble() * 60);
+        plan.addActivity(originActivity);
+
+        String matsimMode = Mode.getMatsimMode(trip.getTripMode());
+        plan.addLeg(factory.createLeg(matsimMode));
+
+        String activityTypeAtDestination = activityTypes.getDestinationActivity(trip.getTripPurpose(), trip.getTripDestination().getZoneId());
+        Coord destinationCoord = getCoord(trip.getTripDestination(), random);
+        Activity destinationActivity = factory.createActivityFromCoord(activityTypeAtDestination, destinationCoord);
+
+        if (trip.isHomeBased()) {
+            destinationActivity.setEndTime(trip.getDepartureInMinutesReturnTrip() * 60 + random.nextDouble() * 60);
+            plan.addActivity(destinationActivity);
+            plan.addLeg(factory.createLeg(matsimMode));
+            plan.addActivity(factory.createActivityFromCoord(activityTypeAtOrigin, originCoord));
         } else {
-            return "home";
+            plan.addActivity(destinationActivity);
         }
+        return person;
     }
 
-    private static String getDestinationActivity(MitoTrip trip){
-        Purpose purpose = trip.getTripPurpose();
-        if (purpose.equals(Purpose.HBW)){
-            return "work";
-        } else if (purpose.equals(Purpose.HBE)){
-            return "education";
-        } else if (purpose.equals(Purpose.HBS)){
-            return "shopping";
-        } else if (purpose.equals(Purpose.AIRPORT)) {
-            if (trip.getTripDestination().getZoneId() == Resources.instance.getInt(Properties.AIRPORT_ZONE)) {
-                return "airport";
-            } else {
-                return "home";
-            }
+    private Coord getCoord(Location location, Random random) {
+        if (location instanceof MicroLocation) {
+            return CoordUtils.createCoord(((MicroLocation) location).getCoordinate());
         } else {
-            return "other";
+            return CoordUtils.createCoord(dataSet.getZones().get(location.getZoneId()).getRandomCoord(random));
+        }
+    }
+
+    private static final class Shard {
+        private final List<Person> persons;
+        private int nonAssignedTrips = 0;
+
+        private Shard(int capacity) {
+            persons = new ArrayList<>(capacity);
         }
     }
 }
@@ -0,0 +1,72 @@
+package de.tum.bgu.msm.modules.plansConverter.externalFlows;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix of external flows that stores the cells in primitive arrays in the order in which they were added.
+ * Only cells that were added are enumerated, use {@link #getFlow(int)} with a cell index between 0 and
+ * {@link #size()}.
+ */
+public final class ExternalFlowMatrix {
+
+    private final OpenLongIntHashMap cellIndexes = new OpenLongIntHashMap();
+
+    private int size = 0;
+    private int[] origins = new int[1024];
+    private int[] destinations = new int[1024];
+    private float[] flows = new float[1024];
+
+    /**
+     * Sets the flow between two zones, replacing a previous flow of the same cell
+     */
+    public void put(int origin, int destination, float flow) {
+        final long key = key(origin, destination);
+        if (cellIndexes.containsKey(key)) {
+            flows[cellIndexes.get(key)] = flow;
+            return;
+        }
+        if (size == origins.length) {
+            origins = Arrays.copyOf(origins, 2 * size);
+            destinations = Arrays.copyOf(destinations, 2 * size);
+            flows = Arrays.copyOf(flows, 2 * size);
+        }
+        origins[size] = origin;
+        destinations[size] = destination;
+        flows[size] = flow;
+        cellIndexes.put(key, size);
+        size++;
+    }
+
+    /**
+     * @return the flow between two zones or 0 if there is none
+     */
+    public float get(int origin, int destination) {
+        final long key = key(origin, destination);
+        return cellIndexes.containsKey(key) ? flows[cellIndexes.get(key)] : 0;
+    }
+
+    /**
+     * @return the number of cells
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getOrigin(int cell) {
+        return origins[cell];
+    }
+
+    public int getDestination(int cell) {
+        return destinations[cell];
+    }
+
+    public float getFlow(int cell) {
+        return flows[cell];
+    }
+
+    private static long key(int origin, int destination) {
+        return ((long) origin << 32) | (destination & 0xffffffffL);
+    }
+}
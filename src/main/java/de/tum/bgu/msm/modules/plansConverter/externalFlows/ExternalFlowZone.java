@@ -1,28 +1,36 @@
 package de.tum.bgu.msm.modules.plansConverter.externalFlows;
+import de.tum.bgu.msm.util.PolygonPointSampler;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.shape.random.RandomPointsBuilder;
 import org.matsim.api.core.v01.Coord;
-import org.matsim.core.utils.geometry.geotools.MGC;
-import org.opengis.feature.simple.SimpleFeature;
+
+import java.util.Random;
 
 public class ExternalFlowZone {
 
     private int id;
     private Coord coordinates;
     private ExternalFlowZoneType zoneType;
-    private SimpleFeature feature;
+    private final PolygonPointSampler sampler;
 
-    public ExternalFlowZone(int id, Coord coordinates, ExternalFlowZoneType zoneType, SimpleFeature feature) {
+    /**
+     * @param geometry polygon of the zone, may be null for border zones
+     */
+    public ExternalFlowZone(int id, Coord coordinates, ExternalFlowZoneType zoneType, Geometry geometry) {
         this.id = id;
         this.coordinates = coordinates;
         this.zoneType = zoneType;
-        this.feature = feature;
+        // the polygon is triangulated once up front, so that the flow types which are sampled in parallel can
+        // share the zone without locking
+        this.sampler = zoneType == ExternalFlowZoneType.BORDER || geometry == null ? null
+                : new PolygonPointSampler(geometry);
     }
 
-    public Coord getCoordinatesForTripGeneration(){
+    /**
+     * Border zones return their fixed coordinates, all other zones a random point within their polygon that is
+     * drawn from the given random stream only.
+     */
+    public Coord getCoordinatesForTripGeneration(Random random){
         if (zoneType.equals(ExternalFlowZoneType.BORDER)){
             return coordinates;
         } else /*if (zoneType.equals(ExternalFlowZoneType.BEZIRKE)) {
@@ -31,7 +39,8 @@ public class ExternalFlowZone {
             double angle = Math.random() * 2 * Math.acos(-1);
             return new Coord( coordinates.getX() + radii * Math.cos(angle), coordinates.getY() + radii * Math.sin(angle));
         } else */{
-            return getRandomCoord(feature);
+            Coordinate coordinate = sampler.sample(random);
+            return new Coord(coordinate.x, coordinate.y);
         }
 
     }
@@ -39,14 +48,4 @@ public class ExternalFlowZone {
     public ExternalFlowZoneType getZoneType() {
         return zoneType;
     }
-
-    public Coord getRandomCoord(SimpleFeature feature) {
-        // alternative and about 10 times faster way to generate random point inside a geometry. Amit Dec'17
-        RandomPointsBuilder randomPointsBuilder = new RandomPointsBuilder(new GeometryFactory());
-        randomPointsBuilder.setNumPoints(1);
-        randomPointsBuilder.setExtent((Geometry) feature.getDefaultGeometry());
-        Coordinate coordinate = randomPointsBuilder.getGeometry().getCoordinates()[0];
-        Point p = MGC.coordinate2Point(coordinate);
-        return new Coord(p.getX(), p.getY());
-    }
 }
@@ -1,6 +1,5 @@
 package de.tum.bgu.msm.modules.plansConverter.externalFlows;
 
-import com.google.common.collect.HashBasedTable;
 import de.tum.bgu.msm.data.DataSet;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.io.input.readers.ExternalFlowMatrixReader;
@@ -11,20 +10,27 @@ import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
 
 public class LongDistanceTraffic extends Module {
 
     private static Logger logger = Logger.getLogger(LongDistanceTraffic.class);
 
     private Map<Integer, ExternalFlowZone> zones;
-    private Map<ExternalFlowType, HashBasedTable<Integer, Integer, Float>> externalFlows;
-    private Map<Integer, Double> departureTimeProbabilityByHour;
+    private Map<ExternalFlowType, ExternalFlowMatrix> externalFlows;
+    private int[] departureHours;
+    private double[] departureHourProbabilities;
+    private double departureHourProbabilitySum;
 
     //for pre-analysis only
     private Map<Integer, Float> totalGeneratedFlows = new HashMap<>();
@@ -44,22 +50,46 @@ public class LongDistanceTraffic extends Module {
 
     @Override
     public void run() {
+        checkPopulation();
         readDepartureTimeDistribution();
         readZones();
         readMatrices();
         addLongDistancePlans();
     }
 
+    private void checkPopulation() {
+        if (dataSet.getPopulation() == null) {
+            throw new IllegalStateException("External flows are added to the MATSim population, but no population "
+                    + "was created in memory. Check " + Properties.MATSIM_POPULATION_IN_MEMORY + ".");
+        }
+    }
+
     private void readDepartureTimeDistribution() {
         LongDistanceTimeOfDayDistributionReader reader = new LongDistanceTimeOfDayDistributionReader(dataSet);
         reader.read();
-        departureTimeProbabilityByHour = reader.getDepartureTimeDistribution();
+        setDepartureTimeDistribution(reader.getDepartureTimeDistribution());
+    }
+
+    private void setDepartureTimeDistribution(Map<Integer, Double> departureTimeProbabilityByHour) {
+        departureHours = new int[departureTimeProbabilityByHour.size()];
+        departureHourProbabilities = new double[departureTimeProbabilityByHour.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Double> entry : departureTimeProbabilityByHour.entrySet()) {
+            departureHours[i] = entry.getKey();
+            departureHourProbabilities[i] = entry.getValue();
+            i++;
+        }
+        departureHourProbabilitySum = MitoUtil.getSum(departureHourProbabilities);
     }
 
     private void readZones() {
         ExternalZonesReader reader = new ExternalZonesReader(dataSet);
         reader.read();
-        zones = reader.getZones();
+        setZones(reader.getZones());
+    }
+
+    private void setZones(Map<Integer, ExternalFlowZone> zones) {
+        this.zones = zones;
         for (int id : zones.keySet()) {
             initialize(id);
         }
@@ -69,54 +99,94 @@ public class LongDistanceTraffic extends Module {
         ExternalFlowMatrixReader reader = new ExternalFlowMatrixReader(dataSet, zones);
         externalFlows = new HashMap<>();
         for (ExternalFlowType type : ExternalFlowType.values()) {
-            HashBasedTable<Integer, Integer, Float> matrix = reader.read(type);
+            ExternalFlowMatrix matrix = reader.read(type);
             externalFlows.put(type, matrix);
         }
     }
 
+    /**
+     * Samples the trips of every flow type in parallel, each type with its own random stream. The persons are
+     * then added to the population sequentially in the order of the flow types, so that person ids and the
+     * population do not depend on the number of threads.
+     */
     private void addLongDistancePlans() {
+        final float relativeGrowth = (float) Math.pow(1 +
+                        Resources.instance.getDouble(Properties.EXTERNAL_GROWTH_RATE, 0.006),
+                dataSet.getYear() - Resources.instance.getInt(Properties.EXTERNAL_BASE_YEAR, 2011));
+        for (ExternalFlowType type : ExternalFlowType.values()) {
+            ExternalFlowMatrix matrix = externalFlows.get(type);
+            for (int cell = 0; cell < matrix.size(); cell++) {
+                float numberOfTripsFloat = matrix.getFlow(cell) * relativeGrowth;
+                addFlow(matrix.getOrigin(cell), matrix.getDestination(cell), numberOfTripsFloat);
+                countTotals(matrix.getOrigin(cell), matrix.getDestination(cell), numberOfTripsFloat, type);
+            }
+        }
+
+        // a single draw from the model's random object, every flow type then gets its own stream
+        final long seed = MitoUtil.getRandomObject().nextLong();
+        List<Callable<SampledTrips>> tasks = new ArrayList<>();
+        for (ExternalFlowType type : ExternalFlowType.values()) {
+            tasks.add(() -> sampleTrips(externalFlows.get(type), relativeGrowth,
+                    MitoUtil.createRandomStream(seed, type.ordinal())));
+        }
+        List<SampledTrips> sampledTrips = dataSet.getExecutor().invokeAll(tasks);
+
         final Population population = dataSet.getPopulation();
         PopulationFactory matsimPopulationFactory = population.getFactory();
         long personId = 0;
         for (ExternalFlowType type : ExternalFlowType.values()) {
-            HashBasedTable<Integer, Integer, Float> matrix = externalFlows.get(type);
-            for (int originId : matrix.rowKeySet()) {
-                for (int destId : matrix.columnKeySet()) {
-                    if (matrix.contains(originId, destId)) {
-                        float numberOfTripsFloat = matrix.get(originId, destId);
-
-                        double relativeGrowth = Math.pow( 1 +
-                                Resources.instance.getDouble(Properties.EXTERNAL_GROWTH_RATE, 0.006),
-                                dataSet.getYear() - Resources.instance.getInt(Properties.EXTERNAL_BASE_YEAR, 2011));
-                        numberOfTripsFloat = numberOfTripsFloat * (float) relativeGrowth;
-
-                        addFlow(originId, destId, numberOfTripsFloat);
-                        countTotals(originId, destId, numberOfTripsFloat, type);
-                        long trips = getNumberOfTripsFromDecimal(numberOfTripsFloat,scalingFactor);
-                        for (long trip = 0; trip < trips; trip++) {
-                            Plan matsimPlan = matsimPopulationFactory.createPlan();
-                            Person matsimPerson = matsimPopulationFactory.createPerson(Id.createPersonId(ExternalFlowType.getPrefixForType(type) + personId));
-                            matsimPerson.addPlan(matsimPlan);
-                            Activity homeActivity =
-                                    matsimPopulationFactory.createActivityFromCoord("home", zones.get(originId).getCoordinatesForTripGeneration());
-                            homeActivity.setEndTime(selectDepartureTimeInSeconds());
-                            matsimPlan.addActivity(homeActivity);
-                            Activity destinationActivity =
-                                    matsimPopulationFactory.createActivityFromCoord("other", zones.get(destId).getCoordinatesForTripGeneration());
-                            matsimPlan.addLeg(matsimPopulationFactory.createLeg(ExternalFlowType.getMatsimMode(type)));
-                            matsimPlan.addActivity(destinationActivity);
-                            population.addPerson(matsimPerson);
-                            personId++;
-                        }
-                    }
-                }
+            SampledTrips trips = sampledTrips.get(type.ordinal());
+            String prefix = ExternalFlowType.getPrefixForType(type);
+            String mode = ExternalFlowType.getMatsimMode(type);
+            for (int trip = 0; trip < trips.size; trip++) {
+                Plan matsimPlan = matsimPopulationFactory.createPlan();
+                Person matsimPerson = matsimPopulationFactory.createPerson(Id.createPersonId(prefix + personId));
+                matsimPerson.addPlan(matsimPlan);
+                Activity homeActivity = matsimPopulationFactory.createActivityFromCoord("home", trips.origins[trip]);
+                homeActivity.setEndTime(trips.departures[trip]);
+                matsimPlan.addActivity(homeActivity);
+                Activity destinationActivity = matsimPopulationFactory.createActivityFromCoord("other", trips.destinations[trip]);
+                matsimPlan.addLeg(matsimPopulationFactory.createLeg(mode));
+                matsimPlan.addActivity(destinationActivity);
+                population.addPerson(matsimPerson);
+                personId++;
             }
         }
+        logger.info("Added " + personId + " long distance trips to the MATSim population");
         printOutTotals();
     }
 
-    private double selectDepartureTimeInSeconds() {
-        return (MitoUtil.select(departureTimeProbabilityByHour) + MitoUtil.getRandomObject().nextDouble()) * 3600;
+    /**
+     * Draws the number of trips, the departure times and the coordinates of all trips of a flow type. Cells
+     * without flow are skipped.
+     */
+    private SampledTrips sampleTrips(ExternalFlowMatrix matrix, float relativeGrowth, Random random) {
+        SampledTrips trips = new SampledTrips();
+        for (int cell = 0; cell < matrix.size(); cell++) {
+            float numberOfTripsFloat = matrix.getFlow(cell) * relativeGrowth;
+            if (numberOfTripsFloat == 0) {
+                continue;
+            }
+            int numberOfTrips = (int) getNumberOfTripsFromDecimal(numberOfTripsFloat, scalingFactor, random);
+            if (numberOfTrips <= 0) {
+                continue;
+            }
+            ExternalFlowZone origin = zones.get(matrix.getOrigin(cell));
+            ExternalFlowZone destination = zones.get(matrix.getDestination(cell));
+            trips.ensureCapacity(trips.size + numberOfTrips);
+            for (int trip = trips.size; trip < trips.size + numberOfTrips; trip++) {
+                trips.departures[trip] = selectDepartureTimeInSeconds(random);
+                trips.origins[trip] = origin.getCoordinatesForTripGeneration(random);
+                trips.destinations[trip] = destination.getCoordinatesForTripGeneration(random);
+            }
+            trips.size += numberOfTrips;
+        }
+        return trips;
+    }
+
+    private double selectDepartureTimeInSeconds(Random random) {
+        int hour = departureHours[MitoUtil.select(departureHourProbabilities, random, departureHourProbabilitySum)];
+        return (hour + random.nextDouble()) * 3600;
     }
 
     private void initialize(int zone) {
@@ -173,16 +243,35 @@ public class LongDistanceTraffic extends Module {
         }
     }
 
-    private long getNumberOfTripsFromDecimal(double realValue, double scalingFactor){
+    private static long getNumberOfTripsFromDecimal(double realValue, double scalingFactor, Random random){
         long trips = Math.round(realValue * scalingFactor);
         double decimalPart = realValue * scalingFactor - trips;
-        if (decimalPart > 0 && MitoUtil.getRandomObject().nextDouble() < decimalPart) {
+        if (decimalPart > 0 && random.nextDouble() < decimalPart) {
             trips++;
             //avoids discarding trips when scaling down
-        } else if (decimalPart < 0 && MitoUtil.getRandomObject().nextDouble() < -decimalPart) {
+        } else if (decimalPart < 0 && random.nextDouble() < -decimalPart) {
             trips--;
             //avoids considering too many trips when scaling down
         }
         return trips;
     }
+
+    /**
+     * Trips of a flow type with their departure times and coordinates
+     */
+    private static final class SampledTrips {
+        private int size = 0;
+        private double[] departures = new double[1024];
+        private Coord[] origins = new Coord[1024];
+        private Coord[] destinations = new Coord[1024];
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > departures.length) {
+                int newCapacity = Math.max(capacity, 2 * departures.length);
+                departures = Arrays.copyOf(departures, newCapacity);
+                origins = Arrays.copyOf(origins, newCapacity);
+                destinations = Arrays.copyOf(destinations, newCapacity);
+            }
+        }
+    }
 }
@@ -1,28 +1,34 @@
 package de.tum.bgu.msm.modules.timeOfDay;
 
-import cern.colt.matrix.tdouble.DoubleMatrix1D;
-import com.google.common.math.LongMath;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.modules.Module;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.AliasSampler;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Random;
 
-
+/**
+ * Chooses departure times of all trips. Trips are split into blocks of fixed size that are processed in parallel,
+ * each with its own random number stream. As neither the blocks nor the streams depend on the number of threads,
+ * results are reproducible for any thread count.
+ */
 public final class TimeOfDayChoice extends Module {
 
     private static final Logger logger = Logger.getLogger(TimeOfDayChoice.class);
 
-    private EnumMap<Purpose, DoubleMatrix1D> arrivalMinuteCumProbByPurpose;
-    private EnumMap<Purpose, DoubleMatrix1D> durationMinuteCumProbByPurpose;
-    private EnumMap<Purpose, DoubleMatrix1D> departureMinuteCumProbByPurpose;
+    private static final int BLOCK_SIZE = 4096;
+
+    private EnumMap<Purpose, AliasSampler> arrivalMinuteSamplerByPurpose;
+    private EnumMap<Purpose, AliasSampler> durationMinuteSamplerByPurpose;
+    private EnumMap<Purpose, AliasSampler> departureMinuteSamplerByPurpose;
 
-    private long counter = 0;
-    private int issues = 0;
+    private MitoZone airportZone;
 
     public TimeOfDayChoice(DataSet dataSet, List<Purpose> purposes) {
         super(dataSet, purposes);
@@ -30,9 +36,9 @@ public final class TimeOfDayChoice extends Module {
 
     @Override
     public void run() {
-        arrivalMinuteCumProbByPurpose = dataSet.getArrivalMinuteCumProbByPurpose();
-        durationMinuteCumProbByPurpose = dataSet.getDurationMinuteCumProbByPurpose();
-        departureMinuteCumProbByPurpose = dataSet.getDepartureMinuteCumProbByPurpose();
+        arrivalMinuteSamplerByPurpose = dataSet.getArrivalMinuteSamplerByPurpose();
+        durationMinuteSamplerByPurpose = dataSet.getDurationMinuteSamplerByPurpose();
+        departureMinuteSamplerByPurpose = dataSet.getDepartureMinuteSamplerByPurpose();
 
         chooseDepartureTimes();
         logger.info("Time of day choice completed");
@@ -40,72 +46,91 @@ public final class TimeOfDayChoice extends Module {
     }
 
     private void chooseDepartureTimes() {
+        final List<MitoTrip> trips = new ArrayList<>(dataSet.getTrips().size());
+        for (Purpose purpose : purposes) {
+            final int tripsBefore = trips.size();
+            for (MitoHousehold hh : dataSet.getHouseholds().values()) {
+                trips.addAll(hh.getTripsForPurpose(purpose));
+            }
+            if (purpose == Purpose.AIRPORT && trips.size() > tripsBefore) {
+                airportZone = dataSet.getZones().get(Resources.instance.getInt(Properties.AIRPORT_ZONE));
+            }
+        }
 
-        for (Purpose purpose : purposes){
-            dataSet.getHouseholds().values().forEach(hh-> {
-                List<MitoTrip> trips = hh.getTripsForPurpose(purpose);
-                for (MitoTrip trip : trips){
-
-                    if (trip.getTripOrigin() != null && trip.getTripDestination() != null
-                            && trip.getTripMode() != null) {
-                        int departureTimeInMinutes;
-                        if (trip.getTripPurpose().equals(Purpose.AIRPORT) &&
-                                trip.getTripOrigin().equals(dataSet.getZones().get(Resources.instance.getInt(Properties.AIRPORT_ZONE)))){
-                            departureTimeInMinutes = chooseDepartureTime(trip);
-                        } else {
-                            int arrivalTimeInMinutes = chooseArrivalTime(trip);
-                            departureTimeInMinutes = arrivalTimeInMinutes - (int) estimateTravelTimeForDeparture(trip, arrivalTimeInMinutes);
-                        }
-                        //if departure is before midnight
-                        if (departureTimeInMinutes < 0) {
-                            departureTimeInMinutes = departureTimeInMinutes + 24 * 60;
-                        }
-                        trip.setDepartureInMinutes(departureTimeInMinutes);
-                        if (trip.isHomeBased()) {
-                            trip.setDepartureInMinutesReturnTrip(chooseDepartureTimeForReturnTrip(trip, departureTimeInMinutes));
-                        }
-
-                    } else {
+        final int numberOfBlocks = (trips.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final int[] issuesByBlock = new int[numberOfBlocks];
+        final long seed = MitoUtil.getRandomObject().nextLong();
+        dataSet.getExecutor().parallelFor(0, numberOfBlocks, 1, (firstBlock, lastBlock) -> {
+            for (int block = firstBlock; block < lastBlock; block++) {
+                final Random random = MitoUtil.createRandomStream(seed, block);
+                final int end = Math.min(trips.size(), (block + 1) * BLOCK_SIZE);
+                int issues = 0;
+                for (int i = block * BLOCK_SIZE; i < end; i++) {
+                    if (!chooseDepartureTime(trips.get(i), random)) {
                         issues++;
                     }
-                    counter++;
-                    if (LongMath.isPowerOfTwo(counter)) {
-                        logger.info(counter + " times of day assigned");
-                    }
                 }
-            });
+                issuesByBlock[block] = issues;
+            }
+        });
+
+        int issues = 0;
+        for (int blockIssues : issuesByBlock) {
+            issues += blockIssues;
         }
+        logger.info(trips.size() - issues + " times of day assigned");
         logger.warn(issues + " trips have no time of day since they have no origin, destination or mode");
     }
 
-    private int chooseDepartureTime(MitoTrip mitoTrip) {
-        return MitoUtil.select(departureMinuteCumProbByPurpose.get(mitoTrip.getTripPurpose()).toArray(), MitoUtil.getRandomObject());
+    /**
+     * @return false if the trip has no origin, destination or mode and therefore cannot be assigned a time of day
+     */
+    private boolean chooseDepartureTime(MitoTrip trip, Random random) {
+        if (trip.getTripOrigin() == null || trip.getTripDestination() == null || trip.getTripMode() == null) {
+            return false;
+        }
+        int departureTimeInMinutes;
+        if (trip.getTripPurpose().equals(Purpose.AIRPORT) && trip.getTripOrigin().equals(airportZone)) {
+            departureTimeInMinutes = departureMinuteSamplerByPurpose.get(Purpose.AIRPORT).sample(random);
+        } else {
+            int arrivalTimeInMinutes = chooseArrivalTime(trip, random);
+            departureTimeInMinutes = arrivalTimeInMinutes - (int) estimateTravelTimeForDeparture(trip, arrivalTimeInMinutes);
+        }
+        //if departure is before midnight
+        if (departureTimeInMinutes < 0) {
+            departureTimeInMinutes = departureTimeInMinutes + 24 * 60;
+        }
+        trip.setDepartureInMinutes(departureTimeInMinutes);
+        if (trip.isHomeBased()) {
+            trip.setDepartureInMinutesReturnTrip(chooseDepartureTimeForReturnTrip(trip, departureTimeInMinutes, random));
+        }
+        return true;
     }
 
-    private int chooseArrivalTime(MitoTrip mitoTrip) {
+    private int chooseArrivalTime(MitoTrip mitoTrip, Random random) {
         Purpose tripPurpose = mitoTrip.getTripPurpose();
         if(tripPurpose == Purpose.HBW || tripPurpose == Purpose.HBE) {
             MitoOccupation occupation = mitoTrip.getPerson().getOccupation();
             if(occupation != null){
-                return occupation.getStartTime_min().orElseGet(() -> MitoUtil.select(arrivalMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject()));
+                return occupation.getStartTime_min().orElseGet(() -> arrivalMinuteSamplerByPurpose.get(tripPurpose).sample(random));
             }
         }
-        return MitoUtil.select(arrivalMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject());
+        return arrivalMinuteSamplerByPurpose.get(tripPurpose).sample(random);
     }
 
-    private int chooseDepartureTimeForReturnTrip(MitoTrip mitoTrip, int arrivalTime) {
+    private int chooseDepartureTimeForReturnTrip(MitoTrip mitoTrip, int arrivalTime, Random random) {
         Purpose tripPurpose = mitoTrip.getTripPurpose();
         int departureTime;
         if(tripPurpose == Purpose.HBW || tripPurpose == Purpose.HBE) {
             MitoOccupation occupation = mitoTrip.getPerson().getOccupation();
             if(occupation != null) {
-                departureTime = occupation.getEndTime_min().orElseGet(() -> arrivalTime + MitoUtil.select(durationMinuteCumProbByPurpose.get(tripPurpose).toArray(), MitoUtil.getRandomObject()));
+                departureTime = occupation.getEndTime_min().orElseGet(() -> arrivalTime + durationMinuteSamplerByPurpose.get(tripPurpose).sample(random));
             } else {
-                int duration = MitoUtil.select(durationMinuteCumProbByPurpose.get(mitoTrip.getTripPurpose()).toArray(), MitoUtil.getRandomObject());
+                int duration = durationMinuteSamplerByPurpose.get(tripPurpose).sample(random);
                 departureTime = arrivalTime + duration;
             }
         } else {
-            int duration = MitoUtil.select(durationMinuteCumProbByPurpose.get(mitoTrip.getTripPurpose()).toArray(), MitoUtil.getRandomObject());
+            int duration = durationMinuteSamplerByPurpose.get(tripPurpose).sample(random);
             departureTime = arrivalTime + duration;
         }
         //if departure is after midnight
@@ -5,6 +5,12 @@ import de.tum.bgu.msm.data.Purpose;
 
 import java.util.Collection;
 
+/**
+ * Calculates the budgets of one discretionary purpose household by household.
+ * @deprecated {@link TravelTimeBudgetModule} calculates all budgets with {@link TravelTimeBudgetEngine}, which gives
+ * the same budgets. This class is kept for external callers and delegates to the given {@link TravelTimeBudgetCalculator}.
+ */
+@Deprecated
 public class DiscretionaryBudgetCalculator implements Runnable {
 
     private final Purpose purpose;
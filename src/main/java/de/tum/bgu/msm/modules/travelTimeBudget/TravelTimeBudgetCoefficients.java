@@ -0,0 +1,141 @@
+package de.tum.bgu.msm.modules.travelTimeBudget;
+
+import de.tum.bgu.msm.data.AreaTypes;
+
+/**
+ * Coefficients of the Weibull travel time budget models by purpose. Categorical terms (household size, economic
+ * status and area type of the home zone) are stored as lookup arrays, so that evaluating a budget does not need
+ * any branching on the purpose.
+ */
+final class TravelTimeBudgetCoefficients {
+
+    private static final int MAX_HOUSEHOLD_SIZE_CATEGORY = 5;
+
+    static final TravelTimeBudgetCoefficients TOTAL = new TravelTimeBudgetCoefficients(
+            4.3818, 0.713, 0.051, -0.0125, 0, 0, 0,
+            0.0438, 0.0459, 0, 0.1314, 0.0269, 0.1200,
+            new double[]{0, 0, 0.4090, 0.5487, 0.6440, 0.6913},
+            new double[]{0, 0, 0, 0, 0.0547, 0.1107},
+            new double[]{0, -0.0878, -0.0832, -0.1061});
+
+    static final TravelTimeBudgetCoefficients HBO = new TravelTimeBudgetCoefficients(
+            4.0951, 0.899, 0.0885, -0.0225, 0.0203, 0, 0,
+            -0.2404, -0.1792, -0.1544, 0.2850, -0.0770, -0.0175,
+            new double[]{0, 0, 0.2939, 0.3022, 0.3931, 0.4893},
+            new double[]{0, 0, 0, 0, 0, 0.0449},
+            new double[]{0, -0.1474, -0.1594, -0.1133});
+
+    static final TravelTimeBudgetCoefficients HBS = new TravelTimeBudgetCoefficients(
+            2.751, 0.814, 0, 0, 0, 0.139, 0.118,
+            -0.065, -0.046, 0.599, -0.062, -0.045, 0,
+            new double[]{0, 0, 0, 0.080, 0, 0},
+            new double[]{0, 0, 0.142, 0, -0.051, -0.065},
+            new double[]{0, 0, -0.136, 0.046});
+
+    static final TravelTimeBudgetCoefficients NHBW = new TravelTimeBudgetCoefficients(
+            2.921, 0.812, 0.075, 0, 0, -0.09, 0,
+            -0.155, 0, -0.067, -0.021, 0.317, 0,
+            new double[]{0, 0, 0.225, 0.308, 0.420, 0.441},
+            new double[]{0, 0, 0, 0, 0.13, 0.19},
+            null);
+
+    static final TravelTimeBudgetCoefficients NHBO = new TravelTimeBudgetCoefficients(
+            3.45457, 1.01, 0, 0, 0.04670, 0, 0,
+            -0.24295, -0.14712, -0.15595, -0.07980, -0.08459, 0.27826,
+            new double[]{0, 0, 0.27228, 0.35532, 0.52997, 0.70424},
+            new double[]{0, 0, 0, 0, 0.06283, 0.09628},
+            new double[]{0, -0.05425, 0, -0.13383});
+
+    private final double intercept;
+    private final double scale;
+    private final double youngAdultsParam;
+    private final double carsParam;
+    private final double workersParam;
+    private final double femalesParam;
+    private final double retireesParam;
+    private final double hbwParam;
+    private final double hbeParam;
+    private final double hbsParam;
+    private final double hboParam;
+    private final double nhbwParam;
+    private final double nhboParam;
+    private final double[] householdSizeParams;
+    private final double[] economicStatusParams;
+    private final double[] areaTypeParams;
+
+    /**
+     * @param householdSizeParams   by household size, the last entry is used for all larger households
+     * @param economicStatusParams  by economic status
+     * @param areaTypeParams        by ordinal of {@link AreaTypes.SGType} or null if the model has no area type term
+     */
+    private TravelTimeBudgetCoefficients(double intercept, double wbScale, double youngAdultsParam, double carsParam,
+                                         double workersParam, double femalesParam, double retireesParam,
+                                         double hbwParam, double hbeParam, double hbsParam, double hboParam,
+                                         double nhbwParam, double nhboParam, double[] householdSizeParams,
+                                         double[] economicStatusParams, double[] areaTypeParams) {
+        this.intercept = intercept;
+        this.scale = Math.pow(-Math.log(0.5), 1. / wbScale);
+        this.youngAdultsParam = youngAdultsParam;
+        this.carsParam = carsParam;
+        this.workersParam = workersParam;
+        this.femalesParam = femalesParam;
+        this.retireesParam = retireesParam;
+        this.hbwParam = hbwParam;
+        this.hbeParam = hbeParam;
+        this.hbsParam = hbsParam;
+        this.hboParam = hboParam;
+        this.nhbwParam = nhbwParam;
+        this.nhboParam = nhboParam;
+        this.householdSizeParams = householdSizeParams;
+        this.economicStatusParams = economicStatusParams;
+        this.areaTypeParams = areaTypeParams;
+    }
+
+    /**
+     * @return the coefficients for the given purpose or null if the purpose has no budget (HBR)
+     */
+    static TravelTimeBudgetCoefficients forPurpose(String purpose) {
+        switch (purpose) {
+            case "Total":
+                return TOTAL;
+            case "HBO":
+                return HBO;
+            case "HBS":
+                return HBS;
+            case "NHBW":
+                return NHBW;
+            case "NHBO":
+                return NHBO;
+            case "HBR":
+                return null;
+            default:
+                throw new RuntimeException("Undefined purpose given!");
+        }
+    }
+
+    boolean usesAreaType() {
+        return areaTypeParams != null;
+    }
+
+    /**
+     * @return the term of the home zone's area type, 0 if it is unknown
+     */
+    double getAreaTypeTerm(AreaTypes.SGType areaType) {
+        return areaTypeParams == null || areaType == null ? 0 : areaTypeParams[areaType.ordinal()];
+    }
+
+    /**
+     * @param areaTypeTerm term of the home zone as given by {@link #getAreaTypeTerm(AreaTypes.SGType)}
+     */
+    double calculateBudget(int householdSize, int economicStatus, double areaTypeTerm,
+                           int females, int youngAdults, int retirees, int workers, int cars,
+                           int hbw, int hbe, int hbs, int hbo, int nhbw, int nhbo) {
+        final double householdSizeParam = householdSizeParams[Math.max(0, Math.min(householdSize, MAX_HOUSEHOLD_SIZE_CATEGORY))];
+        final double economicStatusParam = economicStatus >= 0 && economicStatus < economicStatusParams.length ?
+                economicStatusParams[economicStatus] : 0;
+        final double utility = intercept + householdSizeParam + areaTypeTerm + females * femalesParam + economicStatusParam +
+                youngAdults * youngAdultsParam + retirees * retireesParam + workers * workersParam + cars * carsParam +
+                hbw * hbwParam + hbe * hbeParam + hbs * hbsParam + hbo * hboParam + nhbw * nhbwParam + nhbo * nhboParam;
+        return scale * Math.exp(utility);
+    }
+}
@@ -0,0 +1,209 @@
+package de.tum.bgu.msm.modules.travelTimeBudget;
+
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Columnar calculation of the travel time budgets of all households. Household attributes are extracted once into
+ * primitive columns, area type terms are precomputed per zone, and all discretionary and mandatory budgets of a
+ * household are then evaluated in a single pass. Both steps run in parallel over chunks of households.
+ */
+class TravelTimeBudgetEngine {
+
+    private static final Logger logger = Logger.getLogger(TravelTimeBudgetEngine.class);
+
+    private static final int GRAIN_SIZE = 1024;
+
+    private final DataSet dataSet;
+
+    private final Purpose[] discretionaryPurposes;
+    private final TravelTimeBudgetCoefficients[] coefficients;
+
+    private final Purpose[] mandatoryPurposes;
+    private final MitoOccupationStatus[] mandatoryOccupationStatus;
+    private final double[] defaultBudgets;
+    private final AtomicInteger[] defaultBudgeted;
+
+    private final Map<MitoZone, double[]> areaTypeTermsByZone = new IdentityHashMap<>();
+    private final double[] unknownAreaTypeTerms;
+
+    private MitoHousehold[] households;
+    private double[][] areaTypeTerms;
+    private int[] householdSize;
+    private int[] economicStatus;
+    private int[] females;
+    private int[] youngAdults;
+    private int[] retirees;
+    private int[] workers;
+    private int[] cars;
+    private int[] hbwTrips;
+    private int[] hbeTrips;
+    private int[] hbsTrips;
+    private int[] hboTrips;
+    private int[] nhbwTrips;
+    private int[] nhboTrips;
+
+    TravelTimeBudgetEngine(DataSet dataSet, List<Purpose> purposes) {
+        this.dataSet = dataSet;
+
+        List<Purpose> discretionary = new ArrayList<>();
+        List<Purpose> mandatory = new ArrayList<>();
+        for (Purpose purpose : purposes) {
+            if (Purpose.getDiscretionaryPurposes().contains(purpose)) {
+                discretionary.add(purpose);
+            } else if (Purpose.getMandatoryPurposes().contains(purpose)) {
+                mandatory.add(purpose);
+            }
+        }
+
+        discretionaryPurposes = discretionary.toArray(new Purpose[0]);
+        coefficients = new TravelTimeBudgetCoefficients[discretionaryPurposes.length];
+        for (int i = 0; i < discretionaryPurposes.length; i++) {
+            coefficients[i] = TravelTimeBudgetCoefficients.forPurpose(discretionaryPurposes[i].name());
+        }
+
+        mandatoryPurposes = mandatory.toArray(new Purpose[0]);
+        mandatoryOccupationStatus = new MitoOccupationStatus[mandatoryPurposes.length];
+        defaultBudgets = new double[mandatoryPurposes.length];
+        defaultBudgeted = new AtomicInteger[mandatoryPurposes.length];
+        for (int i = 0; i < mandatoryPurposes.length; i++) {
+            mandatoryOccupationStatus[i] = mandatoryPurposes[i] == Purpose.HBW ? MitoOccupationStatus.WORKER : MitoOccupationStatus.STUDENT;
+            defaultBudgets[i] = Resources.instance.getDouble(Properties.DEFAULT_BUDGET + mandatoryPurposes[i], 30.);
+            defaultBudgeted[i] = new AtomicInteger();
+        }
+
+        unknownAreaTypeTerms = calculateAreaTypeTerms(null);
+    }
+
+    void run() {
+        for (MitoZone zone : dataSet.getZones().values()) {
+            areaTypeTermsByZone.put(zone, calculateAreaTypeTerms(zone.getAreaTypeSG()));
+        }
+        extractColumns();
+
+        final AtomicInteger unknownAreaTypes = new AtomicInteger();
+        dataSet.getExecutor().parallelFor(0, households.length, GRAIN_SIZE, (from, to) -> {
+            int unknown = 0;
+            for (int i = from; i < to; i++) {
+                if (areaTypeTerms[i] == unknownAreaTypeTerms) {
+                    unknown++;
+                }
+                calculateDiscretionaryBudgets(i);
+                calculateMandatoryBudgets(i);
+            }
+            unknownAreaTypes.addAndGet(unknown);
+        });
+
+        if (unknownAreaTypes.get() > 0 && discretionaryPurposes.length > 0) {
+            logger.warn("Unknown area type of the home zone of " + unknownAreaTypes.get() + " households. "
+                    + "Budget estimation might be wrong. (Check if households have dwellings)");
+        }
+        for (int i = 0; i < mandatoryPurposes.length; i++) {
+            if (defaultBudgeted[i].get() > 0) {
+                logger.warn("There have been " + defaultBudgeted[i].get() + " " + mandatoryPurposes[i]
+                        + " trips that were accounted for with the default budget of "
+                        + defaultBudgets[i] + " minutes in the " + mandatoryPurposes[i] + " travel time budgets"
+                        + " because no " + mandatoryOccupationStatus[i] + " was assigned (or occupation zone missing).");
+            }
+        }
+    }
+
+    private double[] calculateAreaTypeTerms(AreaTypes.SGType areaType) {
+        final double[] terms = new double[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            terms[i] = coefficients[i] == null ? 0 : coefficients[i].getAreaTypeTerm(areaType);
+        }
+        return terms;
+    }
+
+    private void extractColumns() {
+        households = dataSet.getHouseholds().values().toArray(new MitoHousehold[0]);
+        final int n = households.length;
+        areaTypeTerms = new double[n][];
+        householdSize = new int[n];
+        economicStatus = new int[n];
+        females = new int[n];
+        youngAdults = new int[n];
+        retirees = new int[n];
+        workers = new int[n];
+        cars = new int[n];
+        hbwTrips = new int[n];
+        hbeTrips = new int[n];
+        hbsTrips = new int[n];
+        hboTrips = new int[n];
+        nhbwTrips = new int[n];
+        nhboTrips = new int[n];
+
+        dataSet.getExecutor().parallelFor(0, n, GRAIN_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                final MitoHousehold household = households[i];
+                final MitoZone homeZone = household.getHomeZone();
+                double[] terms = unknownAreaTypeTerms;
+                if (homeZone != null && homeZone.getAreaTypeSG() != null) {
+                    terms = areaTypeTermsByZone.get(homeZone);
+                    if (terms == null) {
+                        terms = calculateAreaTypeTerms(homeZone.getAreaTypeSG());
+                    }
+                }
+                areaTypeTerms[i] = terms;
+                householdSize[i] = household.getHhSize();
+                economicStatus[i] = household.getEconomicStatus();
+                females[i] = household.getNumberOfFemales();
+                youngAdults[i] = household.getNumberOfYoungAdults();
+                retirees[i] = household.getNumberOfRetirees();
+                workers[i] = household.getNumberOfWorkers();
+                cars[i] = household.getAutos();
+                hbwTrips[i] = household.getTripsForPurpose(Purpose.HBW).size();
+                hbeTrips[i] = household.getTripsForPurpose(Purpose.HBE).size();
+                hbsTrips[i] = household.getTripsForPurpose(Purpose.HBS).size();
+                hboTrips[i] = household.getTripsForPurpose(Purpose.HBO).size();
+                nhbwTrips[i] = household.getTripsForPurpose(Purpose.NHBW).size();
+                nhboTrips[i] = household.getTripsForPurpose(Purpose.NHBO).size();
+            }
+        });
+    }
+
+    private void calculateDiscretionaryBudgets(int i) {
+        for (int p = 0; p < discretionaryPurposes.length; p++) {
+            double budget = 0;
+            if (coefficients[p] != null) {
+                budget = coefficients[p].calculateBudget(householdSize[i], economicStatus[i], areaTypeTerms[i][p],
+                        females[i], youngAdults[i], retirees[i], workers[i], cars[i],
+                        hbwTrips[i], hbeTrips[i], hbsTrips[i], hboTrips[i], nhbwTrips[i], nhboTrips[i]);
+            }
+            households[i].setTravelTimeBudgetByPurpose(discretionaryPurposes[p], budget);
+        }
+    }
+
+    private void calculateMandatoryBudgets(int i) {
+        final MitoHousehold household = households[i];
+        final TravelTimes travelTimes = dataSet.getTravelTimes();
+        for (int p = 0; p < mandatoryPurposes.length; p++) {
+            double budget = 0;
+            for (MitoTrip trip : household.getTripsForPurpose(mandatoryPurposes[p])) {
+                final MitoPerson person = trip.getPerson();
+                if (person.getMitoOccupationStatus().equals(mandatoryOccupationStatus[p])
+                        && person.getOccupation() != null
+                        && person.getOccupation().getOccupationZone() != null) {
+                    //Multiply by 2, as the budget should contain the return trip of home based trips as well
+                    budget += 2 * travelTimes.getTravelTime(household.getHomeZone(),
+                            person.getOccupation(), dataSet.getPeakHour(), TransportMode.car);
+                } else {
+                    budget += defaultBudgets[p];
+                    defaultBudgeted[p].incrementAndGet();
+                }
+            }
+            household.setTravelTimeBudgetByPurpose(mandatoryPurposes[p], budget);
+        }
+    }
+}
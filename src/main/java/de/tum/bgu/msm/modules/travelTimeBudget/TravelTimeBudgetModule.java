@@ -6,12 +6,8 @@ import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.modules.Module;
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 /**
  * Runs calculation of travel time budget for the Microsimulation Transport Orchestrator (MITO)
@@ -39,26 +35,7 @@ public class TravelTimeBudgetModule extends Module {
 
     private void calculateTravelTimeBudgets() {
         logger.info("Started microscopic travel time budget calculation.");
-        final ExecutorService service = Executors.newFixedThreadPool(Purpose.values().length);
-        List<Future<?>> results = new ArrayList<>();
-        for (Purpose purpose : purposes){
-            if (Purpose.getDiscretionaryPurposes().contains(purpose)){
-                results.add(service.submit(new DiscretionaryBudgetCalculator(purpose, dataSet.getHouseholds().values())));
-            } else if (Purpose.getMandatoryPurposes().contains(purpose)){
-                results.add(service.submit(new MandatoryBudgetCalculator(dataSet.getHouseholds().values(), purpose, dataSet.getTravelTimes(), dataSet.getPeakHour())));
-                //results.add(service.submit((new MandatoryBudgetCalculator(dataSet.getHouseholds().values(), Purpose.HBE, dataSet.getTravelTimes(), dataSet.getPeakHour()))));
-            }
-        }
-        service.shutdown();
-        results.forEach(r -> {
-            try {
-                r.get();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            } finally {
-                service.shutdownNow();
-            }
-        });
+        new TravelTimeBudgetEngine(dataSet, purposes).run();
 
         logger.info("  Adjusting travel time budgets.");
         //adjustDiscretionaryPurposeBudgets();
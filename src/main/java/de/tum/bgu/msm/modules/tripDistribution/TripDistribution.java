@@ -11,7 +11,7 @@ import de.tum.bgu.msm.modules.tripDistribution.destinationChooser.HbsHboDistribu
 import de.tum.bgu.msm.modules.tripDistribution.destinationChooser.NhbwNhboDistribution;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
-import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.log4j.Logger;
 import org.matsim.core.utils.collections.Tuple;
@@ -87,16 +87,15 @@ public final class TripDistribution extends Module {
                         impedanceCalibrationParameters.get(purpose)));
             }
         }
-        ConcurrentExecutor<Tuple<Purpose, IndexedDoubleMatrix2D>> executor = ConcurrentExecutor.fixedPoolService(Purpose.values().length);
-        List<Tuple<Purpose,IndexedDoubleMatrix2D>> results = executor.submitTasksAndWaitForCompletion(utilityCalcTasks);
+        List<Tuple<Purpose,IndexedDoubleMatrix2D>> results = dataSet.getExecutor().invokeAll(utilityCalcTasks);
         for(Tuple<Purpose, IndexedDoubleMatrix2D> result: results) {
             utilityMatrices.put(result.getFirst(), result.getSecond());
         }
     }
 
     private void distributeTrips() {
-        final int numberOfThreads = Runtime.getRuntime().availableProcessors();
-        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
+        final SharedExecutor executor = dataSet.getExecutor();
+        final int numberOfThreads = executor.getParallelism();
 
         final Collection<MitoHousehold> households = dataSet.getHouseholds().values();
         final int partitionSize = (int) ((double) households.size() / (numberOfThreads)) + 1;
@@ -125,9 +124,8 @@ public final class TripDistribution extends Module {
             }
         }
 
-        executor.submitTasksAndWaitForCompletion(homeBasedTasks);
+        executor.invokeAll(homeBasedTasks);
 
-        executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
         List<Callable<Void>> nonHomeBasedTasks = new ArrayList<>();
 
         for (final List<MitoHousehold> partition : partitions) {
@@ -148,7 +146,7 @@ public final class TripDistribution extends Module {
         if (Resources.instance.getBoolean(Properties.ADD_AIRPORT_DEMAND, false)) {
             nonHomeBasedTasks.add(AirportDistribution.airportDistribution(dataSet));
         }
-        executor.submitTasksAndWaitForCompletion(nonHomeBasedTasks);
+        executor.invokeAll(nonHomeBasedTasks);
 
         logger.info("Distributed: " + distributedTripsCounter + ", failed: " + failedTripsCounter);
         if(randomOccupationDestinationTrips.get() > 0) {
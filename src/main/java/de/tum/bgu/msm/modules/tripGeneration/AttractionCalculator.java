@@ -41,6 +41,9 @@ public class AttractionCalculator {
 
     private static final Logger logger = Logger.getLogger(AttractionCalculator.class);
 
+    private static final ExplanatoryVariable[] VARIABLES = ExplanatoryVariable.values();
+    private static final int GRAIN_SIZE = 256;
+
     private final DataSet dataSet;
 
     AttractionCalculator(DataSet dataSet, List<Purpose> purposes) {
@@ -48,44 +51,74 @@ public class AttractionCalculator {
         this.purposes = purposes;
     }
 
+    /**
+     * Builds a zone x variable matrix of the explanatory variables once and then calculates the attractions of
+     * all purposes as one matrix-vector product per purpose. Both steps run in parallel over blocks of zones.
+     */
     public void run() {
         logger.info("  Calculating trip attractions");
-        for (MitoZone zone : dataSet.getZones().values()) {
-            for (Purpose purpose : purposes) {
-                float tripAttraction = 0;
-                for (ExplanatoryVariable variable : ExplanatoryVariable.values()) {
-                    float attribute;
-                    switch (variable) {
-                        case HH:
-                            attribute = zone.getNumberOfHouseholds();
-                            break;
-                        case TOT:
-                            attribute = zone.getTotalEmpl();
-                            break;
-                        case RE:
-                            attribute = zone.getEmployeesByCategory(Category.RETAIL);
-                            break;
-                        case OFF:
-                            attribute = zone.getEmployeesByCategory(Category.OFFICE);
-                            break;
-                        case OTH:
-                            attribute = zone.getEmployeesByCategory(Category.OTHER);
-                            break;
-                        case ENR:
-                            attribute = zone.getSchoolEnrollment();
-                            break;
-                        default:
-                            throw new RuntimeException("Unknown trip attraction Variable.");
-                    }
-                    Double rate = purpose.getTripAttractionForVariable(variable);
-                    if(rate == null) {
-                        throw new RuntimeException("Purpose " + purpose + " does not have an attraction" +
-                                " rate for variable " + variable + " registered.");
+        final MitoZone[] zones = dataSet.getZones().values().toArray(new MitoZone[0]);
+        final double[][] rates = getAttractionRates();
+        final float[] attributes = new float[zones.length * VARIABLES.length];
+
+        dataSet.getExecutor().parallelFor(0, zones.length, GRAIN_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                fillAttributes(zones[i], attributes, i * VARIABLES.length);
+                for (int p = 0; p < rates.length; p++) {
+                    // accumulated in float precision and variable order, as attractions have always been
+                    float tripAttraction = 0;
+                    for (int v = 0; v < VARIABLES.length; v++) {
+                        tripAttraction += attributes[i * VARIABLES.length + v] * rates[p][v];
                     }
-                    tripAttraction += attribute * rate;
+                    zones[i].setTripAttraction(purposes.get(p), tripAttraction);
                 }
-                zone.setTripAttraction(purpose, tripAttraction);
             }
+        });
+    }
+
+    private double[][] getAttractionRates() {
+        final double[][] rates = new double[purposes.size()][VARIABLES.length];
+        for (int p = 0; p < rates.length; p++) {
+            final Purpose purpose = purposes.get(p);
+            for (ExplanatoryVariable variable : VARIABLES) {
+                Double rate = purpose.getTripAttractionForVariable(variable);
+                if(rate == null) {
+                    throw new RuntimeException("Purpose " + purpose + " does not have an attraction" +
+                            " rate for variable " + variable + " registered.");
+                }
+                rates[p][variable.ordinal()] = rate;
+            }
+        }
+        return rates;
+    }
+
+    private static void fillAttributes(MitoZone zone, float[] attributes, int offset) {
+        final int[] employees = zone.getEmployeesPerCategory();
+        for (ExplanatoryVariable variable : VARIABLES) {
+            final float attribute;
+            switch (variable) {
+                case HH:
+                    attribute = zone.getNumberOfHouseholds();
+                    break;
+                case TOT:
+                    attribute = zone.getTotalEmpl();
+                    break;
+                case RE:
+                    attribute = employees[Category.RETAIL.ordinal()];
+                    break;
+                case OFF:
+                    attribute = employees[Category.OFFICE.ordinal()];
+                    break;
+                case OTH:
+                    attribute = employees[Category.OTHER.ordinal()];
+                    break;
+                case ENR:
+                    attribute = zone.getSchoolEnrollment();
+                    break;
+                default:
+                    throw new RuntimeException("Unknown trip attraction Variable.");
+            }
+            attributes[offset + variable.ordinal()] = attribute;
         }
     }
 }
@@ -41,6 +41,18 @@ public class HouseholdType {
         return this.id;
     }
 
+    void addRecord() {
+        numberOfRecords++;
+    }
+
+    int[] getLowerBounds() {
+        return new int[]{sizeL, workersL, economicStatusL, autosL, regionL};
+    }
+
+    int[] getUpperBounds() {
+        return new int[]{sizeH, workersH, economicStatusH, autosH, regionH};
+    }
+
     public boolean applies(int size, int workers, int economicStatus, int autos, int region) {
         if (appliesInSize(size) && appliesInWorkers(workers) && appliesInEconomicStatus(economicStatus) && appliesInAutos(autos) && appliesInRegion(region)) {
             numberOfRecords++;
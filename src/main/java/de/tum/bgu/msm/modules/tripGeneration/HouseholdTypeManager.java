@@ -1,15 +1,18 @@
 package de.tum.bgu.msm.modules.tripGeneration;
 
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.HouseholdTypeKey;
 import de.tum.bgu.msm.data.MitoHousehold;
 import de.tum.bgu.msm.data.Purpose;
 import de.tum.bgu.msm.io.input.readers.GenericCsvReader;
 import de.tum.bgu.msm.io.input.readers.GenericCsvReader.GenericCsvTable;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.AliasSampler;
 import org.apache.log4j.Logger;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,21 +25,58 @@ public class HouseholdTypeManager {
 
     private static final Logger logger = Logger.getLogger(HouseholdTypeManager.class);
 
+    private static final int MAX_SIZE = 8;
+    private static final int MAX_WORKERS = 4;
+    private static final int MAX_AUTOS = 3;
+
     private final Purpose purpose;
     private final Map<HouseholdType, Integer[]> tripFrequency;
+    private final Map<HouseholdType, AliasSampler> tripFrequencySamplers = new HashMap<>();
 
     final List<HouseholdType> householdTypes = new ArrayList<>();
 
+    /**
+     * Direct lookup table over the clamped (size, workers, economic status, autos, region) tuple.
+     * Bounds are the minimum lower and maximum upper limits of all household type definitions.
+     */
+    private HouseholdType[] typeLookup;
+    private final int[] lowerBounds = new int[5];
+    private final int[] dimensions = new int[5];
+
     public HouseholdTypeManager(Purpose purpose) {
         this.purpose = purpose;
         createHouseHoldTypeDefinitions();
+        createTypeLookup();
         tripFrequency = readTripFrequencies();
+        createTripFrequencySamplers();
     }
 
     public Integer[] getTripFrequenciesForHouseholdType(HouseholdType ht) {
         return tripFrequency.get(ht);
     }
 
+    /**
+     * Returns a precomputed alias table over the number of trips for the given household type,
+     * or null if no trip frequencies were found for it.
+     */
+    public AliasSampler getTripFrequencySamplerForHouseholdType(HouseholdType ht) {
+        return tripFrequencySamplers.get(ht);
+    }
+
+    private void createTripFrequencySamplers() {
+        for (Map.Entry<HouseholdType, Integer[]> entry : tripFrequency.entrySet()) {
+            Integer[] frequencies = entry.getValue();
+            if (frequencies.length == 0) {
+                continue;
+            }
+            double[] weights = new double[frequencies.length];
+            for (int i = 0; i < frequencies.length; i++) {
+                weights[i] = frequencies[i];
+            }
+            tripFrequencySamplers.put(entry.getKey(), new AliasSampler(weights));
+        }
+    }
+
     private Map<HouseholdType, Integer[]> readTripFrequencies() {
         Path filePath = Resources.instance.getTripFrequenciesFilePath(purpose);
         GenericCsvReader csvReader = new GenericCsvReader(filePath);
@@ -44,11 +84,26 @@ public class HouseholdTypeManager {
         GenericCsvTable dataTable = csvReader.getTable();
         Map<HouseholdType, Integer[]> tripFrequency = new HashMap<>();
 
+        final int purposeColumn = dataTable.getColumnIndexOf("typePurpose");
+        final String[] boundColumns = {"hhSize_L", "hhSize_H", "workers_L", "workers_H",
+                "econStatus_L", "econStatus_H", "autos_L", "autos_H", "region_L", "region_H"};
+        final int[] bounds = new int[boundColumns.length];
+        for (int i = 0; i < boundColumns.length; i++) {
+            bounds[i] = dataTable.getColumnIndexOf(boundColumns[i]);
+        }
+        final List<Integer> tripColumns = new ArrayList<>();
+        for (int trips = 0; trips < 100; trips++) {
+            String columnName = "trips_" + trips;
+            if (dataTable.containsColumn(columnName)) {
+                tripColumns.add(dataTable.getColumnIndexOf(columnName));
+            }
+        }
+
         for (HouseholdType ht: householdTypes) {
             List<Integer> tripFrequencyThisHousehold = new ArrayList<>();
             boolean foundThisHhType = false;
             for (int row = 0; row < dataTable.getRowCount(); row++) {
-                String purpose = dataTable.getString(row, dataTable.getColumnIndexOf("typePurpose"));
+                String purpose = dataTable.getString(row, purposeColumn);
                 if (!purpose.equals(this.purpose.toString())) {
                     logger.error("File " + filePath + " contains trip purpose " + purpose +
                             ", which is different from expected purpose " + this.purpose);
@@ -56,22 +111,19 @@ public class HouseholdTypeManager {
                             ", which is different from expected purpose " + this.purpose);
                 }
 
-                if (ht.hasTheseAttributes(dataTable.getInt(row, "hhSize_L"),
-                        dataTable.getInt(row, "hhSize_H"),
-                        dataTable.getInt(row, "workers_L"),
-                        dataTable.getInt(row, "workers_H"),
-                        dataTable.getInt(row, "econStatus_L"),
-                        dataTable.getInt(row, "econStatus_H"),
-                        dataTable.getInt(row, "autos_L"),
-                        dataTable.getInt(row, "autos_H"),
-                        dataTable.getInt(row, "region_L"),
-                        dataTable.getInt(row, "region_H"))) {
+                if (ht.hasTheseAttributes(dataTable.getInt(row, bounds[0]),
+                        dataTable.getInt(row, bounds[1]),
+                        dataTable.getInt(row, bounds[2]),
+                        dataTable.getInt(row, bounds[3]),
+                        dataTable.getInt(row, bounds[4]),
+                        dataTable.getInt(row, bounds[5]),
+                        dataTable.getInt(row, bounds[6]),
+                        dataTable.getInt(row, bounds[7]),
+                        dataTable.getInt(row, bounds[8]),
+                        dataTable.getInt(row, bounds[9]))) {
                     foundThisHhType = true;
-                    for (int trips = 0; trips < 100; trips++) {
-                        String columnName = "trips_" + trips;
-                        if (dataTable.containsColumn(columnName)) {
-                            tripFrequencyThisHousehold.add(dataTable.getInt(row, columnName));
-                        }
+                    for (int column : tripColumns) {
+                        tripFrequencyThisHousehold.add(dataTable.getInt(row, column));
                     }
                     tripFrequency.put(ht, tripFrequencyThisHousehold.toArray(new Integer[]{}));
                 }
@@ -136,27 +188,102 @@ public class HouseholdTypeManager {
         }
     }
 
-    HouseholdType determineHouseholdType(MitoHousehold hh) {
-        int areaType = -1;
-        if (hh.getHomeZone() != null) {
-            areaType = hh.getHomeZone().getAreaTypeSG().code() / 10;
-        } else {
-            logger.info("Home MitoZone for Household  " + hh.getId() + " is null!");
+    private void createTypeLookup() {
+        int[] upperBounds = new int[5];
+        Arrays.fill(lowerBounds, Integer.MAX_VALUE);
+        Arrays.fill(upperBounds, Integer.MIN_VALUE);
+        for (HouseholdType type : householdTypes) {
+            int[] lower = type.getLowerBounds();
+            int[] upper = type.getUpperBounds();
+            for (int i = 0; i < 5; i++) {
+                lowerBounds[i] = Math.min(lowerBounds[i], lower[i]);
+                upperBounds[i] = Math.max(upperBounds[i], upper[i]);
+            }
+        }
+        upperBounds[0] = Math.min(upperBounds[0], MAX_SIZE);
+        upperBounds[1] = Math.min(upperBounds[1], MAX_WORKERS);
+        upperBounds[3] = Math.min(upperBounds[3], MAX_AUTOS);
+
+        int cells = 1;
+        for (int i = 0; i < 5; i++) {
+            dimensions[i] = Math.max(0, upperBounds[i] - lowerBounds[i] + 1);
+            cells *= dimensions[i];
+        }
+        typeLookup = new HouseholdType[cells];
+
+        // the first matching definition wins, as in the former linear scan over all household types
+        for (HouseholdType type : householdTypes) {
+            int[] lower = type.getLowerBounds();
+            int[] upper = type.getUpperBounds();
+            for (int size = Math.max(lower[0], lowerBounds[0]); size <= Math.min(upper[0], upperBounds[0]); size++) {
+                for (int workers = Math.max(lower[1], lowerBounds[1]); workers <= Math.min(upper[1], upperBounds[1]); workers++) {
+                    for (int econStatus = lower[2]; econStatus <= upper[2]; econStatus++) {
+                        for (int autos = Math.max(lower[3], lowerBounds[3]); autos <= Math.min(upper[3], upperBounds[3]); autos++) {
+                            for (int region = lower[4]; region <= upper[4]; region++) {
+                                int index = getLookupIndex(size, workers, econStatus, autos, region);
+                                if (typeLookup[index] == null) {
+                                    typeLookup[index] = type;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
         }
-        return determineHouseholdType(hh.getHhSize(), DataSet.getNumberOfWorkersForHousehold(hh),
-                hh.getEconomicStatus(), hh.getAutos(), areaType);
     }
 
-    private HouseholdType determineHouseholdType(int hhSze, int hhWrk, int hhEconStatus, int hhVeh, int hhReg) {
+    private int getLookupIndex(int size, int workers, int econStatus, int autos, int region) {
+        int index = 0;
+        index = appendToIndex(index, size, 0);
+        index = appendToIndex(index, workers, 1);
+        index = appendToIndex(index, econStatus, 2);
+        index = appendToIndex(index, autos, 3);
+        index = appendToIndex(index, region, 4);
+        return index;
+    }
 
-        hhSze = Math.min(hhSze, 8);
-        hhWrk = Math.min(hhWrk, 4);
-        hhVeh = Math.min(hhVeh, 3);
+    private int appendToIndex(int index, int value, int dimension) {
+        int offset = value - lowerBounds[dimension];
+        if (index < 0 || offset < 0 || offset >= dimensions[dimension]) {
+            return -1;
+        }
+        return index * dimensions[dimension] + offset;
+    }
 
-        for (HouseholdType type : householdTypes) {
-            if (type.applies(hhSze, hhWrk, hhEconStatus, hhVeh, hhReg)) {
-                return type;
+    HouseholdType determineHouseholdType(MitoHousehold hh) {
+        HouseholdTypeKey key = getHouseholdTypeKey(hh);
+        return determineHouseholdType(key.getSize(), key.getWorkers(), key.getEconomicStatus(), key.getAutos(), key.getRegion());
+    }
+
+    /**
+     * Returns the clamped (size, workers, economic status, autos, region) attributes of the household. They do not
+     * depend on the purpose, so they are computed once and cached on the household for all household type managers.
+     */
+    static HouseholdTypeKey getHouseholdTypeKey(MitoHousehold hh) {
+        HouseholdTypeKey key = hh.getHouseholdTypeKey();
+        if (key == null) {
+            int areaType = -1;
+            if (hh.getHomeZone() != null) {
+                areaType = hh.getHomeZone().getAreaTypeSG().code() / 10;
+            } else {
+                logger.info("Home MitoZone for Household  " + hh.getId() + " is null!");
             }
+            key = new HouseholdTypeKey(Math.min(hh.getHhSize(), MAX_SIZE),
+                    Math.min(DataSet.getNumberOfWorkersForHousehold(hh), MAX_WORKERS),
+                    hh.getEconomicStatus(),
+                    Math.min(hh.getAutos(), MAX_AUTOS),
+                    areaType);
+            hh.setHouseholdTypeKey(key);
+        }
+        return key;
+    }
+
+    private HouseholdType determineHouseholdType(int hhSze, int hhWrk, int hhEconStatus, int hhVeh, int hhReg) {
+        int index = getLookupIndex(hhSze, hhWrk, hhEconStatus, hhVeh, hhReg);
+        if (index >= 0 && typeLookup[index] != null) {
+            HouseholdType type = typeLookup[index];
+            type.addRecord();
+            return type;
         }
         logger.error("Could not define household type: " + hhSze + " " + hhWrk + " " + hhEconStatus + " " + hhVeh + " " + hhReg);
         return null;
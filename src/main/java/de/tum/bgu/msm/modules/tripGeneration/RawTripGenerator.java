@@ -2,7 +2,6 @@ package de.tum.bgu.msm.modules.tripGeneration;
 
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.util.MitoUtil;
-import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import org.apache.log4j.Logger;
 import org.matsim.core.utils.collections.Tuple;
 
@@ -11,7 +10,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.IntStream;
 
 /**
  * Created by Nico on 20.07.2017.
@@ -26,6 +24,7 @@ public class RawTripGenerator {
     private final DataSet dataSet;
     private TripsByPurposeGeneratorFactory tripsByPurposeGeneratorFactory;
     private final List<Purpose> purposes;
+    private final TripProductions productions;
 
     //private final EnumSet<Purpose> PURPOSES = EnumSet.of(HBW, HBE, HBS, HBO, NHBW, NHBO);
 
@@ -33,6 +32,7 @@ public class RawTripGenerator {
         this.dataSet = dataSet;
         this.tripsByPurposeGeneratorFactory = tripsByPurposeGeneratorFactory;
         this.purposes = purposes;
+        this.productions = new TripProductions();
     }
 
     public void run (double scaleFactorForGeneration) {
@@ -41,17 +41,22 @@ public class RawTripGenerator {
     }
 
     private void generateByPurposeMultiThreaded(double scaleFactorForGeneration) {
-        final ConcurrentExecutor<Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>> executor =
-                ConcurrentExecutor.fixedPoolService(purposes.size());
         List<Callable<Tuple<Purpose, Map<MitoHousehold,List<MitoTrip>>>>> tasks = new ArrayList<>();
         for(Purpose purpose: purposes) {
-            tasks.add(tripsByPurposeGeneratorFactory.createTripGeneratorForThisPurpose(dataSet, purpose, scaleFactorForGeneration));
+            final TripsByPurposeGenerator generator = tripsByPurposeGeneratorFactory.createTripGeneratorForThisPurpose(dataSet, purpose, scaleFactorForGeneration);
+            tasks.add(() -> {
+                @SuppressWarnings("unchecked")
+                final Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>> result =
+                        (Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>) generator.call();
+                // productions are counted on the worker that generated the trips of this purpose
+                productions.count(result.getFirst(), result.getSecond());
+                return result;
+            });
         }
-        final List<Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>> results = executor.submitTasksAndWaitForCompletion(tasks);
+        final List<Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>>> results = dataSet.getExecutor().invokeAll(tasks);
         for(Tuple<Purpose, Map<MitoHousehold, List<MitoTrip>>> result: results) {
             final Purpose purpose = result.getFirst();
-            final int sum = result.getSecond().values().stream().flatMapToInt(e -> IntStream.of(e.size())).sum();
-            logger.info("Created " + sum + " trips for " + purpose);
+            logger.info("Created " + productions.getTotal(purpose) + " trips for " + purpose);
             final Map<MitoHousehold, List<MitoTrip>> tripsByHouseholds = result.getSecond();
             for(Map.Entry<MitoHousehold, List<MitoTrip>> tripsByHousehold: tripsByHouseholds.entrySet()) {
                 List<MitoTrip> tripsInThisHousehold = tripsByHousehold.getValue();
@@ -67,6 +72,13 @@ public class RawTripGenerator {
         }
     }
 
+    /**
+     * @return the total trip productions by purpose of the last run
+     */
+    TripProductions getProductions() {
+        return productions;
+    }
+
     private void logTripGeneration() {
         long rawTrips = dataSet.getTrips().size() + DROPPED_TRIPS_AT_BORDER_COUNTER.get();
         logger.info("  Generated " + MitoUtil.customFormat("###,###", rawTrips) + " raw trips.");
@@ -13,12 +13,24 @@ public class TripBalancer {
 
     private static final Logger logger = Logger.getLogger(TripBalancer.class);
 
+    private static final int GRAIN_SIZE = 1024;
+
     private final DataSet dataSet;
     private final List<Purpose> purposes;
+    private final TripProductions productions;
 
     public TripBalancer(DataSet dataSet, List<Purpose> purposes) {
+        this(dataSet, purposes, null);
+    }
+
+    /**
+     * @param productions productions counted during trip generation. If null, production totals are
+     *                    derived from the trips of the households.
+     */
+    TripBalancer(DataSet dataSet, List<Purpose> purposes, TripProductions productions) {
         this.dataSet = dataSet;
         this.purposes = purposes;
+        this.productions = productions;
     }
 
     public void run() {
@@ -29,9 +41,14 @@ public class TripBalancer {
 
         logger.info("  Balancing trip production and attractions");
 
+        final MitoZone[] zones = dataSet.getZones().values().toArray(new MitoZone[0]);
+
         for (Purpose purpose : purposes) {
-            long tripsByPurp = dataSet.getHouseholds().values().stream().mapToInt(household -> household.getTripsForPurpose(purpose).size()).sum();
-            double attrSum = dataSet.getZones().values().stream().mapToDouble(zone -> zone.getTripAttraction(purpose)).sum();
+            long tripsByPurp = getTripsByPurpose(purpose);
+            double attrSum = 0;
+            for (MitoZone zone : zones) {
+                attrSum += zone.getTripAttraction(purpose);
+            }
             if (tripsByPurp == 0) {
                 logger.warn("No trips for purpose " + purpose + " were generated.");
                 continue;
@@ -40,14 +57,22 @@ public class TripBalancer {
             double factor = Resources.instance.getDouble(Properties.SCALE_FACTOR_FOR_TRIP_GENERATION, 1.0);
 
             double ratio = tripsByPurp / factor / attrSum;
-            adjustAttractions(ratio, purpose);
+            adjustAttractions(zones, ratio, purpose);
         }
     }
 
-    private void adjustAttractions(double ratio, Purpose purpose) {
-        for (MitoZone zone : dataSet.getZones().values()) {
-            double oldValue = zone.getTripAttraction(purpose);
-            zone.setTripAttraction(purpose, oldValue * ratio);
+    private long getTripsByPurpose(Purpose purpose) {
+        if (productions != null && productions.isCounted(purpose)) {
+            return productions.getTotal(purpose);
         }
+        return dataSet.getHouseholds().values().stream().mapToInt(household -> household.getTripsForPurpose(purpose).size()).sum();
+    }
+
+    private void adjustAttractions(MitoZone[] zones, double ratio, Purpose purpose) {
+        dataSet.getExecutor().parallelFor(0, zones.length, GRAIN_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                zones[i].setTripAttraction(purpose, zones[i].getTripAttraction(purpose) * ratio);
+            }
+        });
     }
 }
@@ -25,6 +25,7 @@ public class TripGeneration extends Module {
 
     private double scaleFactorForTripGeneration;
     private final TripsByPurposeGeneratorFactory tripsByPurposeGeneratorFactory;
+    private TripProductions productions;
 
     public TripGeneration(DataSet dataSet, TripsByPurposeGeneratorFactory tripsByPurposeGeneratorFactory, List<Purpose> purposes) {
         super(dataSet, purposes);
@@ -48,6 +49,7 @@ public class TripGeneration extends Module {
     private void generateRawTrips() {
         RawTripGenerator rawTripGenerator = new RawTripGenerator(dataSet, tripsByPurposeGeneratorFactory, purposes);
         rawTripGenerator.run(scaleFactorForTripGeneration);
+        productions = rawTripGenerator.getProductions();
     }
 
     private void generateAirportTrips(double scaleFactorForTripGeneration) {
@@ -61,7 +63,7 @@ public class TripGeneration extends Module {
     }
 
     private void balanceTrips() {
-        TripBalancer tripBalancer = new TripBalancer(dataSet, purposes);
+        TripBalancer tripBalancer = new TripBalancer(dataSet, purposes, productions);
         tripBalancer.run();
     }
 
@@ -0,0 +1,41 @@
+package de.tum.bgu.msm.modules.tripGeneration;
+
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.Purpose;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Total trip productions by purpose. Each purpose is counted by the task that generated its trips, so the totals
+ * are filled in parallel without any synchronization and trips do not need to be re-scanned for balancing.
+ */
+class TripProductions {
+
+    private final boolean[] counted = new boolean[Purpose.values().length];
+    private final long[] totals = new long[Purpose.values().length];
+
+    /**
+     * Counts the trips of one purpose. Must be called at most once per purpose.
+     */
+    void count(Purpose purpose, Map<MitoHousehold, List<MitoTrip>> tripsByHousehold) {
+        long total = 0;
+        for (List<MitoTrip> trips : tripsByHousehold.values()) {
+            total += trips.size();
+        }
+        totals[purpose.ordinal()] = total;
+        counted[purpose.ordinal()] = true;
+    }
+
+    boolean isCounted(Purpose purpose) {
+        return counted[purpose.ordinal()];
+    }
+
+    /**
+     * @return the number of trips generated for the purpose, including trips of households without home zone
+     */
+    long getTotal(Purpose purpose) {
+        return totals[purpose.ordinal()];
+    }
+}
@@ -220,7 +220,7 @@ public class TripsByPurposeGeneratorHurdleModel extends RandomizableConcurrentFu
                 break;
         }
 
-        double proportionOfAutos = Math.min(1, hh.getAutos() / hh.getPersons().values().stream().filter(mitoPerson -> mitoPerson.getAge() >= 15).count());
+        double proportionOfAutos = Math.min(1, hh.getAutos() / hh.getNumberOfPersonsAged15OrOlder());
         utilityTravel += binLogCoef.get("propAutos") * proportionOfAutos;
 
         AreaTypes.SGType type = hh.getHomeZone().getAreaTypeSG();
@@ -323,7 +323,7 @@ public class TripsByPurposeGeneratorHurdleModel extends RandomizableConcurrentFu
         }
 
         //check this
-        double proportionOfAutos = Math.min(1, hh.getAutos() / hh.getPersons().values().stream().filter(mitoPerson -> mitoPerson.getAge() >= 15).count());
+        double proportionOfAutos = Math.min(1, hh.getAutos() / hh.getNumberOfPersonsAged15OrOlder());
         averageNumberOfTrips += negBinCoef.get("propAutos") * proportionOfAutos;
 
         AreaTypes.SGType type = hh.getHomeZone().getAreaTypeSG();
@@ -3,6 +3,7 @@ package de.tum.bgu.msm.modules.tripGeneration;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.AliasSampler;
 import de.tum.bgu.msm.util.MitoUtil;
 import de.tum.bgu.msm.util.concurrent.RandomizableConcurrentFunction;
 import org.apache.log4j.Logger;
@@ -57,18 +58,18 @@ class TripsByPurposeGeneratorSampleEnumeration extends RandomizableConcurrentFun
             logger.error("Could not create trips for Household " + hh.getId() + " for Purpose " + purpose + ": No Household Type applicable");
             return;
         }
-        Integer[] tripFrequencies = householdTypeManager.getTripFrequenciesForHouseholdType(hhType);
+        AliasSampler tripFrequencies = householdTypeManager.getTripFrequencySamplerForHouseholdType(hhType);
         if (tripFrequencies == null) {
             logger.error("Could not find trip frequencies for this hhType/Purpose: " + hhType.getId() + "/" + purpose);
             return;
         }
-        if (MitoUtil.getSum(tripFrequencies) == 0) {
+        if (tripFrequencies.getTotalWeight() == 0) {
             //logger.info("No trips for this hhType/Purpose: " + hhType.getId() + "/" + purpose);
             return;
         }
 
         List<MitoTrip> trips = new ArrayList<>();
-        int numberOfTrips = selectNumberOfTrips(tripFrequencies);
+        int numberOfTrips = tripFrequencies.sample(random);
         for (int i = 0; i < numberOfTrips; i++) {
             MitoTrip trip = createTrip(hh);
             if (trip != null) {
@@ -78,14 +79,6 @@ class TripsByPurposeGeneratorSampleEnumeration extends RandomizableConcurrentFun
         tripsByHH.put(hh, trips);
     }
 
-    private int selectNumberOfTrips(Integer[] tripFrequencies) {
-        double[] probabilities = new double[tripFrequencies.length];
-        for (int i = 0; i < tripFrequencies.length; i++) {
-            probabilities[i] = (double) tripFrequencies[i];
-        }
-        return MitoUtil.select(probabilities, random);
-    }
-
     private MitoTrip createTrip(MitoHousehold hh) {
         boolean dropThisTrip = reduceTripGenAtStudyAreaBorder(hh.getHomeZone());
         if (dropThisTrip) {
@@ -3,6 +3,7 @@ package de.tum.bgu.msm.resources;
 public class Properties {
 
     public static final String WRITE_MATSIM_POPULATION = "write.matsim.population";
+    public static final String MATSIM_POPULATION_IN_MEMORY = "matsim.population.in.memory";
 
     static final String ZONES = "zonal.data.file";
     static final String ZONE_SHAPEFILE = "zone.shapefile";
@@ -19,6 +20,8 @@ public class Properties {
     public static final String SCENARIO_YEAR = "year";
 
     public static final String RANDOM_SEED = "random.seed";
+    public static final String NUMBER_OF_THREADS = "number.of.threads";
+    public static final String PROFILE_MODULES = "profile.modules";
 
     public static final String REMOVE_TRIPS_AT_BORDER = "reduce.trips.at.outer.border";
 
@@ -43,6 +46,9 @@ public class Properties {
     public static final String CREATE_CHARTS = "charts";
     public static final String PRINT_MICRO_DATA = "micro.data";
     public static final String FILL_MICRO_DATA_WITH_MICROLOCATION = "micro.data.with.microlocation";
+    public static final String COMPRESS_MICRO_DATA = "micro.data.gzip";
+    public static final String PRINT_MICRO_DATA_CSV = "micro.data.csv";
+    public static final String PRINT_MICRO_DATA_BINARY = "micro.data.binary";
 
     public static final String RUN_TIME_OF_DAY_CHOICE = "run.time.of.day.choice";
     public static final String TIME_OF_DAY_DISTRIBUTIONS = "time.of.day.distribution.file";
@@ -55,6 +61,11 @@ public class Properties {
     public static final String MATSIM_NETWORK_FILE = "matsim.network";
     public static final String MATSIM_ITERATIONS = "matsim.iterations";
     public static final String ZONE_SHAPEFILE_ID_FIELD = "zone.shapefile.id.field";
+    /**
+     * Number of points pre-sampled per zone from which random coordinates of trip ends are drawn. Off (0) by default,
+     * since a pool limits the coordinates of a zone to a fixed set of points and thus changes model results.
+     */
+    public static final String ZONE_RANDOM_COORDINATE_POOL_SIZE = "zone.random.coordinate.pool.size";
     public static final String DEFAULT_BUDGET = "default.budget.";
 
     public static final String PRINT_OUT_SKIM = "print.skim";
@@ -2,6 +2,7 @@ package de.tum.bgu.msm.run;
 
 import de.tum.bgu.msm.MitoModelGermany;
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.trafficAssignment.CarSkimUpdater;
@@ -21,10 +22,14 @@ public class MitoGermany {
     public static void main(String[] args) {
         logger.info("Started the Microsimulation Transport Orchestrator (MITO) based on 2017 models");
         MitoModelGermany model = MitoModelGermany.standAloneModel(args[0], MunichImplementationConfig.get());
-        model.run();
-        final DataSet dataSet = model.getData();
 
         boolean runAssignment = Resources.instance.getBoolean(Properties.RUN_TRAFFIC_ASSIGNMENT, false);
+        if (runAssignment) {
+            MatsimPopulationGenerator.checkPopulationInMemory("The traffic assignment");
+        }
+
+        model.run();
+        final DataSet dataSet = model.getData();
 
         if (runAssignment) {
             logger.info("Running traffic assignment in MATsim");
@@ -52,6 +57,7 @@ public class MitoGermany {
                 skimUpdater.run();
             }
         }
+        dataSet.awaitChartRendering();
     }
 }
 
@@ -3,6 +3,7 @@ package de.tum.bgu.msm.run;
 import de.tum.bgu.msm.MitoModel;
 import de.tum.bgu.msm.TravelDemandGenerator;
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.trafficAssignment.CarSkimUpdater;
@@ -28,10 +29,14 @@ class MitoMuc {
     public static void main(String[] args) {
         logger.info("Started the Microsimulation Transport Orchestrator (MITO)");
         MitoModel model = MitoModel.standAloneModel(args[0], MunichImplementationConfig.get());
-        model.run();
-        final DataSet dataSet = model.getData();
 
         boolean runAssignment = Resources.instance.getBoolean(Properties.RUN_TRAFFIC_ASSIGNMENT, false);
+        if (runAssignment) {
+            MatsimPopulationGenerator.checkPopulationInMemory("The traffic assignment");
+        }
+
+        model.run();
+        final DataSet dataSet = model.getData();
 
         if (runAssignment) {
             logger.info("Running traffic assignment in MATsim");
@@ -59,5 +64,6 @@ class MitoMuc {
                 skimUpdater.run();
             }
         }
+        dataSet.awaitChartRendering();
     }
 }
@@ -217,12 +217,7 @@ public final class CalibrateDestinationChoiceGermany {
         dataSet.setTravelTimes(new SkimTravelTimes());
         new OmxSkimsReader(dataSet).read();
         //new JobReader(dataSet, config.getJobTypeFactory()).read();
-        new SchoolsReader(dataSet).read();
-        new HouseholdsReaderGermany(dataSet).read();
-        //new HouseholdsCoordReader(dataSet).read();
-        //new PersonsReader(dataSet).read();
-        //the class called Synthetic population reader: could it be renamed to PersonJobReader?
-        new SyntheticPopulationReaderGermany(dataSet, config.getJobTypeFactory()).read();
+        new SyntheticPopulationLoader(dataSet, config.getJobTypeFactory()).loadGermany();
         readAdditionalData();
     }
 
@@ -17,6 +17,7 @@ class CalibrateModeChoice {
         logger.info("Started the Microsimulation Transport Orchestrator (MITO)");
         MitoModelForModeChoiceCalibration model = MitoModelForModeChoiceCalibration.standAloneModel(args[0], MunichImplementationConfig.get());
         model.run();
+        model.getData().awaitChartRendering();
 
 
     }
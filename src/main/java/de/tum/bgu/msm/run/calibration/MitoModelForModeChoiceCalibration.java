@@ -21,6 +21,7 @@ import de.tum.bgu.msm.util.ImplementationConfig;
 import de.tum.bgu.msm.util.MitoUtil;
 import org.apache.log4j.Logger;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Random;
 
@@ -122,9 +123,9 @@ public final class MitoModelForModeChoiceCalibration {
             SummarizeData.writeOutTrips(dataSet, scenarioName);
         }
         if (Resources.instance.getBoolean(Properties.CREATE_CHARTS, true)) {
-            ModeChoicePlots.writeModeChoice(dataSet, scenarioName);
-            DistancePlots.writeDistanceDistributions(dataSet, scenarioName);
-            SummarizeData.writeCharts(dataSet, scenarioName);
+            dataSet.awaitChartRendering();
+            dataSet.setChartRendering(SummaryCharts.prepare(dataSet, scenarioName,
+                    EnumSet.allOf(SummaryCharts.Chart.class)).renderInBackground());
         }
         printOutline(startTime);
     }
@@ -135,11 +136,7 @@ public final class MitoModelForModeChoiceCalibration {
         if (Resources.instance.getBoolean(Properties.REMOVE_TRIPS_AT_BORDER)) {
             new BorderDampersReader(dataSet).read();
         }
-        new JobReader(dataSet, config.getJobTypeFactory()).read();
-        new SchoolsReader(dataSet).read();
-        new HouseholdsReader(dataSet).read();
-        new HouseholdsCoordReader(dataSet).read();
-        new PersonsReader(dataSet).read();
+        new SyntheticPopulationLoader(dataSet, config.getJobTypeFactory()).load();
         dataSet.setTravelTimes(new SkimTravelTimes());
         new OmxSkimsReader(dataSet).read();
         readAdditionalData();
@@ -1,6 +1,7 @@
 package de.tum.bgu.msm.run.scenarios.drtNoise;
 
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.modules.plansConverter.MatsimPopulationGenerator;
 import de.tum.bgu.msm.resources.Properties;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.trafficAssignment.ConfigureMatsim;
@@ -34,14 +35,18 @@ public class RunMitoDrt {
                 .iterator().next().getDefaultGeometry();
 
         MitoModelDrt model = MitoModelDrt.standAloneModel(args[0], MunichImplementationConfig.get(), geometry);
+
+//        boolean runAssignment = Resources.instance.getBoolean(Properties.RUN_TRAFFIC_ASSIGNMENT, false);
+        boolean runAssignment = false;
+        if (runAssignment) {
+            MatsimPopulationGenerator.checkPopulationInMemory("The traffic assignment");
+        }
+
         model.run();
         final DataSet dataSet = model.getData();
 
         ServiceAreaModeChoiceResults.printServiceAreaModeChoiceResults(dataSet, geometry, Resources.instance.getString(Properties.SCENARIO_NAME));
 
-//        boolean runAssignment = Resources.instance.getBoolean(Properties.RUN_TRAFFIC_ASSIGNMENT, false);
-        boolean runAssignment = false;
-
         if (runAssignment) {
             logger.info("Running traffic assignment in MATsim");
 
@@ -115,5 +120,6 @@ public class RunMitoDrt {
             controler.run();
 
         }
+        dataSet.awaitChartRendering();
     }
 }
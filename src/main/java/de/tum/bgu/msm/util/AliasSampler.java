@@ -0,0 +1,92 @@
+package de.tum.bgu.msm.util;
+
+import java.util.Random;
+
+/**
+ * Immutable sampler for discrete distributions using Vose's alias method.
+ * The table is built once in O(n) and each draw takes O(1) time, one random
+ * number and no allocation. Weights do not need to be normalized.
+ */
+public final class AliasSampler {
+
+    private final double[] probability;
+    private final int[] alias;
+    private final double totalWeight;
+
+    public AliasSampler(double[] weights) {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Cannot create alias sampler for empty distribution");
+        }
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double sum = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight + " for alias sampler");
+            }
+            sum += weight;
+        }
+        this.totalWeight = sum;
+
+        if (sum == 0) {
+            // degenerate distribution, always draws the first entry
+            for (int i = 0; i < n; i++) {
+                probability[i] = 1.;
+            }
+            return;
+        }
+
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1.) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            final int less = small[--smallSize];
+            final int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.;
+            if (scaled[more] < 1.) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // remaining entries are (up to rounding errors) exactly 1
+        while (largeSize > 0) {
+            probability[large[--largeSize]] = 1.;
+        }
+        while (smallSize > 0) {
+            probability[small[--smallSize]] = 1.;
+        }
+    }
+
+    /**
+     * Draws an index with a probability proportional to its weight.
+     */
+    public int sample(Random random) {
+        final double u = random.nextDouble() * probability.length;
+        final int column = Math.min((int) u, probability.length - 1);
+        return (u - column) < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+}
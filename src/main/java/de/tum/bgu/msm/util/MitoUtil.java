@@ -291,6 +291,18 @@ public final class MitoUtil {
         return rand;
     }
 
+    /**
+     * Creates the random number generator for one of several independent streams derived from a common seed,
+     * e.g. one stream per block of work in parallel loops. Stream seeds are decorrelated with a SplitMix64 step,
+     * so neighbouring streams do not produce similar sequences.
+     */
+    public static Random createRandomStream(long seed, int stream) {
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
     public static void createDirectoryIfNotExistingYet (String directory) {
         File file = new File (directory);
         if (!file.exists()) {
@@ -0,0 +1,131 @@
+package de.tum.bgu.msm.util;
+
+import org.apache.log4j.Logger;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.triangulate.ConformingDelaunayTriangulationBuilder;
+
+import java.util.Random;
+
+/**
+ * Draws uniformly distributed points from the interior of a (multi-)polygon. The polygon is triangulated once
+ * and every draw picks a triangle proportional to its area from an {@link AliasSampler} and then a point within
+ * that triangle, so no rejection is needed even for large or concave polygons. If the geometry cannot be
+ * triangulated, points are drawn by rejection sampling on its envelope with an indexed point-in-polygon test.
+ */
+public final class PolygonPointSampler {
+
+    private static final Logger logger = Logger.getLogger(PolygonPointSampler.class);
+
+    private static final int MAX_REJECTIONS = 10000;
+
+    private final Geometry geometry;
+
+    /**
+     * Triangle vertices as x0, y0, x1, y1, x2, y2 per triangle
+     */
+    private final double[] triangles;
+    private final AliasSampler triangleSampler;
+
+    private final IndexedPointInAreaLocator locator;
+
+    public PolygonPointSampler(Geometry geometry) {
+        this.geometry = geometry;
+        double[] triangulation = null;
+        try {
+            triangulation = triangulate(geometry);
+        } catch (RuntimeException e) {
+            logger.debug("Could not triangulate geometry, falling back to rejection sampling: " + e.getMessage());
+        }
+        if (triangulation != null && triangulation.length > 0) {
+            triangles = triangulation;
+            final double[] areas = new double[triangles.length / 6];
+            for (int i = 0; i < areas.length; i++) {
+                areas[i] = area(triangles, i * 6);
+            }
+            triangleSampler = new AliasSampler(areas);
+            locator = null;
+        } else {
+            triangles = null;
+            triangleSampler = null;
+            locator = new IndexedPointInAreaLocator(geometry);
+        }
+    }
+
+    private static double[] triangulate(Geometry geometry) {
+        final ConformingDelaunayTriangulationBuilder builder = new ConformingDelaunayTriangulationBuilder();
+        builder.setSites(geometry);
+        builder.setConstraints(geometry);
+        final Geometry triangulation = builder.getTriangles(geometry.getFactory());
+
+        // the triangulation covers the convex hull, only keep triangles inside the polygon
+        final IndexedPointInAreaLocator locator = new IndexedPointInAreaLocator(geometry);
+        final double[] coordinates = new double[triangulation.getNumGeometries() * 6];
+        int size = 0;
+        for (int i = 0; i < triangulation.getNumGeometries(); i++) {
+            final Coordinate[] vertices = triangulation.getGeometryN(i).getCoordinates();
+            final Coordinate centroid = new Coordinate(
+                    (vertices[0].x + vertices[1].x + vertices[2].x) / 3.,
+                    (vertices[0].y + vertices[1].y + vertices[2].y) / 3.);
+            if (locator.locate(centroid) == Location.INTERIOR) {
+                for (int v = 0; v < 3; v++) {
+                    coordinates[size++] = vertices[v].x;
+                    coordinates[size++] = vertices[v].y;
+                }
+            }
+        }
+        final double[] result = new double[size];
+        System.arraycopy(coordinates, 0, result, 0, size);
+        return result;
+    }
+
+    private static double area(double[] triangles, int offset) {
+        final double ax = triangles[offset], ay = triangles[offset + 1];
+        return Math.abs((triangles[offset + 2] - ax) * (triangles[offset + 5] - ay)
+                - (triangles[offset + 4] - ax) * (triangles[offset + 3] - ay)) / 2.;
+    }
+
+    public boolean isTriangulated() {
+        return triangles != null;
+    }
+
+    public Coordinate sample(Random random) {
+        if (triangles != null) {
+            final int offset = triangleSampler.sample(random) * 6;
+            double r1 = random.nextDouble();
+            double r2 = random.nextDouble();
+            if (r1 + r2 > 1) {
+                r1 = 1 - r1;
+                r2 = 1 - r2;
+            }
+            final double ax = triangles[offset], ay = triangles[offset + 1];
+            return new Coordinate(
+                    ax + r1 * (triangles[offset + 2] - ax) + r2 * (triangles[offset + 4] - ax),
+                    ay + r1 * (triangles[offset + 3] - ay) + r2 * (triangles[offset + 5] - ay));
+        }
+        final Envelope envelope = geometry.getEnvelopeInternal();
+        for (int i = 0; i < MAX_REJECTIONS; i++) {
+            final Coordinate candidate = new Coordinate(
+                    envelope.getMinX() + envelope.getWidth() * random.nextDouble(),
+                    envelope.getMinY() + envelope.getHeight() * random.nextDouble());
+            if (locator.locate(candidate) == Location.INTERIOR) {
+                return candidate;
+            }
+        }
+        throw new RuntimeException("Could not sample a point within the geometry after " + MAX_REJECTIONS + " attempts.");
+    }
+
+    /**
+     * Draws a pool of points.
+     * @return coordinates as x0, y0, x1, y1, ...
+     */
+    public double[] samplePool(int size, Random random) {
+        final double[] pool = new double[2 * size];
+        for (int i = 0; i < size; i++) {
+            final Coordinate coordinate = sample(random);
+            pool[2 * i] = coordinate.x;
+            pool[2 * i + 1] = coordinate.y;
+        }
+        return pool;
+    }
+}
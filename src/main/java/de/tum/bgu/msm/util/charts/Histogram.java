@@ -55,8 +55,8 @@ public final class Histogram {
         if(outputFile.getParentFile() != null) {
             outputFile.getParentFile().mkdirs();
         }
-        try {
-            ImageIO.write(chartImage, "png", new BufferedOutputStream(new FileOutputStream(outputFile)));
+        try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            ImageIO.write(chartImage, "png", out);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -43,8 +43,8 @@ public final class ScatterPlot {
         if(outputFile.getParentFile() != null) {
             outputFile.getParentFile().mkdirs();
         }
-        try {
-            ImageIO.write(chartImage, "png", new BufferedOutputStream(new FileOutputStream(outputFile)));
+        try (BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            ImageIO.write(chartImage, "png", out);
         } catch (IOException e) {
             e.printStackTrace();
         }
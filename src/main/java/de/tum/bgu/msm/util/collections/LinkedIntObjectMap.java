@@ -0,0 +1,350 @@
+package de.tum.bgu.msm.util.collections;
+
+import java.util.*;
+
+/**
+ * Map with primitive int keys based on open addressing with linear probing. Entries are stored in
+ * insertion order in parallel arrays, so iteration order is deterministic just like for a
+ * {@link LinkedHashMap}, but without boxed keys and linked entry objects.
+ * Null values are not permitted. Not thread-safe.
+ */
+public class LinkedIntObjectMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * Hash slots hold the entry index + 1, {@link #EMPTY} or {@link #REMOVED}
+     */
+    private int[] slots;
+    private int mask;
+
+    private int[] keys;
+    private Object[] values;
+    private int entryCount = 0;
+    private int size = 0;
+    private int modCount = 0;
+
+    private Set<Entry<Integer, V>> entrySet;
+    private Collection<V> valuesView;
+    private Set<Integer> keySetView;
+
+    public LinkedIntObjectMap() {
+        this(16);
+    }
+
+    public LinkedIntObjectMap(int expectedSize) {
+        allocate(Math.max(expectedSize, 4));
+    }
+
+    private void allocate(int expectedSize) {
+        final int capacity = tableSizeFor(expectedSize);
+        slots = new int[capacity];
+        mask = capacity - 1;
+        keys = new int[Math.max(expectedSize, 4)];
+        values = new Object[keys.length];
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        final long required = (long) Math.ceil(expectedSize / LOAD_FACTOR);
+        if (required > (1 << 30)) {
+            throw new IllegalArgumentException("Map too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) Math.max(required - 1, 1)) << 1;
+    }
+
+    private static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Makes sure that the given number of entries can be stored without further resizing,
+     * which avoids repeated rehashing for bulk inserts.
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > keys.length || tableSizeFor(expectedSize) > slots.length) {
+            rehash(Math.max(expectedSize, (int) (size * 1.5)));
+        }
+    }
+
+    private int findEntry(int key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != REMOVED && keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int findSlot(int key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != REMOVED && keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        final int entry = findEntry(key);
+        return entry < 0 ? null : (V) values[entry];
+    }
+
+    public boolean containsKey(int key) {
+        return findEntry(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        final int entry = findEntry(key);
+        if (entry >= 0) {
+            final V previous = (V) values[entry];
+            values[entry] = value;
+            return previous;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value) {
+        Objects.requireNonNull(value);
+        final int entry = findEntry(key);
+        if (entry >= 0) {
+            return (V) values[entry];
+        }
+        insert(key, value);
+        return null;
+    }
+
+    private void insert(int key, V value) {
+        if (entryCount == keys.length || (entryCount + 1) > slots.length * LOAD_FACTOR) {
+            rehash(Math.max(size + 1, (int) (size * 1.5)));
+        }
+        final int entry = entryCount++;
+        keys[entry] = key;
+        values[entry] = value;
+        int slot = hash(key) & mask;
+        while (slots[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+        size++;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        final int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        final int entry = slots[slot] - 1;
+        final V previous = (V) values[entry];
+        values[entry] = null;
+        slots[slot] = REMOVED;
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Rebuilds the hash slots and compacts removed entries, preserving insertion order.
+     */
+    private void rehash(int expectedSize) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldEntryCount = entryCount;
+        allocate(expectedSize);
+        entryCount = 0;
+        for (int i = 0; i < oldEntryCount; i++) {
+            if (oldValues[i] != null) {
+                final int entry = entryCount++;
+                keys[entry] = oldKeys[i];
+                values[entry] = oldValues[i];
+                int slot = hash(oldKeys[i]) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+            }
+        }
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey(((Integer) key).intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V putIfAbsent(Integer key, V value) {
+        return putIfAbsent(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        Arrays.fill(values, 0, entryCount, null);
+        entryCount = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<Integer, V>>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new EntryIterator<Entry<Integer, V>>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        Entry<Integer, V> element(int entry) {
+                            return new SimpleImmutableEntry<>(keys[entry], (V) values[entry]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new EntryIterator<V>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        V element(int entry) {
+                            return (V) values[entry];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return valuesView;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        if (keySetView == null) {
+            keySetView = new AbstractSet<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new EntryIterator<Integer>() {
+                        @Override
+                        Integer element(int entry) {
+                            return keys[entry];
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return keySetView;
+    }
+
+    private abstract class EntryIterator<T> implements Iterator<T> {
+
+        private int next = 0;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract T element(int entry);
+
+        @Override
+        public boolean hasNext() {
+            while (next < entryCount && values[next] == null) {
+                next++;
+            }
+            return next < entryCount;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return element(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            LinkedIntObjectMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+}
@@ -7,7 +7,8 @@ import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
- * Utility class to run multithreaded tasks
+ * Utility class to run multithreaded tasks. Each instance creates and shuts down its own thread pool,
+ * modules working on a data set should use the long-lived {@link SharedExecutor} instead.
  * @author Nico
  * @param <T> object type of expected results of tasks. I.e. Future < T >
  */
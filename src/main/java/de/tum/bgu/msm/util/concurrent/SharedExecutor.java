@@ -0,0 +1,307 @@
+package de.tum.bgu.msm.util.concurrent;
+
+import de.tum.bgu.msm.resources.Properties;
+import de.tum.bgu.msm.resources.Resources;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Process-wide, reusable work-stealing executor backed by a single {@link ForkJoinPool}.
+ * In contrast to {@link ConcurrentExecutor}, the pool is created once (usually owned by the
+ * {@link de.tum.bgu.msm.data.DataSet}) and kept alive across modules, years and calibration
+ * iterations. Worker threads are daemon threads, so the pool does not need to be shut down
+ * explicitly. Exceptions thrown by tasks are propagated to the calling thread.
+ * <p>
+ * Tasks may submit and await further tasks, e.g. a file reader that is itself run as one of several
+ * tasks. Tasks submitted from a worker thread of the pool are forked to the worker's own queue and
+ * awaited with {@link ForkJoinTask#join()}, so the waiting worker runs or steals pending tasks
+ * instead of blocking.
+ */
+public final class SharedExecutor {
+
+    private static final Logger logger = Logger.getLogger(SharedExecutor.class);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Consumes the half-open index range [from, to)
+     */
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    public SharedExecutor(int numberOfThreads) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.pool = new ForkJoinPool(numberOfThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("mito-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Creates an executor with the number of threads defined by {@link Properties#NUMBER_OF_THREADS},
+     * defaulting to the number of available processors.
+     */
+    public static SharedExecutor fromResources() {
+        final int numberOfThreads = getNumberOfThreads();
+        logger.info("Using a shared executor with " + numberOfThreads + " thread(s)");
+        return new SharedExecutor(numberOfThreads);
+    }
+
+    /**
+     * Returns the number of threads defined by {@link Properties#NUMBER_OF_THREADS}, defaulting to the number of
+     * available processors
+     */
+    public static int getNumberOfThreads() {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        if (Resources.instance != null) {
+            numberOfThreads = Resources.instance.getInt(Properties.NUMBER_OF_THREADS, numberOfThreads);
+        }
+        return Math.max(1, numberOfThreads);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Runs all tasks and waits for their completion. Results are returned in task order.
+     */
+    public <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks) {
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(submit(task));
+        }
+        final List<T> results = new ArrayList<>(futures.size());
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(get(future));
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                    futures.forEach(f -> f.cancel(false));
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Runs all tasks and waits for their completion.
+     */
+    public void runAll(Collection<? extends Runnable> tasks) {
+        final List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            callables.add(Executors.callable(task, null));
+        }
+        invokeAll(callables);
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return new Task<>(pool, task);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return submit(Executors.callable(task, null));
+    }
+
+    public <T> T invoke(Callable<T> task) {
+        return get(submit(task));
+    }
+
+    /**
+     * Applies the body to every index in [from, to) in parallel.
+     */
+    public void parallelFor(int from, int to, IntConsumer body) {
+        parallelFor(from, to, defaultGrainSize(from, to), (start, end) -> {
+            for (int i = start; i < end; i++) {
+                body.accept(i);
+            }
+        });
+    }
+
+    /**
+     * Splits [from, to) recursively into blocks of at most grainSize indices and hands each block
+     * to the body in parallel. Block boundaries only depend on the range and the grain size.
+     */
+    public void parallelFor(int from, int to, int grainSize, RangeConsumer body) {
+        if (to <= from) {
+            return;
+        }
+        final RangeAction action = new RangeAction(from, to, Math.max(1, grainSize), body);
+        if (isWorkerThread(pool)) {
+            action.invoke();
+        } else {
+            pool.invoke(action);
+        }
+    }
+
+    private static boolean isWorkerThread(ForkJoinPool pool) {
+        return ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool;
+    }
+
+    private int defaultGrainSize(int from, int to) {
+        return Math.max(1, (to - from) / (pool.getParallelism() * 4));
+    }
+
+    /**
+     * Initiates an orderly shutdown. Only needed if the owner is discarded before the end of the JVM.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Waits for the result of a task submitted to this executor and rethrows its exception, if any,
+     * in the same way as {@link #invokeAll(Collection)}.
+     */
+    public static <T> T await(Future<T> future) {
+        return get(future);
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // tasks that wait for nested futures themselves may report wrapped failures
+            while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                    && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int grainSize;
+        private final RangeConsumer body;
+
+        private RangeAction(int from, int to, int grainSize, RangeConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                body.accept(from, to);
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RangeAction(from, middle, grainSize, body),
+                        new RangeAction(middle, to, grainSize, body));
+            }
+        }
+    }
+
+    /**
+     * Future of a submitted task. {@link ForkJoinTask#get()} reports a copy of the exception of a failed task
+     * when it is called from another thread, so the task keeps the original exception and reports that instead.
+     * Tasks that are submitted by a worker are forked and joined by workers, see {@link SharedExecutor}.
+     */
+    private static final class Task<T> implements Future<T> {
+
+        private final ForkJoinPool pool;
+        private final Callable<T> callable;
+        private final ForkJoinTask<T> task;
+        private volatile Throwable failure;
+
+        private Task(ForkJoinPool pool, Callable<T> callable) {
+            this.pool = pool;
+            this.callable = callable;
+            if (isWorkerThread(pool)) {
+                this.task = ForkJoinTask.adapt(this::call).fork();
+            } else {
+                this.task = pool.submit(this::call);
+            }
+        }
+
+        private T call() throws Exception {
+            try {
+                return callable.call();
+            } catch (Exception | Error e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            if (isWorkerThread(pool)) {
+                return join();
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                throw originalFailure(e);
+            }
+        }
+
+        /**
+         * Waits on a worker thread, which runs the task itself if it is still in its queue or helps with other tasks
+         */
+        private T join() throws ExecutionException {
+            try {
+                return task.join();
+            } catch (CancellationException e) {
+                throw e;
+            } catch (RuntimeException | Error e) {
+                throw originalFailure(new ExecutionException(e));
+            }
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                return task.get(timeout, unit);
+            } catch (ExecutionException e) {
+                throw originalFailure(e);
+            }
+        }
+
+        private ExecutionException originalFailure(ExecutionException e) {
+            return failure != null ? new ExecutionException(failure) : e;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return task.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+    }
+}
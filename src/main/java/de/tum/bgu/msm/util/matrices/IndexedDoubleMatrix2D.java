@@ -115,6 +115,17 @@ public class IndexedDoubleMatrix2D {
         return delegate.getQuick(externalRowId2InternalIndex.get(i), externalColId2InternalIndex.get(j));
     }
 
+    /**
+     * Gets the double value for the given <b>internal</b> row and column indices, e.g. as resolved
+     * once through {@link #getRowLookupArray()} and {@link #getColumnLookupArray()}
+     *
+     * @param row internal index of row entry
+     * @param column internal index of column entry
+     */
+    public double getQuick(int row, int column) {
+        return delegate.getQuick(row, column);
+    }
+
 
     /**
      * Constructs and returns a new <i>slice view</i> representing the columns
@@ -0,0 +1,178 @@
+package de.tum.bgu.msm.util.profiling;
+
+import de.tum.bgu.msm.data.DataSet;
+import org.apache.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures wall time, CPU time, allocated bytes, peak heap and trip throughput of the model steps of a run.
+ * CPU time and allocations are summed over all live threads, so work done by the shared executor is included.
+ * Threads that start and end within a step are not captured. The peak heap is the sum of the peak usages of
+ * all heap memory pools during the step and therefore an upper bound.
+ */
+public class ModuleProfiler {
+
+    private static final Logger logger = Logger.getLogger(ModuleProfiler.class);
+
+    private final DataSet dataSet;
+    private final boolean enabled;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final List<ModuleProfile> profiles = new ArrayList<>();
+
+    public ModuleProfiler(DataSet dataSet, boolean enabled) {
+        this.dataSet = dataSet;
+        this.enabled = enabled;
+        if (enabled) {
+            if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+                threadBean.setThreadCpuTimeEnabled(true);
+            }
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+                if (sunBean.isThreadAllocatedMemorySupported() && !sunBean.isThreadAllocatedMemoryEnabled()) {
+                    sunBean.setThreadAllocatedMemoryEnabled(true);
+                }
+            }
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                    heapPools.add(pool);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the step and records its profile under the given name. If profiling is disabled, the step is only run.
+     */
+    public void profile(String name, Runnable step) {
+        if (!enabled) {
+            step.run();
+            return;
+        }
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final Map<Long, long[]> before = sampleThreads();
+        final long start = System.nanoTime();
+
+        step.run();
+
+        final long wallTime = System.nanoTime() - start;
+        final Map<Long, long[]> after = sampleThreads();
+        long cpuTime = 0;
+        long allocatedBytes = 0;
+        for (Map.Entry<Long, long[]> entry : after.entrySet()) {
+            final long[] previous = before.getOrDefault(entry.getKey(), new long[2]);
+            cpuTime += Math.max(0, entry.getValue()[0] - previous[0]);
+            allocatedBytes += Math.max(0, entry.getValue()[1] - previous[1]);
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        final ModuleProfile profile = new ModuleProfile(name, wallTime, cpuTime, allocatedBytes, peakHeap, dataSet.getTrips().size());
+        profiles.add(profile);
+        logger.info(profile);
+    }
+
+    /**
+     * @return cpu time in ns and allocated bytes by thread id. Unsupported measurements are reported as 0.
+     */
+    private Map<Long, long[]> sampleThreads() {
+        final long[] ids = threadBean.getAllThreadIds();
+        long[] cpuTimes = new long[ids.length];
+        long[] allocations = new long[ids.length];
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (sunBean.isThreadCpuTimeEnabled()) {
+                cpuTimes = sunBean.getThreadCpuTime(ids);
+            }
+            if (sunBean.isThreadAllocatedMemoryEnabled()) {
+                allocations = sunBean.getThreadAllocatedBytes(ids);
+            }
+        } else if (threadBean.isThreadCpuTimeEnabled()) {
+            for (int i = 0; i < ids.length; i++) {
+                cpuTimes[i] = threadBean.getThreadCpuTime(ids[i]);
+            }
+        }
+        final Map<Long, long[]> samples = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            // -1 marks threads that died in the meantime
+            samples.put(ids[i], new long[]{Math.max(0, cpuTimes[i]), Math.max(0, allocations[i])});
+        }
+        return samples;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<ModuleProfile> getProfiles() {
+        return Collections.unmodifiableList(profiles);
+    }
+
+    public static final class ModuleProfile {
+
+        private final String name;
+        private final long wallTime_ns;
+        private final long cpuTime_ns;
+        private final long allocatedBytes;
+        private final long peakHeapBytes;
+        private final int trips;
+
+        ModuleProfile(String name, long wallTime_ns, long cpuTime_ns, long allocatedBytes, long peakHeapBytes, int trips) {
+            this.name = name;
+            this.wallTime_ns = wallTime_ns;
+            this.cpuTime_ns = cpuTime_ns;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+            this.trips = trips;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallTime_ns() {
+            return wallTime_ns;
+        }
+
+        public long getCpuTime_ns() {
+            return cpuTime_ns;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        /**
+         * @return the number of trips in the data set after the step
+         */
+        public int getTrips() {
+            return trips;
+        }
+
+        public double getTripsPerSecond() {
+            return wallTime_ns == 0 ? 0 : trips / (wallTime_ns / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return name + " took " + TimeUnit.NANOSECONDS.toMillis(wallTime_ns) + " ms (cpu "
+                    + TimeUnit.NANOSECONDS.toMillis(cpuTime_ns) + " ms), allocated " + (allocatedBytes >> 20)
+                    + " MB, peak heap " + (peakHeapBytes >> 20) + " MB, " + trips + " trips";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.tum.bgu.msm;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.util.MitoUtil;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+
+import java.util.Random;
+
+/**
+ * Test fixture for modules that run on the shared executor: results must not depend on the number of threads.
+ */
+public final class ThreadIndependence {
+
+    public static final int SEQUENTIAL = 1;
+    public static final int PARALLEL = 4;
+
+    public interface Run<T> {
+        T run(int threads) throws Exception;
+    }
+
+    public interface Comparison<T> {
+        void assertSame(T sequential, T parallel);
+    }
+
+    private ThreadIndependence() {
+    }
+
+    /**
+     * @return an empty data set whose modules run with the given number of threads
+     */
+    public static DataSet createDataSet(int threads) {
+        DataSet dataSet = new DataSet();
+        dataSet.setExecutor(new SharedExecutor(threads));
+        return dataSet;
+    }
+
+    /**
+     * Runs the scenario with {@link #SEQUENTIAL} and with {@link #PARALLEL} threads, each time with the same seed of
+     * the model's random number generator, and compares the results.
+     *
+     * @return the result of the sequential run
+     */
+    public static <T> T assertIndependentOfThreads(Run<T> scenario, Comparison<T> comparison) throws Exception {
+        MitoUtil.initializeRandomNumber(new Random(42));
+        T sequential = scenario.run(SEQUENTIAL);
+        MitoUtil.initializeRandomNumber(new Random(42));
+        T parallel = scenario.run(PARALLEL);
+        comparison.assertSame(sequential, parallel);
+        return sequential;
+    }
+}
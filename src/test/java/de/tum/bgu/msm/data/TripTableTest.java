@@ -0,0 +1,52 @@
+package de.tum.bgu.msm.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+public class TripTableTest {
+
+    @Test
+    public final void testColumns() {
+        MitoZone zone1 = new MitoZone(1, AreaTypes.SGType.CORE_CITY);
+        MitoZone zone2 = new MitoZone(2, AreaTypes.SGType.RURAL);
+        MitoHousehold household = new MitoHousehold(1, 1000, 1);
+        household.setHomeZone(zone1);
+        household.setHomeLocation(new Coordinate(10., 20.));
+        MitoPerson person = new MitoPerson(7, MitoOccupationStatus.WORKER, null, 30, MitoGender.MALE, true);
+        household.addPerson(person);
+
+        DataSet dataSet = new DataSet();
+        for (int i = 1; i <= 20; i++) {
+            MitoTrip trip = new MitoTrip(i, Purpose.HBO);
+            trip.setTripOrigin(household);
+            trip.setTripDestination(zone2);
+            trip.setTripMode(Mode.walk);
+            trip.setDepartureInMinutes(i * 10);
+            person.addTrip(trip);
+            dataSet.addTrip(trip);
+        }
+        dataSet.addTrip(new MitoTrip(21, Purpose.HBW));
+
+        TripTable table = TripTable.fromTrips(dataSet.getTrips().values(), true);
+        Assert.assertEquals(21, table.size());
+        for (int row = 0; row < 20; row++) {
+            Assert.assertEquals(row + 1, table.getId(row));
+            Assert.assertEquals(Purpose.HBO, table.getPurpose(row));
+            Assert.assertEquals(7, table.getPersonId(row));
+            Assert.assertEquals(1, table.getOriginZone(row));
+            Assert.assertEquals(2, table.getDestinationZone(row));
+            Assert.assertEquals(Mode.walk, table.getMode(row));
+            Assert.assertEquals((row + 1) * 10, table.getDepartureInMinutes(row));
+            Assert.assertEquals(TripTable.NO_VALUE, table.getDepartureInMinutesReturnTrip(row));
+            Assert.assertEquals(10., table.getOriginX(row), 0.);
+            Assert.assertEquals(20., table.getOriginY(row), 0.);
+            Assert.assertTrue(Double.isNaN(table.getDestinationX(row)));
+        }
+        Assert.assertEquals(TripTable.NO_VALUE, table.getPersonId(20));
+        Assert.assertEquals(TripTable.NO_VALUE, table.getOriginZone(20));
+        Assert.assertNull(table.getMode(20));
+
+        Assert.assertFalse(TripTable.fromTrips(dataSet.getTrips().values(), false).hasCoordinates());
+    }
+}
@@ -0,0 +1,94 @@
+package de.tum.bgu.msm.io.input;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.DataSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class AbstractParallelCsvReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final class IdReader extends AbstractParallelCsvReader<int[]> {
+
+        private final List<int[]> applied = new ArrayList<>();
+        private int posId;
+        private int posValue;
+
+        private IdReader(DataSet dataSet) {
+            super(dataSet);
+        }
+
+        @Override
+        public void read() {
+        }
+
+        @Override
+        protected void processHeader(String[] header) {
+            posId = 0;
+            posValue = header[1].equals("value") ? 1 : -1;
+        }
+
+        @Override
+        protected int[] parseRecord(CsvRecord record) {
+            final int id = record.getInt(posId);
+            return id % 10 == 0 ? null : new int[]{id, record.getInt(posValue)};
+        }
+
+        @Override
+        protected void applyRecord(int[] record) {
+            applied.add(record);
+        }
+    }
+
+    private Path writeFile(String name, boolean gzip) throws IOException {
+        StringBuilder content = new StringBuilder("id,value\n");
+        for (int i = 0; i < 20000; i++) {
+            content.append(i).append(',').append(i * 7).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path path = folder.getRoot().toPath().resolve(name);
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(path)) : Files.newOutputStream(path)) {
+            out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return path;
+    }
+
+    private void assertReadInOrder(Path path, int threads) {
+        IdReader reader = new IdReader(ThreadIndependence.createDataSet(threads));
+        reader.setBlockSize(1024);
+        reader.read(path, ",");
+
+        assertEquals(18000, reader.applied.size());
+        int expected = 1;
+        for (int[] record : reader.applied) {
+            assertEquals(expected, record[0]);
+            assertEquals(7 * expected, record[1]);
+            expected += expected % 10 == 9 ? 2 : 1;
+        }
+    }
+
+    @Test
+    public final void testChunksAreAppliedInFileOrder() throws IOException {
+        Path path = writeFile("records.csv", false);
+        assertReadInOrder(path, ThreadIndependence.SEQUENTIAL);
+        assertReadInOrder(path, ThreadIndependence.PARALLEL);
+    }
+
+    @Test
+    public final void testCompressedFile() throws IOException {
+        assertReadInOrder(writeFile("records.csv.gz", true), ThreadIndependence.PARALLEL);
+    }
+}
@@ -0,0 +1,80 @@
+package de.tum.bgu.msm.io.input;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CsvRecordReaderTest {
+
+    private static List<String[]> readAll(String content, int expectedLines) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1)), ',');
+        List<String[]> lines = new ArrayList<>();
+        CsvRecord record;
+        while ((record = reader.next()) != null) {
+            lines.add(record.toStringArray());
+        }
+        assertEquals(expectedLines, lines.size());
+        return lines;
+    }
+
+    @Test
+    public final void testLinesAreSplitLikeStringSplit() throws IOException {
+        String[] lines = {"id,zone,type", "1,,\"SFA\"", "", "2,3,,", ",,", ",x"};
+        List<String[]> records = readAll(String.join("\r\n", lines) + "\n", lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertArrayEquals(lines[i].split(","), records.get(i));
+        }
+        // mixed line terminators and no terminator after the last line
+        records = readAll("a\rb\nc\r\n\nd", 5);
+        assertArrayEquals(new String[]{""}, records.get(3));
+        assertArrayEquals(new String[]{"d"}, records.get(4));
+
+        // lines longer than the read buffer
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            longLine.append(i).append(',');
+        }
+        records = readAll("x\n" + longLine + "\ny", 3);
+        assertEquals(50000, records.get(1).length);
+        assertEquals("49999", records.get(1)[49999]);
+    }
+
+    @Test
+    public final void testNumbersAreParsedLikeJdk() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String intValue = Integer.toString(random.nextInt());
+            String doubleValue = i % 3 == 0 ? Double.toString(random.nextGaussian() * 1e7)
+                    : String.format(Locale.US, "%.1f", 4400000 + random.nextDouble() * 100000);
+            values.add(intValue);
+            values.add(doubleValue);
+            content.append(intValue).append(',').append(doubleValue).append(",TRUE,false\n");
+        }
+        CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.ISO_8859_1)), ',');
+        for (int i = 0; i < values.size(); i += 2) {
+            CsvRecord record = reader.next();
+            assertEquals(Integer.parseInt(values.get(i)), record.getInt(0));
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(values.get(i + 1))),
+                    Double.doubleToLongBits(record.getDouble(1)));
+            assertTrue(record.getBoolean(2));
+            assertFalse(record.getBoolean(3));
+        }
+        assertNull(reader.next());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public final void testInvalidIntegerIsRejected() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new ByteArrayInputStream("1.5".getBytes(StandardCharsets.ISO_8859_1)), ',');
+        reader.next().getInt(0);
+    }
+}
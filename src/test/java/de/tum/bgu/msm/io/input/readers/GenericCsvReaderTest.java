@@ -0,0 +1,56 @@
+package de.tum.bgu.msm.io.input.readers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class GenericCsvReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public final void testTypedColumns() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table.csv");
+        Files.write(file, ("name,count,share,code\n"
+                + "a,1,0.5,01\n"
+                + "b,-2,3,x\n"
+                + "c,30,1e-3\n").getBytes(StandardCharsets.US_ASCII));
+
+        GenericCsvReader reader = new GenericCsvReader(file);
+        reader.read();
+        GenericCsvReader.GenericCsvTable table = reader.getTable();
+
+        assertEquals(3, table.getRowCount());
+        assertTrue(table.containsColumn("share"));
+        assertFalse(table.containsColumn("missing"));
+        assertEquals(-1, table.getColumnIndexOf("missing"));
+        assertEquals(2, table.getColumnIndexOf("share"));
+
+        assertEquals("b", table.getString(1, 0));
+        assertEquals(-2, table.getInt(1, "count"));
+        assertEquals(30., table.getDouble(2, 1), 0.);
+        assertEquals(0.001, table.getDouble(2, "share"), 0.);
+        assertEquals(Arrays.asList(0.5, 3., 0.001), table.getDoubleColumn("share"));
+        assertEquals(Arrays.asList(0.5f, 3f, 0.001f), table.getFloatColumn(2));
+
+        // the last column is incomplete and not numeric, but keeps its original strings
+        assertEquals("01", table.getString(0, 3));
+        assertEquals(1, table.getInt(0, 3));
+        assertNull(table.getString(2, 3));
+        assertEquals(Arrays.asList("01", "x"), table.getStringColumn("code"));
+        try {
+            table.getInt(1, 3);
+            fail();
+        } catch (NumberFormatException expected) {
+        }
+    }
+}
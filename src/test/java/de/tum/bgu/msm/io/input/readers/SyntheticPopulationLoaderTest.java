@@ -0,0 +1,56 @@
+package de.tum.bgu.msm.io.input.readers;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.jobTypes.munich.MunichJobTypeFactory;
+import de.tum.bgu.msm.resources.Resources;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SyntheticPopulationLoaderTest {
+
+    private DataSet load(int threads) throws IOException {
+        Resources.initializeResources("./test/muc/test.properties");
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        List<String> lines = Files.readAllLines(Resources.instance.getZonesInputFile());
+        for (String line : lines.subList(1, lines.size())) {
+            dataSet.addZone(new MitoZone(Integer.parseInt(line.split(",")[0]), AreaTypes.SGType.CORE_CITY));
+        }
+        new SyntheticPopulationLoader(dataSet, new MunichJobTypeFactory()).load();
+        return dataSet;
+    }
+
+    @Test
+    public final void testLoadingDoesNotDependOnThreads() throws Exception {
+        DataSet sequential = ThreadIndependence.assertIndependentOfThreads(this::load, SyntheticPopulationLoaderTest::assertSamePopulation);
+        assertTrue(sequential.getPersons().size() > 0);
+    }
+
+    private static void assertSamePopulation(DataSet sequential, DataSet parallel) {
+        assertEquals(new ArrayList<>(sequential.getJobs().keySet()), new ArrayList<>(parallel.getJobs().keySet()));
+        assertEquals(new ArrayList<>(sequential.getSchools().keySet()), new ArrayList<>(parallel.getSchools().keySet()));
+        assertEquals(new ArrayList<>(sequential.getHouseholds().keySet()), new ArrayList<>(parallel.getHouseholds().keySet()));
+        assertEquals(new ArrayList<>(sequential.getPersons().keySet()), new ArrayList<>(parallel.getPersons().keySet()));
+
+        for (MitoHousehold household : sequential.getHouseholds().values()) {
+            MitoHousehold other = parallel.getHouseholds().get(household.getId());
+            assertEquals(household.getMonthlyIncome_EUR(), other.getMonthlyIncome_EUR());
+            assertEquals(household.getHhSize(), other.getHhSize());
+            assertEquals(household.getHomeZone() == null ? null : household.getHomeZone().getId(),
+                    other.getHomeZone() == null ? null : other.getHomeZone().getId());
+        }
+        for (MitoZone zone : sequential.getZones().values()) {
+            MitoZone other = parallel.getZones().get(zone.getId());
+            assertEquals(zone.getNumberOfHouseholds(), other.getNumberOfHouseholds());
+            assertEquals(zone.getTotalEmpl(), other.getTotalEmpl());
+            assertEquals(zone.getSchoolEnrollment(), other.getSchoolEnrollment());
+        }
+    }
+}
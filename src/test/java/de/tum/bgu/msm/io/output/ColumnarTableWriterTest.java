@@ -0,0 +1,88 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.io.input.readers.ColumnarTableReader;
+import de.tum.bgu.msm.io.output.ColumnarTableWriter.ColumnType;
+import de.tum.bgu.msm.io.output.ColumnarTableWriter.Compression;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ColumnarTableWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int ROWS = 300000;
+
+    @Test
+    public final void testRoundTrip() {
+        int[] ids = new int[ROWS];
+        double[] values = new double[ROWS];
+        byte[] modes = new byte[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ids[i] = i % 5 == 0 ? -1 : i * 31;
+            values[i] = i % 7 == 0 ? Double.NaN : i / 3.;
+            modes[i] = (byte) (i % 11 == 0 ? -1 : i % Mode.values().length);
+        }
+        String[] labels = Arrays.stream(Mode.values()).map(Enum::name).toArray(String[]::new);
+        SharedExecutor executor = new SharedExecutor(2);
+
+        for (Compression compression : Compression.values()) {
+            Path file = folder.getRoot().toPath().resolve("table_" + compression + ".mcol");
+            new ColumnarTableWriter(ROWS, compression)
+                    .addIntColumn("id", ids)
+                    .addDoubleColumn("value", values)
+                    .addDoubleColumn("uncompressed", values, Compression.NONE)
+                    .addCategoryColumn("mode", modes, labels)
+                    .write(file, executor);
+
+            for (SharedExecutor readExecutor : new SharedExecutor[]{null, executor}) {
+                ColumnarTableReader reader = new ColumnarTableReader(file);
+                reader.read(readExecutor);
+                ColumnarTableReader.ColumnarTable table = reader.getTable();
+
+                assertEquals(ROWS, table.getRowCount());
+                assertEquals(Arrays.asList("id", "value", "uncompressed", "mode"), table.getColumnNames());
+                assertEquals(ColumnType.CATEGORY, table.getColumnType("mode"));
+                assertArrayEquals(ids, table.getIntColumn("id"));
+                assertArrayEquals(values, table.getDoubleColumn("value"), 0.);
+                assertArrayEquals(values, table.getDoubleColumn("uncompressed"), 0.);
+                assertArrayEquals(modes, table.getCategoryCodes("mode"));
+                assertArrayEquals(labels, table.getCategoryLabels("mode"));
+
+                Mode[] enumModes = table.getEnumColumn("mode", Mode.class);
+                assertNull(enumModes[0]);
+                assertEquals(Mode.values()[1], enumModes[1]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testColumnLengthMustMatchRows() {
+        new ColumnarTableWriter(3, Compression.NONE).addIntColumn("id", new int[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testTruncatedFileIsRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("table.mcol");
+        new ColumnarTableWriter(100, Compression.DEFLATE).addIntColumn("id", new int[100]).write(file, new SharedExecutor(1));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        new ColumnarTableReader(file).read();
+    }
+
+    @Test
+    public final void testBinaryPath() {
+        Path csv = folder.getRoot().toPath().resolve("trips.csv");
+        assertEquals(folder.getRoot().toPath().resolve("trips.mcol"), MicroDataBinaryWriter.toBinaryPath(csv));
+    }
+}
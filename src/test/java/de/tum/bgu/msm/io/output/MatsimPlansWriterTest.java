@@ -0,0 +1,156 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.modules.plansConverter.MatsimActivityTypes;
+import de.tum.bgu.msm.util.MitoUtil;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.scenario.ScenarioUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MatsimPlansWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int NUMBER_OF_TRIPS = 40000;
+    private static final int AIRPORT_ZONE = 20;
+
+    private DataSet createDataSet(int threads) {
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        MitoZone zone1 = new MitoZone(10, AreaTypes.SGType.CORE_CITY);
+        zone1.setRandomCoordinatePool(new double[]{100, 200, 110, 210});
+        MitoZone zone2 = new MitoZone(AIRPORT_ZONE, AreaTypes.SGType.RURAL);
+        zone2.setRandomCoordinatePool(new double[]{500, 600});
+        dataSet.addZone(zone1);
+        dataSet.addZone(zone2);
+
+        MitoHousehold household = new MitoHousehold(1, 1000, 1);
+        household.setHomeZone(zone1);
+        household.setHomeLocation(new Coordinate(4468000.5, 5333000.25));
+
+        for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+            MitoTrip trip = new MitoTrip(i, Purpose.values()[i % Purpose.values().length]);
+            if (i % 13 != 0) {
+                trip.setTripOrigin(i % 2 == 0 ? household : zone2);
+                trip.setTripDestination(i % 2 == 0 ? zone2 : zone1);
+            }
+            trip.setTripMode(i % 3 == 0 ? Mode.walk : Mode.autoDriver);
+            trip.setDepartureInMinutes(i % 1440);
+            trip.setDepartureInMinutesReturnTrip(i % 1440 + 60);
+            dataSet.addTrip(trip);
+            dataSet.addTripToSubsample(trip);
+        }
+        return dataSet;
+    }
+
+    private byte[] write(int threads, String fileName) throws Exception {
+        Path file = folder.getRoot().toPath().resolve(fileName);
+        new MatsimPlansWriter(createDataSet(threads), EnumSet.of(Mode.autoDriver), new MatsimActivityTypes(AIRPORT_ZONE))
+                .write(file);
+        try (InputStream in = fileName.endsWith(".gz") ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public final void testPlansCanBeReadByMatsim() {
+        MitoUtil.initializeRandomNumber(new Random(42));
+        Path file = folder.getRoot().toPath().resolve("plans.xml.gz");
+        DataSet dataSet = createDataSet(ThreadIndependence.PARALLEL);
+        new MatsimPlansWriter(dataSet, EnumSet.of(Mode.autoDriver), new MatsimActivityTypes(AIRPORT_ZONE)).write(file);
+
+        Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+        new PopulationReader(scenario).readFile(file.toString());
+        Map<Id<Person>, ? extends Person> persons = scenario.getPopulation().getPersons();
+
+        int expectedPersons = 0;
+        for (MitoTrip trip : dataSet.getTrips().values()) {
+            Person person = persons.get(Id.createPersonId(trip.getId()));
+            if (trip.getTripMode() != Mode.autoDriver || trip.getTripOrigin() == null) {
+                assertNull(person);
+                continue;
+            }
+            expectedPersons++;
+            List<PlanElement> elements = person.getSelectedPlan().getPlanElements();
+            assertEquals(trip.isHomeBased() ? 5 : 3, elements.size());
+            Activity origin = (Activity) elements.get(0);
+            assertEquals("car", ((Leg) elements.get(1)).getMode());
+            Activity destination = (Activity) elements.get(2);
+
+            if (trip.getTripPurpose() == Purpose.AIRPORT) {
+                assertEquals(trip.getTripOrigin().getZoneId() == AIRPORT_ZONE ? "airport" : "home", origin.getType());
+                assertEquals(trip.getTripDestination().getZoneId() == AIRPORT_ZONE ? "airport" : "home", destination.getType());
+            }
+            if (trip.getTripOrigin() instanceof MitoHousehold) {
+                assertEquals(4468000.5, origin.getCoord().getX(), 0.);
+                assertEquals(5333000.25, origin.getCoord().getY(), 0.);
+            } else {
+                assertEquals(500., origin.getCoord().getX(), 0.);
+            }
+            // end times are written in whole seconds within the minute of departure
+            assertEquals(trip.getDepartureInMinutes() * 60, origin.getEndTime().seconds(), 59.);
+            if (trip.isHomeBased()) {
+                assertEquals("car", ((Leg) elements.get(3)).getMode());
+                Activity back = (Activity) elements.get(4);
+                assertEquals(origin.getType(), back.getType());
+                assertEquals(origin.getCoord(), back.getCoord());
+                assertTrue(destination.getEndTime().isDefined());
+            } else {
+                assertFalse(destination.getEndTime().isDefined());
+            }
+        }
+        assertEquals(expectedPersons, persons.size());
+    }
+
+    @Test
+    public final void testOutputDoesNotDependOnThreads() throws Exception {
+        byte[] plain = ThreadIndependence.assertIndependentOfThreads(threads -> write(threads, "plans" + threads + ".xml"),
+                Assert::assertArrayEquals);
+        assertArrayEquals(plain, ThreadIndependence.assertIndependentOfThreads(
+                threads -> write(threads, "plans" + threads + ".xml.gz"), Assert::assertArrayEquals));
+    }
+
+    @Test
+    public final void testTimeFormat() {
+        TripCsvWriter.AsciiBuffer buffer = new TripCsvWriter.AsciiBuffer(16);
+        MatsimPlansWriter.appendTime(buffer, 8 * 3600 + 5 * 60 + 9.99);
+        buffer.append(' ');
+        MatsimPlansWriter.appendTime(buffer, 25 * 3600);
+        buffer.append(' ');
+        MatsimPlansWriter.appendTime(buffer, -30.5);
+        assertEquals("08:05:09 25:00:00 -00:00:30", new String(buffer.toByteArray()));
+    }
+}
@@ -0,0 +1,197 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.modules.plansConverter.MatsimActivityTypes;
+import de.tum.bgu.msm.util.concurrent.SharedExecutor;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TripCsvPlansConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int NUMBER_OF_TRIPS = 20000;
+    private static final String[] MODES = {"autoDriver", "autoPassenger", "bus", "walk", "null"};
+    private static final int AIRPORT_ZONE = 20;
+
+    private Path writeTrips() throws Exception {
+        StringBuilder trips = new StringBuilder(TripCsvWriter.HEADER);
+        for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+            Purpose purpose = Purpose.values()[i % Purpose.values().length];
+            trips.append(i).append(',');
+            if (i % 7 == 0) {
+                // no micro location, zone 10 has a coordinate pool, zone 30 does not
+                trips.append(i % 2 == 0 ? 10 : 30).append(",null,null,");
+            } else {
+                trips.append("10,").append(1000.5 + i).append(',').append(2000.25).append(',');
+            }
+            trips.append("20,3000.0,4000.0,").append(purpose).append(',').append(i / 3).append(',');
+            trips.append("12.5,30.0,40.0,50.0,60.0,").append(MODES[i % MODES.length]).append(',');
+            trips.append(i % 1440).append(',').append(i % 11 == 0 ? "NA" : String.valueOf(i % 1440 + 120)).append('\n');
+        }
+        Path file = folder.newFile("trips.csv").toPath();
+        Files.write(file, trips.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private TripCsvPlansConverter createConverter(int threads, double scaleFactor) {
+        Map<Integer, MitoZone> zones = new HashMap<>();
+        MitoZone zone = new MitoZone(10, AreaTypes.SGType.CORE_CITY);
+        zone.setRandomCoordinatePool(new double[]{100, 200, 110, 210});
+        zones.put(10, zone);
+        zones.put(30, new MitoZone(30, AreaTypes.SGType.RURAL));
+        TripCsvPlansConverter converter = new TripCsvPlansConverter(new SharedExecutor(threads), zones,
+                Collections.singleton("car"), new MatsimActivityTypes(AIRPORT_ZONE), scaleFactor, 42);
+        converter.setBlockSize(1 << 16);
+        return converter;
+    }
+
+    private static byte[] read(Path file) throws Exception {
+        try (InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static NodeList parsePersons(byte[] plans) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(plans));
+        return document.getElementsByTagName("person");
+    }
+
+    @Test
+    public final void testPlansMatchTrips() throws Exception {
+        Path plans = folder.getRoot().toPath().resolve("plans.xml");
+        createConverter(ThreadIndependence.SEQUENTIAL, 1).convert(writeTrips(), plans);
+        NodeList persons = parsePersons(read(plans));
+
+        int expectedPersons = 0;
+        for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+            if (i % MODES.length != 0 || (i % 7 == 0 && i % 2 != 0)) {
+                continue;
+            }
+            Purpose purpose = Purpose.values()[i % Purpose.values().length];
+            boolean roundTrip = purpose.isHomeBased();
+            Element person = (Element) persons.item(expectedPersons++);
+            assertEquals(i / 3 + "_" + i, person.getAttribute("id"));
+            NodeList activities = person.getElementsByTagName("activity");
+            NodeList legs = person.getElementsByTagName("leg");
+            assertEquals(roundTrip ? 3 : 2, activities.getLength());
+            assertEquals(activities.getLength() - 1, legs.getLength());
+            assertEquals("car", ((Element) legs.item(0)).getAttribute("mode"));
+
+            Element origin = (Element) activities.item(0);
+            Element destination = (Element) activities.item(1);
+            if (i % 7 == 0) {
+                assertTrue(origin.getAttribute("x").equals("100.0") || origin.getAttribute("x").equals("110.0"));
+            } else {
+                assertEquals(String.valueOf(1000.5 + i), origin.getAttribute("x"));
+            }
+            assertEquals("3000.0", destination.getAttribute("x"));
+            if (purpose == Purpose.AIRPORT) {
+                assertEquals("home", origin.getAttribute("type"));
+                assertEquals("airport", destination.getAttribute("type"));
+            }
+            int minutes = i % 1440;
+            String departure = String.format("%02d:%02d:00", minutes / 60, minutes % 60);
+            assertEquals(departure, origin.getAttribute("end_time"));
+            assertEquals(departure, ((Element) legs.item(0)).getAttribute("dep_time"));
+            String arrival = String.format("%02d:%02d:00", (minutes + 30) / 60, (minutes + 30) % 60);
+            assertEquals(arrival, destination.getAttribute("start_time"));
+            if (roundTrip) {
+                assertEquals(origin.getAttribute("type"), ((Element) activities.item(2)).getAttribute("type"));
+                assertEquals(origin.getAttribute("x"), ((Element) activities.item(2)).getAttribute("x"));
+                assertTrue(destination.hasAttribute("end_time"));
+            } else {
+                assertFalse(destination.hasAttribute("end_time"));
+            }
+        }
+        assertEquals(expectedPersons, persons.getLength());
+    }
+
+    @Test
+    public final void testOutputDoesNotDependOnThreads() throws Exception {
+        Path trips = writeTrips();
+        ThreadIndependence.assertIndependentOfThreads(threads -> {
+            Path plans = folder.getRoot().toPath().resolve("plans" + threads + ".xml.gz");
+            createConverter(threads, 0.2).convert(trips, plans);
+            return read(plans);
+        }, Assert::assertArrayEquals);
+    }
+
+    @Test
+    public final void testPartsContainAllPersons() throws Exception {
+        Path trips = writeTrips();
+        Path plans = folder.getRoot().toPath().resolve("plans.xml");
+        createConverter(ThreadIndependence.SEQUENTIAL, 0.2).convert(trips, plans);
+        Path directory = folder.getRoot().toPath().resolve("parts");
+        int parts = createConverter(ThreadIndependence.PARALLEL, 0.2).convertToParts(trips, directory, "plans_", ".xml.gz");
+        assertTrue(parts > 1);
+
+        List<String> expected = getIds(parsePersons(read(plans)));
+        List<String> actual = new ArrayList<>();
+        for (int part = 0; part < parts; part++) {
+            actual.addAll(getIds(parsePersons(read(directory.resolve("plans_" + part + ".xml.gz")))));
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public final void testZonesWithoutPoolUsePolygon() throws Exception {
+        Path trips = folder.newFile("polygonTrips.csv").toPath();
+        Files.write(trips, (TripCsvWriter.HEADER + "1,40,null,null,20,3000.0,4000.0,HBW,7,"
+                + "12.5,30.0,40.0,50.0,60.0,autoDriver,480,1020\n").getBytes(StandardCharsets.US_ASCII));
+        Map<Integer, MitoZone> zones = new HashMap<>();
+        MitoZone zone = new MitoZone(40, AreaTypes.SGType.TOWN);
+        zone.setGeometry(new GeometryFactory().toGeometry(new Envelope(500, 600, 700, 800)));
+        zones.put(40, zone);
+        Path plans = folder.getRoot().toPath().resolve("polygonPlans.xml");
+        new TripCsvPlansConverter(new SharedExecutor(ThreadIndependence.SEQUENTIAL), zones, Collections.singleton("car"),
+                new MatsimActivityTypes(AIRPORT_ZONE), 1, 42).convert(trips, plans);
+
+        NodeList persons = parsePersons(read(plans));
+        assertEquals(1, persons.getLength());
+        Element origin = (Element) ((Element) persons.item(0)).getElementsByTagName("activity").item(0);
+        double x = Double.parseDouble(origin.getAttribute("x"));
+        double y = Double.parseDouble(origin.getAttribute("y"));
+        assertTrue(x >= 500 && x <= 600);
+        assertTrue(y >= 700 && y <= 800);
+    }
+
+    private static List<String> getIds(NodeList persons) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < persons.getLength(); i++) {
+            ids.add(((Element) persons.item(i)).getAttribute("id"));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,148 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoHousehold;
+import de.tum.bgu.msm.data.MitoOccupationStatus;
+import de.tum.bgu.msm.data.MitoGender;
+import de.tum.bgu.msm.data.MitoPerson;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.TripTable;
+import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TripCsvWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int NUMBER_OF_TRIPS = 70000;
+
+    private DataSet createDataSet(int threads) {
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        MitoZone zone1 = new MitoZone(10, AreaTypes.SGType.CORE_CITY);
+        MitoZone zone2 = new MitoZone(20, AreaTypes.SGType.RURAL);
+        dataSet.addZone(zone1);
+        dataSet.addZone(zone2);
+
+        int[] lookup = {10, 20};
+        SkimTravelTimes travelTimes = new SkimTravelTimes();
+        String[] modes = {"car", "bus", "train", "tramMetro"};
+        for (int m = 0; m < modes.length; m++) {
+            IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(lookup);
+            skim.setIndexed(10, 20, 10.5 + m);
+            skim.setIndexed(20, 10, 0.1 * (m + 1));
+            travelTimes.updateSkimMatrix(skim, modes[m]);
+        }
+        dataSet.setTravelTimes(travelTimes);
+        IndexedDoubleMatrix2D distances = new IndexedDoubleMatrix2D(lookup);
+        distances.setIndexed(10, 20, 3.25);
+        distances.setIndexed(20, 10, 1e-4);
+        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distances));
+
+        MitoHousehold household = new MitoHousehold(1, 1000, 1);
+        household.setHomeZone(zone1);
+        household.setHomeLocation(new Coordinate(4468000.5, 5333000.25));
+        MitoPerson person = new MitoPerson(-7, MitoOccupationStatus.WORKER, null, 30, MitoGender.MALE, true);
+        household.addPerson(person);
+
+        for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+            MitoTrip trip = new MitoTrip(i, Purpose.values()[i % Purpose.values().length]);
+            if (i % 7 != 0) {
+                trip.setTripOrigin(i % 2 == 0 ? household : zone2);
+                trip.setTripDestination(i % 2 == 0 ? zone2 : zone1);
+                trip.setTripMode(Mode.values()[i % Mode.values().length]);
+                trip.setDepartureInMinutes(i % 1440);
+                if (i % 3 == 0) {
+                    trip.setDepartureInMinutesReturnTrip(i % 1440 + 60);
+                }
+            }
+            trip.setPerson(person);
+            dataSet.addTrip(trip);
+        }
+        return dataSet;
+    }
+
+    /**
+     * Formats a trip the way the micro data trips file has always been written
+     */
+    private static String expectedLine(DataSet dataSet, MitoTrip trip) {
+        StringBuilder line = new StringBuilder();
+        line.append(trip.getId()).append(',');
+        if (trip.getTripOrigin() == null) {
+            line.append("null,null,null,null,null,null,");
+        } else {
+            line.append(trip.getTripOrigin().getZoneId()).append(',');
+            if (trip.getTripOrigin() instanceof MitoHousehold) {
+                Coordinate home = ((MitoHousehold) trip.getTripOrigin()).getHomeLocation();
+                line.append(home.x).append(',').append(home.y).append(',');
+            } else {
+                line.append("null,null,");
+            }
+            line.append(trip.getTripDestination().getZoneId()).append(",null,null,");
+        }
+        line.append(trip.getTripPurpose()).append(',').append(trip.getPerson().getId()).append(',');
+        if (trip.getTripOrigin() != null) {
+            int o = trip.getTripOrigin().getZoneId();
+            int d = trip.getTripDestination().getZoneId();
+            line.append(dataSet.getTravelDistancesAuto().getTravelDistance(o, d));
+            for (String mode : new String[]{"car", "bus", "train", "tramMetro"}) {
+                line.append(',').append(dataSet.getTravelTimes().getTravelTime(trip.getTripOrigin(),
+                        trip.getTripDestination(), dataSet.getPeakHour(), mode));
+            }
+        } else {
+            line.append("NA,NA,NA,NA,NA");
+        }
+        line.append(',').append(trip.getTripMode()).append(',').append(trip.getDepartureInMinutes()).append(',');
+        int returnTrip = trip.getDepartureInMinutesReturnTrip();
+        line.append(returnTrip != -1 ? String.valueOf(returnTrip) : "NA").append('\n');
+        return line.toString();
+    }
+
+    private static String read(Path file, boolean gzip) throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Test
+    public final void testOutputMatchesLineFormat() throws Exception {
+        DataSet dataSet = createDataSet(ThreadIndependence.SEQUENTIAL);
+        StringBuilder expected = new StringBuilder(TripCsvWriter.HEADER);
+        for (MitoTrip trip : dataSet.getTrips().values()) {
+            expected.append(expectedLine(dataSet, trip));
+        }
+
+        assertEquals(expected.toString(), ThreadIndependence.assertIndependentOfThreads(
+                threads -> write(threads, "trips" + threads + ".csv", false), Assert::assertEquals));
+        assertEquals(expected.toString(), ThreadIndependence.assertIndependentOfThreads(
+                threads -> write(threads, "trips" + threads + ".csv.gz", true), Assert::assertEquals));
+    }
+
+    private String write(int threads, String fileName, boolean gzip) throws IOException {
+        DataSet dataSet = createDataSet(threads);
+        TripTable trips = TripTable.fromTrips(dataSet.getTrips().values(), true);
+        Path file = folder.getRoot().toPath().resolve(fileName);
+        new TripCsvWriter(dataSet, false).write(trips, file, gzip);
+        return read(file, gzip);
+    }
+}
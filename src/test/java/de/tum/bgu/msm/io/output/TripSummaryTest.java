@@ -0,0 +1,130 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.AreaTypes;
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.MitoZone;
+import de.tum.bgu.msm.data.Mode;
+import de.tum.bgu.msm.data.Purpose;
+import de.tum.bgu.msm.data.travelDistances.MatrixTravelDistances;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Test;
+import org.knowm.xchart.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TripSummaryTest {
+
+    private static final int NUMBER_OF_TRIPS = 150000;
+    private static final int[] ZONES = {10, 20, 30};
+
+    private DataSet createDataSet(int threads) {
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        for (int zone : ZONES) {
+            dataSet.addZone(new MitoZone(zone, AreaTypes.SGType.CORE_CITY));
+        }
+        SkimTravelTimes travelTimes = new SkimTravelTimes();
+        IndexedDoubleMatrix2D carTimes = new IndexedDoubleMatrix2D(ZONES);
+        IndexedDoubleMatrix2D distances = new IndexedDoubleMatrix2D(ZONES);
+        // distances on bin borders, at the upper bound and outside of the range of the histograms
+        double[] values = {0, 2, 3.3, 17.9, 99.99, 100, 100.5, 0.1, 42};
+        for (int o = 0; o < ZONES.length; o++) {
+            for (int d = 0; d < ZONES.length; d++) {
+                carTimes.setIndexed(ZONES[o], ZONES[d], 1.5 * (o + 1) + d);
+                distances.setIndexed(ZONES[o], ZONES[d], values[o * ZONES.length + d]);
+            }
+        }
+        travelTimes.updateSkimMatrix(carTimes, "car");
+        dataSet.setTravelTimes(travelTimes);
+        dataSet.setTravelDistancesAuto(new MatrixTravelDistances(distances));
+
+        for (int i = 0; i < NUMBER_OF_TRIPS; i++) {
+            MitoTrip trip = new MitoTrip(i, Purpose.values()[i % Purpose.values().length]);
+            if (i % 11 != 0) {
+                trip.setTripOrigin(dataSet.getZones().get(ZONES[i % 3]));
+                trip.setTripDestination(dataSet.getZones().get(ZONES[(i / 3) % 3]));
+            }
+            if (i % 5 != 0) {
+                trip.setTripMode(Mode.values()[i % Mode.values().length]);
+            }
+            dataSet.addTrip(trip);
+        }
+        return dataSet;
+    }
+
+    @Test
+    public final void testAggregatesMatchTrips() {
+        DataSet dataSet = createDataSet(ThreadIndependence.SEQUENTIAL);
+        TripSummary summary = TripSummary.compute(dataSet);
+
+        for (Purpose purpose : Purpose.values()) {
+            List<Double> times = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            int[] tripsByZone = new int[summary.zones.length];
+            for (MitoTrip trip : dataSet.getTrips().values()) {
+                if (trip.getTripPurpose() == purpose && trip.getTripOrigin() != null) {
+                    times.add(dataSet.getTravelTimes().getTravelTime(trip.getTripOrigin(), trip.getTripDestination(),
+                            dataSet.getPeakHour(), "car"));
+                    distances.add(dataSet.getTravelDistancesAuto().getTravelDistance(
+                            trip.getTripOrigin().getZoneId(), trip.getTripDestination().getZoneId()));
+                    for (int zone = 0; zone < summary.zones.length; zone++) {
+                        if (summary.zones[zone].getId() == trip.getTripOrigin().getZoneId()) {
+                            tripsByZone[zone]++;
+                        }
+                    }
+                }
+            }
+            assertArrayEquals(times.stream().mapToDouble(Double::doubleValue).toArray(),
+                    summary.carTravelTimesByPurpose[purpose.ordinal()], 0.);
+            assertArrayEquals(tripsByZone, summary.tripsByPurposeAndZone[purpose.ordinal()]);
+            assertHistogram(distances, summary.distancesByPurpose[purpose.ordinal()]);
+        }
+
+        for (Mode mode : Mode.values()) {
+            List<Double> distances = new ArrayList<>();
+            for (MitoTrip trip : dataSet.getTrips().values()) {
+                if (trip.getTripMode() == mode && trip.getTripOrigin() != null) {
+                    distances.add(dataSet.getTravelDistancesAuto().getTravelDistance(
+                            trip.getTripOrigin().getZoneId(), trip.getTripDestination().getZoneId()));
+                }
+            }
+            assertHistogram(distances, summary.distancesByMode[mode.ordinal()]);
+        }
+    }
+
+    @Test
+    public final void testResultDoesNotDependOnThreads() throws Exception {
+        ThreadIndependence.assertIndependentOfThreads(threads -> TripSummary.compute(createDataSet(threads)),
+                TripSummaryTest::assertSameSummary);
+    }
+
+    private static void assertSameSummary(TripSummary sequential, TripSummary parallel) {
+        for (Purpose purpose : Purpose.values()) {
+            assertArrayEquals(sequential.carTravelTimesByPurpose[purpose.ordinal()],
+                    parallel.carTravelTimesByPurpose[purpose.ordinal()], 0.);
+            assertArrayEquals(sequential.distanceSumByPurposeAndZone[purpose.ordinal()],
+                    parallel.distanceSumByPurposeAndZone[purpose.ordinal()], 0.);
+            assertEquals(sequential.distancesByPurpose[purpose.ordinal()].getMean(),
+                    parallel.distancesByPurpose[purpose.ordinal()].getMean(), 0.);
+        }
+    }
+
+    private static void assertHistogram(List<Double> distances, TripSummary.DistanceHistogram actual) {
+        assertEquals(distances.size(), actual.getCount());
+        if (distances.isEmpty()) {
+            return;
+        }
+        Histogram expected = new Histogram(distances, TripSummary.DISTANCE_BINS, 0, TripSummary.MAX_DISTANCE);
+        assertArrayEquals(expected.getyAxisData().stream().mapToDouble(Double::doubleValue).toArray(),
+                actual.getFrequencies(), 0.);
+        assertArrayEquals(expected.getxAxisData().stream().mapToDouble(Double::doubleValue).toArray(),
+                TripSummary.DistanceHistogram.getBinCenters(), 1e-12);
+        assertEquals(distances.stream().mapToDouble(Double::doubleValue).average().getAsDouble(), actual.getMean(), 1e-9);
+    }
+}
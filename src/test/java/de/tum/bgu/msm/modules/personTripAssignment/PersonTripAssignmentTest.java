@@ -2,13 +2,17 @@ package de.tum.bgu.msm.modules.personTripAssignment;
 
 import com.google.common.collect.Lists;
 import de.tum.bgu.msm.DummyOccupation;
+import de.tum.bgu.msm.ThreadIndependence;
 import de.tum.bgu.msm.data.*;
 import de.tum.bgu.msm.resources.Resources;
 import de.tum.bgu.msm.util.MitoUtil;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
@@ -68,4 +72,44 @@ public class PersonTripAssignmentTest {
             }
         }
     }
+
+    @Test
+    public void testResultsDoNotDependOnNumberOfThreads() throws Exception {
+        ThreadIndependence.assertIndependentOfThreads(PersonTripAssignmentTest::assignManyHouseholds, Assert::assertArrayEquals);
+    }
+
+    private static int[] assignManyHouseholds(int threads) {
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        MitoOccupationStatus[] statuses = MitoOccupationStatus.values();
+        Random random = new Random(1);
+        int personId = 0;
+        int tripId = 0;
+        for (int hhId = 0; hhId < 5000; hhId++) {
+            MitoHousehold household = new MitoHousehold(hhId, 1, 1);
+            int size = 1 + random.nextInt(5);
+            for (int i = 0; i < size; i++) {
+                household.addPerson(new MitoPerson(personId++, statuses[random.nextInt(statuses.length)], null,
+                        5 + random.nextInt(70), MitoGender.FEMALE, false));
+            }
+            dataSet.addHousehold(household);
+            for (Purpose purpose : Purpose.getAllPurposes()) {
+                List<MitoTrip> trips = new ArrayList<>();
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    MitoTrip trip = new MitoTrip(tripId++, purpose);
+                    trips.add(trip);
+                    dataSet.addTrip(trip);
+                }
+                household.setTripsByPurpose(trips, purpose);
+            }
+        }
+
+        new PersonTripAssignment(dataSet, Purpose.getAllPurposes()).run();
+
+        int[] persons = new int[tripId];
+        Arrays.fill(persons, -1);
+        for (MitoTrip trip : dataSet.getTrips().values()) {
+            persons[trip.getId()] = trip.getPerson().getId();
+        }
+        return persons;
+    }
 }
@@ -0,0 +1,26 @@
+package de.tum.bgu.msm.modules.plansConverter.externalFlows;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExternalFlowMatrixTest {
+
+    @Test
+    public final void testCellsKeepInsertionOrder() {
+        ExternalFlowMatrix matrix = new ExternalFlowMatrix();
+        for (int i = 0; i < 3000; i++) {
+            matrix.put(i % 50, -i, i * 0.5f);
+        }
+        matrix.put(7, -7, 42f);
+
+        assertEquals(3000, matrix.size());
+        for (int cell = 0; cell < matrix.size(); cell++) {
+            assertEquals(cell % 50, matrix.getOrigin(cell));
+            assertEquals(-cell, matrix.getDestination(cell));
+            assertEquals(cell == 7 ? 42f : cell * 0.5f, matrix.getFlow(cell), 0f);
+        }
+        assertEquals(42f, matrix.get(7, -7), 0f);
+        assertEquals(0f, matrix.get(-7, 7), 0f);
+    }
+}
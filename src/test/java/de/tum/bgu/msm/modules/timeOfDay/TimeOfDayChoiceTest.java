@@ -0,0 +1,127 @@
+package de.tum.bgu.msm.modules.timeOfDay;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+public class TimeOfDayChoiceTest {
+
+    private static final List<Purpose> PURPOSES = List.of(Purpose.HBW, Purpose.HBS, Purpose.NHBO);
+
+    @Test
+    public void testResultsDoNotDependOnNumberOfThreads() throws Exception {
+        ThreadIndependence.assertIndependentOfThreads(TimeOfDayChoiceTest::chooseDepartures, Assert::assertArrayEquals);
+    }
+
+    private static int[] chooseDepartures(int threads) {
+        DataSet dataSet = createDataSet(threads);
+
+        new TimeOfDayChoice(dataSet, PURPOSES).run();
+
+        int[] departures = new int[dataSet.getTrips().size() * 2];
+        int i = 0;
+        for (MitoTrip trip : dataSet.getTrips().values()) {
+            if (trip.getTripMode() != null) {
+                Assert.assertTrue(trip.getDepartureInMinutes() >= 0 && trip.getDepartureInMinutes() <= 24 * 60);
+            }
+            departures[i++] = trip.getDepartureInMinutes();
+            departures[i++] = trip.getDepartureInMinutesReturnTrip();
+        }
+        return departures;
+    }
+
+    private static DataSet createDataSet(int threads) {
+        DataSet dataSet = ThreadIndependence.createDataSet(threads);
+        Random random = new Random(1);
+
+        EnumMap<Purpose, DoubleMatrix1D> arrivals = new EnumMap<>(Purpose.class);
+        EnumMap<Purpose, DoubleMatrix1D> durations = new EnumMap<>(Purpose.class);
+        EnumMap<Purpose, DoubleMatrix1D> departures = new EnumMap<>(Purpose.class);
+        for (Purpose purpose : Purpose.values()) {
+            arrivals.put(purpose, randomDistribution(random));
+            durations.put(purpose, randomDistribution(random));
+            departures.put(purpose, randomDistribution(random));
+        }
+        dataSet.setArrivalMinuteCumProbByPurpose(arrivals);
+        dataSet.setDurationMinuteCumProbByPurpose(durations);
+        dataSet.setDepartureMinuteCumProbByPurpose(departures);
+
+        dataSet.setTravelDistancesNMT((origin, destination) -> 1000. * (1 + Math.abs(origin - destination)));
+        dataSet.setTravelTimes(new ConstantTravelTimes());
+
+        MitoZone[] zones = new MitoZone[5];
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = new MitoZone(i, AreaTypes.SGType.CORE_CITY);
+            dataSet.addZone(zones[i]);
+        }
+
+        Mode[] modes = {Mode.autoDriver, Mode.walk, Mode.bicycle, Mode.train, null};
+        int tripId = 0;
+        for (int hhId = 0; hhId < 3000; hhId++) {
+            MitoHousehold household = new MitoHousehold(hhId, 2000, 1);
+            MitoPerson person = new MitoPerson(hhId, MitoOccupationStatus.WORKER, null, 40, MitoGender.MALE, true);
+            household.addPerson(person);
+            dataSet.addHousehold(household);
+            for (Purpose purpose : PURPOSES) {
+                List<MitoTrip> trips = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    MitoTrip trip = new MitoTrip(tripId++, purpose);
+                    trip.setPerson(person);
+                    trip.setTripOrigin(zones[random.nextInt(zones.length)]);
+                    trip.setTripDestination(zones[random.nextInt(zones.length)]);
+                    trip.setTripMode(modes[random.nextInt(modes.length)]);
+                    trips.add(trip);
+                    dataSet.addTrip(trip);
+                }
+                household.setTripsByPurpose(trips, purpose);
+            }
+        }
+        return dataSet;
+    }
+
+    private static DoubleMatrix1D randomDistribution(Random random) {
+        DoubleMatrix1D distribution = new DenseDoubleMatrix1D(24 * 60 + 1);
+        for (int minute = 0; minute < distribution.size(); minute++) {
+            distribution.setQuick(minute, random.nextDouble());
+        }
+        return distribution;
+    }
+
+    private static class ConstantTravelTimes implements TravelTimes {
+
+        @Override
+        public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+            return 20;
+        }
+
+        @Override
+        public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+            return null;
+        }
+
+        @Override
+        public TravelTimes duplicate() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package de.tum.bgu.msm.modules.travelTimeBudget;
+
+import de.tum.bgu.msm.DummyOccupation;
+import de.tum.bgu.msm.ThreadIndependence;
+import de.tum.bgu.msm.data.*;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.resources.Resources;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the engine with budgets that were calculated for the same households by the original per-household
+ * implementation, i.e. the former DiscretionaryBudgetCalculator and MandatoryBudgetCalculator runnables with the
+ * former coefficients of {@link TravelTimeBudgetCalculatorImpl}.
+ */
+public class TravelTimeBudgetEngineTest {
+
+    private static final int NUMBER_OF_HOUSEHOLDS = 5000;
+
+    private static final Purpose[] PURPOSES = {Purpose.HBS, Purpose.HBO, Purpose.HBR, Purpose.NHBO, Purpose.NHBW,
+            Purpose.HBW, Purpose.HBE};
+
+    /**
+     * budgets of the first households by {@link #PURPOSES}
+     */
+    private static final double[][] EXPECTED_BUDGETS = {
+            {9.48525442352129, 34.46727879190328, 0.0, 22.203854950362675, 13.458749407853636, 0.0, 0.0},
+            {181.0436978664054, 3.9346047542127454, 0.0, 2.6595738952764765, 35.11503576603892, 176.0, 150.0},
+            {6.441351812126799, 33.79829755983828, 0.0, 20.522378404052915, 20.4223401724407, 60.0, 30.0},
+            {16.179393506874543, 8.062393181019601, 0.0, 7.667617338259767, 36.841665086397285, 120.0, 90.0},
+            {23.753702826297044, 30.86153026910018, 0.0, 9.100741741137682, 13.271639739933727, 30.0, 30.0},
+            {9.981550378487235, 38.18376530141903, 0.0, 22.014160826395504, 11.81806636094109, 0.0, 0.0}};
+
+    /**
+     * budgets summed over all households in household order by {@link #PURPOSES}
+     */
+    private static final double[] EXPECTED_SUMS = {355810.58966705337, 112434.1319327818, 0.0, 64996.00288396929,
+            102169.34364953187, 374670.0, 378881.0};
+
+    private DataSet createDataSet() {
+        Resources.initializeResources("./test/muc/test.properties");
+        DataSet dataSet = ThreadIndependence.createDataSet(ThreadIndependence.PARALLEL);
+        dataSet.setTravelTimes(new ZoneTravelTimes());
+        AreaTypes.SGType[] areaTypes = AreaTypes.SGType.values();
+        for (int zone = 1; zone <= 8; zone++) {
+            dataSet.addZone(new MitoZone(zone, areaTypes[zone % areaTypes.length]));
+        }
+
+        Random random = new Random(42);
+        MitoOccupationStatus[] status = MitoOccupationStatus.values();
+        int personId = 0;
+        int tripId = 0;
+        for (int id = 0; id < NUMBER_OF_HOUSEHOLDS; id++) {
+            MitoHousehold household = new MitoHousehold(id, random.nextInt(10000), random.nextInt(4));
+            household.setEconomicStatus(1 + random.nextInt(5));
+            household.setHomeZone(dataSet.getZones().get(1 + random.nextInt(8)));
+            Map<Purpose, List<MitoTrip>> trips = new EnumMap<>(Purpose.class);
+            for (Purpose purpose : Purpose.values()) {
+                trips.put(purpose, new ArrayList<>());
+            }
+            int size = random.nextInt(6);
+            for (int p = 0; p < size; p++) {
+                // persons without occupation or without occupation zone get the default mandatory budget
+                int type = random.nextInt(4);
+                MitoOccupation occupation = type == 0 ? null : type == 1 ? DummyOccupation.dummy
+                        : new MitoJob(dataSet.getZones().get(1 + random.nextInt(8)), new Coordinate(0, 0), personId);
+                MitoPerson person = new MitoPerson(personId++, status[random.nextInt(status.length)], occupation,
+                        5 + random.nextInt(80), random.nextBoolean() ? MitoGender.MALE : MitoGender.FEMALE, random.nextBoolean());
+                household.addPerson(person);
+                dataSet.addPerson(person);
+                for (Purpose purpose : Purpose.getAllPurposes()) {
+                    for (int t = random.nextInt(3); t > 0; t--) {
+                        MitoTrip trip = new MitoTrip(tripId++, purpose);
+                        person.addTrip(trip);
+                        trips.get(purpose).add(trip);
+                    }
+                }
+            }
+            for (Map.Entry<Purpose, List<MitoTrip>> entry : trips.entrySet()) {
+                household.setTripsByPurpose(entry.getValue(), entry.getKey());
+            }
+            dataSet.addHousehold(household);
+        }
+        return dataSet;
+    }
+
+    @Test
+    public final void testBudgetsMatchOriginalCalculation() {
+        DataSet dataSet = createDataSet();
+        new TravelTimeBudgetEngine(dataSet, Purpose.getAllPurposes()).run();
+
+        double[] sums = new double[PURPOSES.length];
+        for (MitoHousehold household : dataSet.getHouseholds().values()) {
+            for (int p = 0; p < PURPOSES.length; p++) {
+                double budget = household.getTravelTimeBudgetForPurpose(PURPOSES[p]);
+                if (household.getId() < EXPECTED_BUDGETS.length) {
+                    assertEquals(EXPECTED_BUDGETS[household.getId()][p], budget, 1e-9);
+                }
+                sums[p] += budget;
+            }
+        }
+        assertArrayEquals(EXPECTED_SUMS, sums, 1e-6);
+    }
+
+    private static final class ZoneTravelTimes implements TravelTimes {
+
+        @Override
+        public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+            return 5. + 1.5 * origin.getZoneId() + destination.getZoneId();
+        }
+
+        @Override
+        public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+            return 0;
+        }
+
+        @Override
+        public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+            return null;
+        }
+
+        @Override
+        public TravelTimes duplicate() {
+            return this;
+        }
+    }
+}
@@ -43,5 +43,9 @@ public class HouseHoldTypeManagerTest {
         HouseholdType determinedType = manager.determineHouseholdType(household2);
         Assert.assertNotNull(determinedType);
         Assert.assertEquals(1, determinedType.getNumberOfRecords());
+
+        Assert.assertNotNull(household2.getHouseholdTypeKey());
+        HouseholdType typeFromCachedKey = new HouseholdTypeManager(Purpose.HBW).determineHouseholdType(household2);
+        Assert.assertEquals(determinedType.getId(), typeFromCachedKey.getId());
     }
 }
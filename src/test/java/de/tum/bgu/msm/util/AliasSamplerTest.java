@@ -0,0 +1,38 @@
+package de.tum.bgu.msm.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class AliasSamplerTest {
+
+    @Test
+    public final void testSampleFrequencies() {
+        double[] weights = {0., 10., 30., 0., 60.};
+        AliasSampler sampler = new AliasSampler(weights);
+        assertEquals(100., sampler.getTotalWeight(), 0.);
+
+        Random random = new Random(42);
+        int[] counts = new int[weights.length];
+        int draws = 100000;
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.sample(random)]++;
+        }
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[3]);
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / 100., counts[i] / (double) draws, 0.01);
+        }
+    }
+
+    @Test
+    public final void testSingleOutcome() {
+        AliasSampler sampler = new AliasSampler(new double[]{0., 0., 5.});
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(2, sampler.sample(random));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.tum.bgu.msm.util;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PolygonPointSamplerTest {
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    /**
+     * L-shaped polygon of a 40x10 bar with a 10x10 square on top, i.e. a fifth of its area lies above y = 10
+     */
+    private Polygon createConcavePolygon() {
+        return factory.createPolygon(new Coordinate[]{
+                new Coordinate(0, 0), new Coordinate(40, 0), new Coordinate(40, 10),
+                new Coordinate(10, 10), new Coordinate(10, 20), new Coordinate(0, 20),
+                new Coordinate(0, 0)});
+    }
+
+    @Test
+    public final void testPointsAreUniformWithinConcavePolygon() {
+        Polygon polygon = createConcavePolygon();
+        PolygonPointSampler sampler = new PolygonPointSampler(polygon);
+        assertTrue(sampler.isTriangulated());
+
+        Random random = new Random(42);
+        int draws = 100000;
+        int upperPart = 0;
+        for (int i = 0; i < draws; i++) {
+            Coordinate coordinate = sampler.sample(random);
+            assertTrue(polygon.covers(factory.createPoint(coordinate)));
+            if (coordinate.y > 10) {
+                upperPart++;
+            }
+        }
+        assertEquals(0.2, upperPart / (double) draws, 0.01);
+    }
+
+    @Test
+    public final void testPoolIsReproducible() {
+        PolygonPointSampler sampler = new PolygonPointSampler(createConcavePolygon());
+        double[] pool = sampler.samplePool(100, new Random(7));
+        assertEquals(200, pool.length);
+        assertArrayEquals(pool, sampler.samplePool(100, new Random(7)), 0.);
+    }
+}
@@ -0,0 +1,59 @@
+package de.tum.bgu.msm.util.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LinkedIntObjectMapTest {
+
+    @Test
+    public final void testAgainstLinkedHashMap() {
+        LinkedIntObjectMap<String> map = new LinkedIntObjectMap<>();
+        Map<Integer, String> reference = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(5000) - 100;
+            if (random.nextDouble() < 0.3) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.putIfAbsent(key, "v" + i), map.putIfAbsent(key, "v" + i));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        assertEquals(new ArrayList<>(reference.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(reference.values()), new ArrayList<>(map.values()));
+        assertEquals(reference, map);
+        for (int key = -100; key < 4900; key++) {
+            assertEquals(reference.get(key), map.get(key));
+            assertEquals(reference.containsKey(key), map.containsKey((Integer) key));
+        }
+    }
+
+    @Test
+    public final void testIteratorRemoveAndCapacity() {
+        LinkedIntObjectMap<Integer> map = new LinkedIntObjectMap<>(4);
+        map.ensureCapacity(1000);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 7, Integer.valueOf(i));
+        }
+        for (Iterator<Integer> iterator = map.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(500, map.size());
+        List<Integer> values = new ArrayList<>(map.values());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(2 * i + 1, (int) values.get(i));
+        }
+        assertNull(map.get(0));
+        assertEquals(1, (int) map.get(7));
+    }
+}
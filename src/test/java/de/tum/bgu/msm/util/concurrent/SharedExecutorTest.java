@@ -0,0 +1,94 @@
+package de.tum.bgu.msm.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SharedExecutorTest {
+
+    private final SharedExecutor executor = new SharedExecutor(4);
+
+    @Test
+    public final void testParallelForVisitsEveryIndexOnce() {
+        AtomicIntegerArray visits = new AtomicIntegerArray(10000);
+        executor.parallelFor(0, visits.length(), visits::incrementAndGet);
+        for (int i = 0; i < visits.length(); i++) {
+            assertEquals(1, visits.get(i));
+        }
+    }
+
+    @Test
+    public final void testInvokeAllKeepsTaskOrder() {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int value = i;
+            tasks.add(() -> value * value);
+        }
+        List<Integer> results = executor.invokeAll(tasks);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    public final void testExceptionIsPropagated() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> null);
+        tasks.add(() -> {
+            throw new IllegalStateException("failed task");
+        });
+        try {
+            executor.invokeAll(tasks);
+            fail("Exception of task was not propagated");
+        } catch (IllegalStateException e) {
+            assertEquals("failed task", e.getMessage());
+        }
+    }
+
+    @Test
+    public final void testOriginalExceptionIsPropagated() {
+        IllegalStateException failure = new IllegalStateException("outer", new IllegalStateException("inner"));
+        try {
+            SharedExecutor.await(executor.submit(() -> {
+                throw failure;
+            }));
+            fail("Exception of task was not propagated");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+            assertEquals("inner", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public final void testNestedTasksRunOnWaitingWorker() {
+        SharedExecutor single = new SharedExecutor(1);
+        List<Thread> threads = single.invoke(() -> {
+            List<Callable<Thread>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tasks.add(Thread::currentThread);
+            }
+            return single.invokeAll(tasks);
+        });
+        for (Thread thread : threads) {
+            assertEquals("mito-worker-1", thread.getName());
+        }
+
+        IllegalStateException failure = new IllegalStateException("nested");
+        try {
+            single.invoke(() -> SharedExecutor.await(single.submit(() -> {
+                throw failure;
+            })));
+            fail("Exception of nested task was not propagated");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        single.shutdown();
+    }
+}
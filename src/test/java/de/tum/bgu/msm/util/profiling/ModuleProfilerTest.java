@@ -0,0 +1,39 @@
+package de.tum.bgu.msm.util.profiling;
+
+import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MitoTrip;
+import de.tum.bgu.msm.data.Purpose;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModuleProfilerTest {
+
+    private static volatile long[] sink;
+
+    @Test
+    public void testProfile() {
+        DataSet dataSet = new DataSet();
+        ModuleProfiler profiler = new ModuleProfiler(dataSet, true);
+        profiler.profile("step", () -> {
+            sink = new long[1 << 20];
+            dataSet.addTrip(new MitoTrip(1, Purpose.HBW));
+        });
+
+        Assert.assertEquals(1, profiler.getProfiles().size());
+        ModuleProfiler.ModuleProfile profile = profiler.getProfiles().get(0);
+        Assert.assertEquals("step", profile.getName());
+        Assert.assertEquals(1, profile.getTrips());
+        Assert.assertTrue(profile.getWallTime_ns() > 0);
+        Assert.assertTrue(profile.getAllocatedBytes() >= 8L << 20);
+        Assert.assertTrue(profile.getPeakHeapBytes() > 0);
+    }
+
+    @Test
+    public void testDisabled() {
+        ModuleProfiler profiler = new ModuleProfiler(new DataSet(), false);
+        final boolean[] executed = {false};
+        profiler.profile("step", () -> executed[0] = true);
+        Assert.assertTrue(executed[0]);
+        Assert.assertTrue(profiler.getProfiles().isEmpty());
+    }
+}